@@ -0,0 +1,95 @@
+import java.util.List;
+
+import p4.bench.Bridge;
+
+/**
+ * Filename: BenchmarkBridge.java Project: p4 Authors: Max Johnson
+ *
+ * Implements the Bridge of the JMH benchmarks by calling Graph and
+ * PackageManager directly. It has to be in the default package so it can see
+ * them, and it is loaded by Bridge.load().
+ */
+public class BenchmarkBridge implements Bridge {
+
+	/**
+	 * Returns a new empty Graph with the given edge storage
+	 */
+	@Override
+	public GraphOps newGraph(String storage) {
+		Graph graph;
+		if (storage.equals("sparse")) {
+			graph = new Graph(new SparseAdjacency());
+		} else if (storage.equals("dense")) {
+			graph = new Graph(new DenseAdjacency());
+		} else {
+			throw new IllegalArgumentException("unknown storage " + storage + ", expected sparse or dense");
+		}
+
+		return new GraphOps() {
+			@Override
+			public void addVertex(String vertex) {
+				graph.addVertex(vertex);
+			}
+
+			@Override
+			public void addEdge(String vertex1, String vertex2) {
+				graph.addEdge(vertex1, vertex2);
+			}
+
+			@Override
+			public void removeVertex(String vertex) {
+				graph.removeVertex(vertex);
+			}
+
+			@Override
+			public List<String> getAdjacentVerticesOf(String vertex) {
+				return graph.getAdjacentVerticesOf(vertex);
+			}
+
+			@Override
+			public int size() {
+				return graph.size();
+			}
+
+			@Override
+			public int order() {
+				return graph.order();
+			}
+		};
+	}
+
+	/**
+	 * Returns a new PackageManager
+	 */
+	@Override
+	public ManagerOps newManager() {
+		PackageManager manager = new PackageManager();
+
+		return new ManagerOps() {
+			@Override
+			public void constructGraph(String jsonFilePath) throws Exception {
+				manager.constructGraph(jsonFilePath);
+			}
+
+			@Override
+			public List<String> getInstallationOrder(String pkg) throws Exception {
+				return manager.getInstallationOrder(pkg);
+			}
+
+			@Override
+			public List<String> getInstallationOrderForAllPackages() throws Exception {
+				return manager.getInstallationOrderForAllPackages();
+			}
+
+			@Override
+			public String getPackageWithMaxDependencies() throws Exception {
+				return manager.getPackageWithMaxDependencies();
+			}
+
+			@Override
+			public void setInstallationOrderCacheCapacity(long capacity) {
+				manager.setInstallationOrderCacheCapacity(capacity);
+			}
+		};
+	}
+}
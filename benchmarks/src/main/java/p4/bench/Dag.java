@@ -0,0 +1,178 @@
+package p4.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Filename: Dag.java Project: p4 Authors: Max Johnson
+ *
+ * A synthetic acyclic dependency graph for the benchmarks. Vertex i is named
+ * "pkg" + i and only depends on vertices with a smaller index, so every shape
+ * is acyclic and vertex 0 has no dependencies. The random choices come from a
+ * fixed seed, so the same shape and size is always the same graph.
+ */
+public final class Dag {
+
+	// the seed of the random dependencies
+	private static final long SEED = 400L;
+
+	/**
+	 * The shapes of graph the benchmarks are run on
+	 */
+	public enum Shape {
+		/** vertex i depends on vertex i - 1, so every closure is a long path */
+		CHAIN,
+		/** every other vertex depends on vertex 0, so vertex 0 has n - 1 dependents */
+		FAN,
+		/** vertex i depends on up to fanOut random vertices before it */
+		RANDOM,
+		/**
+		 * the vertices are split into about sqrt(n) layers of about sqrt(n) vertices,
+		 * and each depends on up to fanOut random vertices of the layer before it
+		 */
+		LAYERED
+	}
+
+	private final String[] names; // the name of every vertex
+	private final int[][] dependencies; // the indices of the dependencies of every vertex
+
+	/**
+	 * Generates a graph
+	 *
+	 * @param shape    - the shape of the graph
+	 * @param vertices - the number of vertices, at least 1
+	 * @param fanOut   - the most dependencies a RANDOM or LAYERED vertex has
+	 */
+	public Dag(Shape shape, int vertices, int fanOut) {
+		if (vertices < 1 || fanOut < 1) {
+			throw new IllegalArgumentException("a graph needs at least one vertex and a fan out of at least one");
+		}
+		names = new String[vertices];
+		dependencies = new int[vertices][];
+		Random random = new Random(SEED);
+		int width = Math.max(1, (int) Math.sqrt(vertices)); // the size of a LAYERED layer
+
+		for (int i = 0; i < vertices; i++) {
+			names[i] = "pkg" + i;
+			if (i == 0) {
+				dependencies[i] = new int[0];
+				continue;
+			}
+			switch (shape) {
+			case CHAIN:
+				dependencies[i] = new int[] { i - 1 };
+				break;
+			case FAN:
+				dependencies[i] = new int[] { 0 };
+				break;
+			case RANDOM:
+				dependencies[i] = pick(random, 0, i, fanOut);
+				break;
+			default:
+				// the first layer has no dependencies
+				int layerStart = i / width * width;
+				dependencies[i] = layerStart == 0 ? new int[0]
+						: pick(random, layerStart - width, layerStart, fanOut);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Picks up to count different indices between from and to at random
+	 *
+	 * @param random - the source of the choices
+	 * @param from   - the smallest index, inclusive
+	 * @param to     - the largest index, exclusive
+	 * @param count  - the number of indices to pick
+	 * @return the indices, in the order they were picked
+	 */
+	private static int[] pick(Random random, int from, int to, int count) {
+		int[] picked = new int[Math.min(count, to - from)];
+		int found = 0;
+		while (found < picked.length) {
+			int index = from + random.nextInt(to - from);
+			boolean repeat = false;
+			for (int j = 0; j < found; j++) {
+				repeat |= picked[j] == index;
+			}
+			if (!repeat) {
+				picked[found++] = index;
+			}
+		}
+		return picked;
+	}
+
+	/**
+	 * Returns the number of vertices
+	 *
+	 * @return the number of vertices
+	 */
+	public int vertices() {
+		return names.length;
+	}
+
+	/**
+	 * Returns the name of a vertex
+	 *
+	 * @param index - the index of the vertex
+	 * @return its name
+	 */
+	public String name(int index) {
+		return names[index];
+	}
+
+	/**
+	 * Returns the indices of the dependencies of a vertex. The array must not be
+	 * changed.
+	 *
+	 * @param index - the index of the vertex
+	 * @return the indices of its dependencies
+	 */
+	public int[] dependencies(int index) {
+		return dependencies[index];
+	}
+
+	/**
+	 * Adds every vertex and edge to a graph, the same way constructGraph does
+	 *
+	 * @param graph - the graph to fill
+	 */
+	public void loadInto(Bridge.GraphOps graph) {
+		for (int i = 0; i < names.length; i++) {
+			graph.addVertex(names[i]);
+			for (int dependency : dependencies[i]) {
+				graph.addEdge(names[i], names[dependency]);
+			}
+		}
+	}
+
+	/**
+	 * Writes the graph as a json manifest that PackageManager.constructGraph can
+	 * read
+	 *
+	 * @param file - the file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public void writeManifest(Path file) throws IOException {
+		try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			out.write("{\"packages\":[");
+			for (int i = 0; i < names.length; i++) {
+				out.write(i == 0 ? "{\"name\":\"" : ",{\"name\":\"");
+				out.write(names[i]);
+				out.write("\",\"dependencies\":[");
+				for (int j = 0; j < dependencies[i].length; j++) {
+					out.write(j == 0 ? "\"" : ",\"");
+					out.write(names[dependencies[i][j]]);
+					out.write("\"");
+				}
+				out.write("]}");
+			}
+			out.write("]}");
+		}
+	}
+}
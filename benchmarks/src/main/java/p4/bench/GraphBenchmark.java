@@ -0,0 +1,147 @@
+package p4.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Filename: GraphBenchmark.java Project: p4 Authors: Max Johnson
+ *
+ * JMH benchmarks of the Graph mutators and getAdjacentVerticesOf on every Dag
+ * shape. load builds the whole graph, and the other benchmarks run on a graph
+ * that was loaded once per trial and is left the same size after every call.
+ *
+ * A DenseAdjacency needs vertices^2 bits, so the default run only uses the
+ * sparse storage. Compare the backends on graphs small enough for both with:
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar GraphBenchmark -p storage=sparse,dense -p vertices=1000,10000
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class GraphBenchmark {
+
+	// the most dependencies a RANDOM or LAYERED vertex has
+	private static final int FAN_OUT = 4;
+
+	@Param({ "CHAIN", "FAN", "RANDOM", "LAYERED" })
+	public Dag.Shape shape; // the shape of the graph
+
+	@Param({ "1000", "100000", "1000000" })
+	public int vertices; // the number of vertices
+
+	@Param({ "sparse" })
+	public String storage; // the edge storage of the graph, sparse or dense
+
+	private Bridge bridge; // makes the graphs
+	private Dag dag; // the vertices and edges to load
+	private Bridge.GraphOps loaded; // a graph with every vertex and edge of dag
+	private int next; // the index of the vertex the next call uses
+
+	/**
+	 * Generates the graph and loads a copy of it for the benchmarks that query or
+	 * change one
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		bridge = Bridge.load();
+		dag = new Dag(shape, vertices, FAN_OUT);
+		loaded = bridge.newGraph(storage);
+		dag.loadInto(loaded);
+		next = 0;
+	}
+
+	/**
+	 * Returns the index of the vertex the next call uses, going round every
+	 * vertex in turn
+	 *
+	 * @return the index of a vertex of dag
+	 */
+	private int nextVertex() {
+		int index = next;
+		next = index + 1 == vertices ? 0 : index + 1;
+		return index;
+	}
+
+	/**
+	 * Builds a new graph with every vertex and edge, the way constructGraph does
+	 *
+	 * @return the graph, so it is not optimized away
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Bridge.GraphOps load() {
+		Bridge.GraphOps graph = bridge.newGraph(storage);
+		dag.loadInto(graph);
+		return graph;
+	}
+
+	/**
+	 * Adds a new vertex with the edges of an existing one, then removes it again
+	 * so the graph stays the same size. This covers addVertex, addEdge and
+	 * removeVertex together, since none of them can be repeated on its own
+	 * without the graph growing or running out of vertices.
+	 *
+	 * @return the number of edges while the vertex was in the graph
+	 */
+	@Benchmark
+	public int addAndRemoveVertex() {
+		int index = nextVertex();
+		String vertex = "extra";
+		loaded.addVertex(vertex);
+		for (int dependency : dag.dependencies(index)) {
+			loaded.addEdge(vertex, dag.name(dependency));
+		}
+		// an edge to the vertex, so removeVertex has to update a dependent too
+		loaded.addEdge(dag.name(index), vertex);
+		int size = loaded.size();
+		loaded.removeVertex(vertex);
+		return size;
+	}
+
+	/**
+	 * Adds an edge that is already in the graph, which has to find both vertices
+	 * and the edge but changes nothing
+	 *
+	 * @return the number of edges
+	 */
+	@Benchmark
+	public int addExistingEdge() {
+		int index = nextVertex();
+		int[] dependencies = dag.dependencies(index);
+		// vertex 0 and the first LAYERED layer have no edges, so this adds a vertex that exists
+		if (dependencies.length == 0) {
+			loaded.addVertex(dag.name(index));
+		} else {
+			loaded.addEdge(dag.name(index), dag.name(dependencies[0]));
+		}
+		return loaded.size();
+	}
+
+	/**
+	 * Reads the dependencies of every vertex in turn
+	 *
+	 * @param blackhole - consumes the lists
+	 */
+	@Benchmark
+	public void getAdjacentVerticesOf(Blackhole blackhole) {
+		blackhole.consume(loaded.getAdjacentVerticesOf(dag.name(nextVertex())));
+	}
+}
@@ -0,0 +1,204 @@
+package p4.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Filename: PackageManagerBenchmark.java Project: p4 Authors: Max Johnson
+ *
+ * JMH benchmarks of loading a manifest and of the PackageManager queries on
+ * every Dag shape. The manifest is written to a temporary file once per trial.
+ * 
+ * The query benchmarks measure the algorithms, not the caches in front of
+ * them. getInstallationOrder runs on a manager with its installation order
+ * cache turned off, so every call searches the graph, and
+ * getPackageWithMaxDependencies gets a newly loaded manager for every call,
+ * since the closure cache keeps the answer until the graph changes. Loading
+ * that manager is not timed. The *Cached benchmarks ask a manager with its
+ * caches on, so after the first calls they measure cache hits.
+ *
+ * The queries on a CHAIN have closures as long as the graph, so the default
+ * sizes stop at 100000. Larger graphs can be run with -p vertices=1000000.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PackageManagerBenchmark {
+
+	// the most dependencies a RANDOM or LAYERED vertex has
+	private static final int FAN_OUT = 4;
+
+	@Param({ "CHAIN", "FAN", "RANDOM", "LAYERED" })
+	public Dag.Shape shape; // the shape of the graph
+
+	@Param({ "1000", "100000" })
+	public int vertices; // the number of packages
+
+	private Bridge bridge; // makes the managers
+	private Dag dag; // the packages in the manifest
+	private Path manifest; // the manifest of dag
+	private Bridge.ManagerOps loaded; // a manager that has read the manifest, with no order cache
+	private Bridge.ManagerOps cached; // a manager that has read the manifest, with its caches on
+	private int next; // the index of the package the next call uses
+
+	/**
+	 * A manager that is loaded again before every call, for queries whose answer
+	 * a manager keeps until its graph changes
+	 */
+	@State(Scope.Thread)
+	public static class FreshManager {
+
+		private Bridge.ManagerOps manager; // a manager that has read the manifest and answered nothing
+
+		/**
+		 * Loads a new manager from the manifest of the benchmark
+		 *
+		 * @param benchmark - the benchmark, which has written the manifest
+		 * @throws Exception if the manifest cannot be read
+		 */
+		@Setup(Level.Invocation)
+		public void loadManager(PackageManagerBenchmark benchmark) throws Exception {
+			manager = benchmark.bridge.newManager();
+			manager.constructGraph(benchmark.manifest.toString());
+		}
+	}
+
+	/**
+	 * Generates the graph and writes its manifest
+	 *
+	 * @throws IOException if the manifest cannot be written
+	 */
+	@Setup(Level.Trial)
+	public void writeManifest() throws IOException {
+		bridge = Bridge.load();
+		dag = new Dag(shape, vertices, FAN_OUT);
+		manifest = Files.createTempFile("manifest", ".json");
+		dag.writeManifest(manifest);
+	}
+
+	/**
+	 * Loads the managers of the iteration. The order cache of loaded is turned
+	 * off, so every getInstallationOrder call searches the graph.
+	 *
+	 * @throws Exception if the manifest cannot be read
+	 */
+	@Setup(Level.Iteration)
+	public void loadManager() throws Exception {
+		loaded = bridge.newManager();
+		loaded.setInstallationOrderCacheCapacity(0);
+		loaded.constructGraph(manifest.toString());
+		cached = bridge.newManager();
+		cached.constructGraph(manifest.toString());
+		next = 0;
+	}
+
+	/**
+	 * Deletes the manifest
+	 *
+	 * @throws IOException if it cannot be deleted
+	 */
+	@TearDown(Level.Trial)
+	public void deleteManifest() throws IOException {
+		Files.deleteIfExists(manifest);
+	}
+
+	/**
+	 * Reads the whole manifest into a new manager
+	 *
+	 * @return the manager, so it is not optimized away
+	 * @throws Exception if the manifest cannot be read
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Bridge.ManagerOps constructGraph() throws Exception {
+		Bridge.ManagerOps manager = bridge.newManager();
+		manager.constructGraph(manifest.toString());
+		return manager;
+	}
+
+	/**
+	 * Finds the installation order of every package in turn, searching the graph
+	 * every time
+	 *
+	 * @return the installation order
+	 * @throws Exception if the graph has a cycle
+	 */
+	@Benchmark
+	public List<String> getInstallationOrder() throws Exception {
+		String pkg = dag.name(next);
+		next = next + 1 == vertices ? 0 : next + 1;
+		return loaded.getInstallationOrder(pkg);
+	}
+
+	/**
+	 * Asks for the installation order of every package in turn with the order
+	 * cache on, so once every package has been asked for, each call is a hit
+	 *
+	 * @return the installation order
+	 * @throws Exception if the graph has a cycle
+	 */
+	@Benchmark
+	public List<String> getInstallationOrderCached() throws Exception {
+		String pkg = dag.name(next);
+		next = next + 1 == vertices ? 0 : next + 1;
+		return cached.getInstallationOrder(pkg);
+	}
+
+	/**
+	 * Finds the installation order of the whole graph
+	 *
+	 * @return the installation order
+	 * @throws Exception if the graph has a cycle
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public List<String> getInstallationOrderForAllPackages() throws Exception {
+		return loaded.getInstallationOrderForAllPackages();
+	}
+
+	/**
+	 * Finds the package with the most dependencies on a manager that has nothing
+	 * cached, building the closure of every package
+	 *
+	 * @param fresh - the manager loaded for this call
+	 * @return the package
+	 * @throws Exception if the graph has a cycle
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public String getPackageWithMaxDependencies(FreshManager fresh) throws Exception {
+		return fresh.manager.getPackageWithMaxDependencies();
+	}
+
+	/**
+	 * Asks for the package with the most dependencies again on a manager that
+	 * keeps the answer, so every call after the first is a hit
+	 *
+	 * @return the package
+	 * @throws Exception if the graph has a cycle
+	 */
+	@Benchmark
+	public String getPackageWithMaxDependenciesCached() throws Exception {
+		return cached.getPackageWithMaxDependencies();
+	}
+}
@@ -0,0 +1,56 @@
+/**
+ * Filename: AdjacencyStorage.java Project: p4 Authors: Max Johnson
+ * 
+ * Storage backend for the edges of a Graph. Every vertex of the graph is
+ * identified by its integer id (the AMindex of its GraphNode), and the storage
+ * only records which directed edges exist between those ids.
+ * 
+ * SparseAdjacency keeps a set of targets per vertex so memory grows with the
+ * number of edges. DenseAdjacency keeps the original boolean adjacency matrix,
+ * which is only worth it for small graphs where most pairs are connected.
+ */
+public interface AdjacencyStorage {
+
+	/**
+	 * Makes room for the given number of vertex ids (0 to vertices - 1).
+	 * 
+	 * @param vertices - the number of vertex ids the storage has to hold
+	 */
+	public void ensureCapacity(int vertices);
+
+	/**
+	 * Adds the edge from id from to id to.
+	 * 
+	 * @param from - the id the edge comes from
+	 * @param to   - the id the edge goes to
+	 * @return true if the edge was added, false if it was already stored
+	 */
+	public boolean addEdge(int from, int to);
+
+	/**
+	 * Removes the edge from id from to id to.
+	 * 
+	 * @param from - the id the edge comes from
+	 * @param to   - the id the edge goes to
+	 * @return true if the edge was removed, false if it wasn't stored
+	 */
+	public boolean removeEdge(int from, int to);
+
+	/**
+	 * Determines whether the edge from id from to id to is stored.
+	 * 
+	 * @param from - the id the edge comes from
+	 * @param to   - the id the edge goes to
+	 * @return true if the edge is stored, false otherwise
+	 */
+	public boolean hasEdge(int from, int to);
+
+	/**
+	 * Removes every edge and shrinks the storage to the given number of vertex
+	 * ids. Used by Graph.compact() before it stores the renumbered edges again.
+	 * 
+	 * @param vertices - the number of vertex ids the storage has to hold
+	 */
+	public void clear(int vertices);
+
+}
@@ -0,0 +1,1115 @@
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Filename: ConcurrentGraph.java Project: p4 Authors: Max Johnson
+ *
+ * Thread-safe GraphADT for graphs that are read by many threads while another
+ * thread changes them. The whole graph is an immutable State published through
+ * a single volatile field. Readers read that field once and never block or
+ * retry, and writers take a lock, build the next State and publish it, so
+ * every method takes effect at a single point in time and sees either all or
+ * none of any other call.
+ *
+ * Every vertex is an immutable Node holding the ids of its dependencies and
+ * dependents. The nodes are stored by id in pages of PAGE_SIZE nodes, and a
+ * write copies only the table of pages and the pages of the nodes it changes,
+ * so adding an edge costs about n / PAGE_SIZE + PAGE_SIZE no matter how large
+ * the graph is. Within one write, like a batch or addEdges, the changed nodes
+ * are Drafts whose lists of ids grow in place and are frozen into Nodes when
+ * the write is published, so loading k dependents of one vertex in a single
+ * write copies its lists once instead of k times.
+ *
+ * A vertex keeps its id until compact() is called, even if it is removed and
+ * added again, because pinned Versions look names up in the same map of ids.
+ * So the ids, the map and the table of pages grow with every distinct name
+ * ever added, not with the vertices in the graph. A graph that keeps adding
+ * and removing new names should call compact() now and then, which renumbers
+ * the vertices it holds from 0 and publishes them with a map of their own.
+ *
+ * snapshot() pins the current State as a read-only Version, so a long query
+ * sees one consistent graph while writes go on, and freeze() builds a
+ * FrozenGraph from a single State for DependencyTraversal. DependencyTraversal
+ * is not thread-safe, so each reading thread should use its own.
+ */
+public class ConcurrentGraph implements GraphADT {
+
+	// the number of bits of an id that pick the slot within its page
+	private static final int PAGE_BITS = 10;
+	// the number of nodes in a page
+	private static final int PAGE_SIZE = 1 << PAGE_BITS;
+	// the bits of an id that pick the slot within its page
+	private static final int PAGE_MASK = PAGE_SIZE - 1;
+	// the edges of a vertex that has none
+	private static final int[] NO_EDGES = new int[0];
+	// the room a list of ids gets the first time a write adds to it
+	private static final int MIN_ROOM = 4;
+	// the most dependencies that are scanned to find an edge before they are put in a set
+	private static final int SCAN_LIMIT = 8;
+
+	/**
+	 * A vertex and the ids of its dependencies and dependents. A Node is never
+	 * changed after it is published, a write replaces it instead.
+	 */
+	private static final class Node {
+
+		private final String vertex; // the name of the vertex
+		private final int[] neighbors; // the ids of its dependencies, in the order they were added
+		private final int[] dependents; // the ids of the vertices that depend on it
+
+		/**
+		 * Constructs a Node
+		 *
+		 * @param vertex     - the name of the vertex
+		 * @param neighbors  - the ids of its dependencies
+		 * @param dependents - the ids of its dependents
+		 */
+		private Node(String vertex, int[] neighbors, int[] dependents) {
+			this.vertex = vertex;
+			this.neighbors = neighbors;
+			this.dependents = dependents;
+		}
+	}
+
+	/**
+	 * One version of the whole graph. A State is never changed after it is
+	 * published.
+	 */
+	private static final class State {
+
+		private final Node[][] pages; // the node of every id, by page, null if the id has no vertex
+		private final int capacity; // one more than the largest id given out
+		private final int size; // the # of edges
+		private final int order; // the # of vertices
+		private final long version; // the number of writes that changed the graph before this version
+		private final ConcurrentHashMap<String, Integer> ids; // the id of every vertex added since the last compact()
+
+		/**
+		 * Constructs a State
+		 *
+		 * @param pages    - the node of every id, by page
+		 * @param capacity - one more than the largest id given out
+		 * @param size     - the number of edges
+		 * @param order    - the number of vertices
+		 * @param version  - the number of the version
+		 * @param ids      - the ids of the vertices, which only grow until the next
+		 *                 compact() replaces them
+		 */
+		private State(Node[][] pages, int capacity, int size, int order, long version,
+				ConcurrentHashMap<String, Integer> ids) {
+			this.pages = pages;
+			this.capacity = capacity;
+			this.size = size;
+			this.order = order;
+			this.version = version;
+			this.ids = ids;
+		}
+
+		/**
+		 * Returns the node of an id
+		 *
+		 * @param id - the id
+		 * @return the node with that id, null if the id has no vertex
+		 */
+		private Node node(int id) {
+			int page = id >>> PAGE_BITS;
+			if (id < 0 || page >= pages.length || pages[page] == null) {
+				return null;
+			}
+			return pages[page][id & PAGE_MASK];
+		}
+	}
+
+	/**
+	 * A list of ids that a write grows and shrinks in place. It starts out
+	 * sharing the array of a published Node, copies it the first time it is
+	 * changed, and grows it by doubling after that.
+	 */
+	private static final class IdList {
+
+		private int[] ids; // the ids, from 0 to count - 1
+		private int count; // the number of ids in the list
+		private boolean shared; // true while ids is still the array of a published Node
+
+		/**
+		 * Constructs a list that shares the given array until it is changed
+		 *
+		 * @param ids - the ids of a published Node
+		 */
+		private IdList(int[] ids) {
+			this.ids = ids;
+			count = ids.length;
+			shared = true;
+		}
+
+		/**
+		 * Adds an id at the end
+		 *
+		 * @param id - the id to add
+		 */
+		private void add(int id) {
+			if (shared || count == ids.length) {
+				ids = Arrays.copyOf(ids, Math.max(MIN_ROOM, count * 2));
+				shared = false;
+			}
+			ids[count++] = id;
+		}
+
+		/**
+		 * Removes an id, keeping the order of the others
+		 *
+		 * @param id - the id to remove, which is in the list
+		 */
+		private void remove(int id) {
+			int i = 0;
+			while (ids[i] != id) {
+				i++;
+			}
+			if (shared) {
+				ids = ids.clone();
+				shared = false;
+			}
+			System.arraycopy(ids, i + 1, ids, i, count - i - 1);
+			count--;
+		}
+
+		/**
+		 * Returns the ids as an array of exactly their length, for a Node
+		 *
+		 * @return the shared array if the list never changed, otherwise a copy
+		 */
+		private int[] toArray() {
+			if (shared) {
+				return ids;
+			}
+			return count == 0 ? NO_EDGES : Arrays.copyOf(ids, count);
+		}
+	}
+
+	/**
+	 * A node being changed by a write. Its lists of ids are changed in place, so
+	 * a write that adds many edges to the same vertex copies each list once
+	 * instead of once per edge, and it only becomes an immutable Node when the
+	 * write is published.
+	 */
+	private static final class Draft {
+
+		private final String vertex; // the name of the vertex
+		private final IdList neighbors; // the ids of its dependencies, in the order they were added
+		private final IdList dependents; // the ids of the vertices that depend on it
+		private Set<Integer> neighborSet; // the ids in neighbors, made once there are too many to scan
+		private boolean changed; // true once the write has changed the node
+
+		/**
+		 * Constructs the draft of a new vertex with no edges
+		 *
+		 * @param vertex - the name of the vertex
+		 */
+		private Draft(String vertex) {
+			this.vertex = vertex;
+			neighbors = new IdList(NO_EDGES);
+			dependents = new IdList(NO_EDGES);
+			changed = true;
+		}
+
+		/**
+		 * Constructs a draft of a published node
+		 *
+		 * @param node - the node
+		 */
+		private Draft(Node node) {
+			vertex = node.vertex;
+			neighbors = new IdList(node.neighbors);
+			dependents = new IdList(node.dependents);
+		}
+
+		/**
+		 * Checks if the vertex has an edge to an id. A short list is scanned, and a
+		 * long one is put in a set the first time, so each later check is constant
+		 * time.
+		 *
+		 * @param id - the id
+		 * @return true if the id is one of its dependencies
+		 */
+		private boolean hasNeighbor(int id) {
+			if (neighborSet == null) {
+				if (neighbors.count < SCAN_LIMIT) {
+					for (int i = 0; i < neighbors.count; i++) {
+						if (neighbors.ids[i] == id) {
+							return true;
+						}
+					}
+					return false;
+				}
+				neighborSet = new HashSet<Integer>(neighbors.count * 2);
+				for (int i = 0; i < neighbors.count; i++) {
+					neighborSet.add(neighbors.ids[i]);
+				}
+			}
+			return neighborSet.contains(id);
+		}
+
+		/**
+		 * Adds an edge from the vertex to an id
+		 *
+		 * @param id - the id, which is not a dependency yet
+		 */
+		private void addNeighbor(int id) {
+			neighbors.add(id);
+			if (neighborSet != null) {
+				neighborSet.add(id);
+			}
+			changed = true;
+		}
+
+		/**
+		 * Removes the edge from the vertex to an id
+		 *
+		 * @param id - the id, which is a dependency
+		 */
+		private void removeNeighbor(int id) {
+			neighbors.remove(id);
+			if (neighborSet != null) {
+				neighborSet.remove(id);
+			}
+			changed = true;
+		}
+
+		/**
+		 * Adds an id to the dependents of the vertex
+		 *
+		 * @param id - the id of the vertex with the new edge to this one
+		 */
+		private void addDependent(int id) {
+			dependents.add(id);
+			changed = true;
+		}
+
+		/**
+		 * Removes an id from the dependents of the vertex
+		 *
+		 * @param id - the id of the vertex whose edge to this one is removed
+		 */
+		private void removeDependent(int id) {
+			dependents.remove(id);
+			changed = true;
+		}
+
+		/**
+		 * Makes the immutable Node to publish
+		 *
+		 * @return the node with the changes of the draft
+		 */
+		private Node toNode() {
+			return new Node(vertex, neighbors.toArray(), dependents.toArray());
+		}
+	}
+
+	/**
+	 * The changes of one write. Every node the write changes is kept as a Draft
+	 * until the write is published, and then the pages of the current State that
+	 * hold them are copied once and the new nodes are put in the copies.
+	 */
+	private final class Edit {
+
+		private Node[][] pages; // the copied table of pages
+		private boolean[] copied; // true for the pages already copied by this write
+		private final Map<Integer, Draft> drafts; // the nodes of this write by id, for the vertices it reached
+		private int size; // the # of edges after the write
+		private int order; // the # of vertices after the write
+		private boolean changed; // true once the write has replaced any node
+		private final long version; // the number of the version the write starts from
+		private final ConcurrentHashMap<String, Integer> ids; // the ids of the vertices, shared with the current State
+
+		/**
+		 * Starts a write on the current State
+		 */
+		private Edit() {
+			State current = state;
+			ids = current.ids;
+			pages = current.pages.clone();
+			copied = new boolean[pages.length];
+			drafts = new HashMap<Integer, Draft>();
+			size = current.size;
+			order = current.order;
+			version = current.version;
+		}
+
+		/**
+		 * Returns the node of an id in the pages, without the drafts of this write
+		 *
+		 * @param id - the id
+		 * @return the node with that id, null if the id has no vertex
+		 */
+		private Node node(int id) {
+			int page = id >>> PAGE_BITS;
+			if (page >= pages.length || pages[page] == null) {
+				return null;
+			}
+			return pages[page][id & PAGE_MASK];
+		}
+
+		/**
+		 * Returns the draft of an id, making it from the published node the first
+		 * time this write needs it
+		 *
+		 * @param id - the id
+		 * @return the draft of the vertex with that id, null if the id has no vertex
+		 */
+		private Draft draft(int id) {
+			Draft draft = drafts.get(id);
+			if (draft == null) {
+				Node node = node(id);
+				if (node == null) {
+					return null;
+				}
+				draft = new Draft(node);
+				drafts.put(id, draft);
+			}
+			return draft;
+		}
+
+		/**
+		 * Replaces the node of an id
+		 *
+		 * @param id   - the id
+		 * @param node - the new node, null to remove the vertex
+		 */
+		private void set(int id, Node node) {
+			int page = id >>> PAGE_BITS;
+			// grows the table of pages to reach the id
+			if (page >= pages.length) {
+				int length = Math.max(page + 1, pages.length * 2);
+				pages = Arrays.copyOf(pages, length);
+				copied = Arrays.copyOf(copied, length);
+			}
+			// copies the page the first time this write changes it
+			if (!copied[page]) {
+				pages[page] = pages[page] == null ? new Node[PAGE_SIZE] : pages[page].clone();
+				copied[page] = true;
+			}
+			pages[page][id & PAGE_MASK] = node;
+			changed = true;
+		}
+
+		/**
+		 * Adds a vertex if it is not there yet
+		 *
+		 * @param vertex - the vertex
+		 * @return the id of the vertex, -1 if it is null
+		 */
+		private int addVertex(String vertex) {
+			if (vertex == null) {
+				return -1;
+			}
+			// a vertex that was added before keeps its old id
+			Integer id = ids.get(vertex);
+			if (id == null) {
+				id = nextId++;
+				ids.put(vertex, id);
+			}
+			if (!drafts.containsKey(id) && node(id) == null) {
+				drafts.put(id, new Draft(vertex));
+				order++;
+			}
+			return id;
+		}
+
+		/**
+		 * Removes a vertex and all its edges, if it is there
+		 *
+		 * @param vertex - the vertex, ignored if null
+		 */
+		private void removeVertex(String vertex) {
+			int id = idOf(ids, vertex);
+			Draft draft = draft(id);
+			if (draft == null) {
+				return;
+			}
+
+			// removes the edges from the vertex out of the dependents of its neighbors
+			for (int i = 0; i < draft.neighbors.count; i++) {
+				int neighbor = draft.neighbors.ids[i];
+				if (neighbor != id) {
+					draft(neighbor).removeDependent(id);
+				}
+				size--;
+			}
+			// removes the edges to the vertex out of the neighbors of its dependents,
+			// skipping an edge to itself, which was already counted
+			for (int i = 0; i < draft.dependents.count; i++) {
+				int dependent = draft.dependents.ids[i];
+				if (dependent != id) {
+					draft(dependent).removeNeighbor(id);
+					size--;
+				}
+			}
+
+			drafts.remove(id);
+			set(id, null);
+			order--;
+		}
+
+		/**
+		 * Adds an edge and its vertices, unless the edge is already there
+		 *
+		 * @param vertex1 - the vertex the edge comes from, ignored if null
+		 * @param vertex2 - the vertex the edge goes to, ignored if null
+		 */
+		private void addEdge(String vertex1, String vertex2) {
+			if (vertex1 == null || vertex2 == null) {
+				return;
+			}
+			int from = addVertex(vertex1);
+			int to = addVertex(vertex2);
+
+			// links the two nodes unless the edge is already there
+			Draft fromDraft = draft(from);
+			if (!fromDraft.hasNeighbor(to)) {
+				fromDraft.addNeighbor(to);
+				draft(to).addDependent(from); // the same draft as fromDraft if the edge is to itself
+				size++;
+			}
+		}
+
+		/**
+		 * Removes an edge, if it is there
+		 *
+		 * @param vertex1 - the vertex the edge comes from
+		 * @param vertex2 - the vertex the edge goes to
+		 */
+		private void removeEdge(String vertex1, String vertex2) {
+			int from = idOf(ids, vertex1);
+			int to = idOf(ids, vertex2);
+			Draft fromDraft = draft(from);
+			if (fromDraft == null || !fromDraft.hasNeighbor(to)) {
+				return;
+			}
+
+			fromDraft.removeNeighbor(to);
+			draft(to).removeDependent(from); // the same draft as fromDraft if the edge is to itself
+			size--;
+		}
+
+		/**
+		 * Makes one change of a batch
+		 *
+		 * @param mutation - the change
+		 */
+		private void apply(Mutation mutation) {
+			switch (mutation.getKind()) {
+			case ADD_VERTEX:
+				addVertex(mutation.getVertex1());
+				break;
+			case REMOVE_VERTEX:
+				removeVertex(mutation.getVertex1());
+				break;
+			case ADD_EDGE:
+				addEdge(mutation.getVertex1(), mutation.getVertex2());
+				break;
+			default:
+				removeEdge(mutation.getVertex1(), mutation.getVertex2());
+				break;
+			}
+		}
+
+		/**
+		 * Turns the changed drafts into nodes and makes this write the current
+		 * State of the graph, if it changed anything
+		 */
+		private void publish() {
+			for (Map.Entry<Integer, Draft> entry : drafts.entrySet()) {
+				if (entry.getValue().changed) {
+					set(entry.getKey(), entry.getValue().toNode());
+				}
+			}
+			if (changed) {
+				state = new State(pages, nextId, size, order, version + 1, ids);
+			}
+		}
+	}
+
+	private final ReentrantLock writeLock; // held by the thread that is changing the graph
+	private volatile State state; // the current version of the graph
+	private int nextId; // the id the next new vertex gets, only used while holding writeLock
+
+	/**
+	 * Constructs an empty ConcurrentGraph
+	 */
+	public ConcurrentGraph() {
+		writeLock = new ReentrantLock();
+		state = new State(new Node[0][], 0, 0, 0, 0, new ConcurrentHashMap<String, Integer>());
+		nextId = 0;
+	}
+
+	/**
+	 * Add new vertex to the graph.
+	 *
+	 * If vertex is null or already exists, method ends without adding a vertex or
+	 * throwing an exception.
+	 */
+	@Override
+	public void addVertex(String vertex) {
+		write(edit -> edit.addVertex(vertex));
+	}
+
+	/**
+	 * Remove a vertex and all associated edges from the graph.
+	 *
+	 * If vertex is null or does not exist, method ends without removing a vertex,
+	 * edges, or throwing an exception.
+	 */
+	@Override
+	public void removeVertex(String vertex) {
+		write(edit -> edit.removeVertex(vertex));
+	}
+
+	/**
+	 * Add the edge from vertex1 to vertex2 to this graph. If either vertex does
+	 * not exist, it is added. If the edge exists in the graph, no edge is added
+	 * and no exception is thrown.
+	 */
+	@Override
+	public void addEdge(String vertex1, String vertex2) {
+		write(edit -> edit.addEdge(vertex1, vertex2));
+	}
+
+	/**
+	 * Remove the edge from vertex1 to vertex2 from this graph. If either vertex
+	 * does not exist, or if an edge from vertex1 to vertex2 does not exist, no
+	 * edge is removed and no exception is thrown.
+	 */
+	@Override
+	public void removeEdge(String vertex1, String vertex2) {
+		write(edit -> edit.removeEdge(vertex1, vertex2));
+	}
+
+	/**
+	 * Adds an edge from vertex1 to each vertex in the collection as one write, so
+	 * readers see either none or all of the new edges.
+	 */
+	@Override
+	public void addEdges(String vertex1, Collection<String> vertices) {
+		write(edit -> {
+			for (String vertex2 : vertices) {
+				edit.addEdge(vertex1, vertex2);
+			}
+		});
+	}
+
+	/**
+	 * Applies the whole batch as one write, so readers and snapshots see either
+	 * none or all of it, and the batch publishes a single version.
+	 */
+	@Override
+	public void applyBatch(List<Mutation> batch) {
+		if (batch.contains(null)) {
+			throw new IllegalArgumentException("a batch cannot contain null");
+		}
+		write(edit -> {
+			for (Mutation mutation : batch) {
+				edit.apply(mutation);
+			}
+		});
+	}
+
+	/**
+	 * Returns a Set that contains all the vertices
+	 */
+	@Override
+	public Set<String> getAllVertices() {
+		return snapshot().getAllVertices();
+	}
+
+	/**
+	 * Returns an unmodifiable view of the vertices of the current version. The view
+	 * is pinned to that version, so it does not follow later writes and can be
+	 * iterated while they go on.
+	 */
+	@Override
+	public Set<String> vertices() {
+		return snapshot().vertices();
+	}
+
+	/**
+	 * Get all the neighbor (adjacent) vertices of a vertex
+	 */
+	@Override
+	public List<String> getAdjacentVerticesOf(String vertex) {
+		return snapshot().getAdjacentVerticesOf(vertex);
+	}
+
+	/**
+	 * Passes every neighbor of a vertex in the current version to the action
+	 * without building a list
+	 */
+	@Override
+	public void forEachNeighbor(String vertex, Consumer<String> action) {
+		snapshot().forEachNeighbor(vertex, action);
+	}
+
+	/**
+	 * Get all the vertices that have an edge to a vertex
+	 */
+	@Override
+	public List<String> getDependentsOf(String vertex) {
+		return snapshot().getDependentsOf(vertex);
+	}
+
+	/**
+	 * Passes every vertex that has an edge to a vertex in the current version to
+	 * the action without building a list
+	 */
+	@Override
+	public void forEachDependent(String vertex, Consumer<String> action) {
+		snapshot().forEachDependent(vertex, action);
+	}
+
+	/**
+	 * Returns the number of edges that go to a vertex
+	 */
+	@Override
+	public int inDegree(String vertex) {
+		return snapshot().inDegree(vertex);
+	}
+
+	/**
+	 * Returns the number of edges in this graph.
+	 */
+	@Override
+	public int size() {
+		return state.size;
+	}
+
+	/**
+	 * Returns the number of vertices in this graph.
+	 */
+	@Override
+	public int order() {
+		return state.order;
+	}
+
+	/**
+	 * Returns a read-only view of the current version of the graph. The view never
+	 * changes, however the graph is changed after it is taken, so a long query
+	 * can run on it without any locks while writes go on. Unchanged pages and
+	 * adjacency arrays are shared between versions, so taking a snapshot copies
+	 * nothing, and a version is garbage collected once no snapshot of it is left.
+	 *
+	 * @return the current version of the graph
+	 */
+	public Version snapshot() {
+		return new Version(state);
+	}
+
+	/**
+	 * Makes an immutable Compressed Sparse Row snapshot of the current version of
+	 * the graph, for DependencyTraversal. Same as snapshot().freeze().
+	 *
+	 * @return the FrozenGraph of the current vertices and edges
+	 */
+	public FrozenGraph freeze() {
+		return snapshot().freeze();
+	}
+
+	/**
+	 * Gives the vertices of the graph the ids 0 to order() - 1, keeping their
+	 * order, and drops the ids of every removed vertex. The renumbered graph is
+	 * published as the next version with a new map of ids, so snapshots taken
+	 * before it keep the old ids and stay correct. Costs O(V + E) of the ids
+	 * given out since the last compact, and does nothing if no id is free.
+	 */
+	public void compact() {
+		writeLock.lock();
+		try {
+			State current = state;
+			if (current.ids.size() == current.order) {
+				return;
+			}
+
+			// gives every vertex its new id in the order of the old ones
+			int[] renumbered = new int[current.capacity];
+			int next = 0;
+			for (int id = 0; id < current.capacity; id++) {
+				renumbered[id] = current.node(id) == null ? -1 : next++;
+			}
+
+			ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>(next * 2);
+			Node[][] pages = new Node[(next + PAGE_MASK) >>> PAGE_BITS][];
+			for (int id = 0; id < current.capacity; id++) {
+				Node node = current.node(id);
+				if (node != null) {
+					int to = renumbered[id];
+					if (pages[to >>> PAGE_BITS] == null) {
+						pages[to >>> PAGE_BITS] = new Node[PAGE_SIZE];
+					}
+					pages[to >>> PAGE_BITS][to & PAGE_MASK] = new Node(node.vertex, renumber(node.neighbors, renumbered),
+							renumber(node.dependents, renumbered));
+					ids.put(node.vertex, to);
+				}
+			}
+			nextId = next;
+			state = new State(pages, next, current.size, current.order, current.version + 1, ids);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * A read-only GraphADT pinned to one version of a ConcurrentGraph. Its methods
+	 * can be called from any thread, and the mutators throw an
+	 * UnsupportedOperationException.
+	 */
+	public static final class Version implements GraphADT {
+
+		private final State state; // the version of the graph the view is pinned to
+		private final Map<String, Integer> ids; // the ids of the vertices of the version, and of later ones
+
+		/**
+		 * Constructs a view of one version
+		 *
+		 * @param state - the version
+		 */
+		private Version(State state) {
+			this.state = state;
+			this.ids = state.ids;
+		}
+
+		/**
+		 * Returns the number of the version. Every write that changes the graph
+		 * publishes the next number, so a later version has a larger number.
+		 *
+		 * @return the number of the version, 0 for the empty graph
+		 */
+		public long getVersion() {
+			return state.version;
+		}
+
+		/**
+		 * A Version cannot be changed
+		 *
+		 * @throws UnsupportedOperationException always
+		 */
+		@Override
+		public void addVertex(String vertex) {
+			throw new UnsupportedOperationException("a graph version cannot be changed");
+		}
+
+		/**
+		 * A Version cannot be changed
+		 *
+		 * @throws UnsupportedOperationException always
+		 */
+		@Override
+		public void removeVertex(String vertex) {
+			throw new UnsupportedOperationException("a graph version cannot be changed");
+		}
+
+		/**
+		 * A Version cannot be changed
+		 *
+		 * @throws UnsupportedOperationException always
+		 */
+		@Override
+		public void addEdge(String vertex1, String vertex2) {
+			throw new UnsupportedOperationException("a graph version cannot be changed");
+		}
+
+		/**
+		 * A Version cannot be changed
+		 *
+		 * @throws UnsupportedOperationException always
+		 */
+		@Override
+		public void removeEdge(String vertex1, String vertex2) {
+			throw new UnsupportedOperationException("a graph version cannot be changed");
+		}
+
+		/**
+		 * Returns a Set that contains all the vertices
+		 */
+		@Override
+		public Set<String> getAllVertices() {
+			Set<String> vertices = new HashSet<String>(state.order * 2);
+			for (Node[] page : state.pages) {
+				if (page != null) {
+					for (Node node : page) {
+						if (node != null) {
+							vertices.add(node.vertex);
+						}
+					}
+				}
+			}
+			return vertices;
+		}
+
+		/**
+		 * Returns an unmodifiable view of the vertices of this version, which reads
+		 * the pages of the version instead of copying them
+		 */
+		@Override
+		public Set<String> vertices() {
+			return new VertexSet(state);
+		}
+
+		/**
+		 * Get all the neighbor (adjacent) vertices of a vertex
+		 */
+		@Override
+		public List<String> getAdjacentVerticesOf(String vertex) {
+			// returns null if the vertex isn't in the version, like Graph does
+			Node node = state.node(idOf(ids, vertex));
+			if (node == null) {
+				return null;
+			}
+			return names(state, node.neighbors);
+		}
+
+		/**
+		 * Passes every neighbor of a vertex to the action without building a list
+		 */
+		@Override
+		public void forEachNeighbor(String vertex, Consumer<String> action) {
+			// does nothing if the vertex isn't in the version
+			Node node = state.node(idOf(ids, vertex));
+			if (node != null) {
+				forEachName(state, node.neighbors, action);
+			}
+		}
+
+		/**
+		 * Get all the vertices that have an edge to a vertex
+		 */
+		@Override
+		public List<String> getDependentsOf(String vertex) {
+			// returns null if the vertex isn't in the version, like Graph does
+			Node node = state.node(idOf(ids, vertex));
+			if (node == null) {
+				return null;
+			}
+			return names(state, node.dependents);
+		}
+
+		/**
+		 * Passes every vertex that has an edge to a vertex to the action without
+		 * building a list
+		 */
+		@Override
+		public void forEachDependent(String vertex, Consumer<String> action) {
+			// does nothing if the vertex isn't in the version
+			Node node = state.node(idOf(ids, vertex));
+			if (node != null) {
+				forEachName(state, node.dependents, action);
+			}
+		}
+
+		/**
+		 * Returns the number of edges that go to a vertex
+		 */
+		@Override
+		public int inDegree(String vertex) {
+			Node node = state.node(idOf(ids, vertex));
+			return node == null ? -1 : node.dependents.length;
+		}
+
+		/**
+		 * Returns the number of edges in this version.
+		 */
+		@Override
+		public int size() {
+			return state.size;
+		}
+
+		/**
+		 * Returns the number of vertices in this version.
+		 */
+		@Override
+		public int order() {
+			return state.order;
+		}
+
+		/**
+		 * Makes an immutable Compressed Sparse Row snapshot of this version, for
+		 * DependencyTraversal. The snapshot keeps the ids of the vertices, so ids of
+		 * removed vertices are empty in it.
+		 *
+		 * @return the FrozenGraph of the vertices and edges of this version
+		 */
+		public FrozenGraph freeze() {
+			int capacity = state.capacity;
+			String[] names = new String[capacity];
+			int[] offsets = new int[capacity + 1];
+			int[] targets = new int[state.size];
+
+			// copies the dependencies of every id in order
+			int next = 0;
+			for (int id = 0; id < capacity; id++) {
+				offsets[id] = next;
+				Node node = state.node(id);
+				if (node != null) {
+					names[id] = node.vertex;
+					System.arraycopy(node.neighbors, 0, targets, next, node.neighbors.length);
+					next += node.neighbors.length;
+				}
+			}
+			offsets[capacity] = next;
+			return new FrozenGraph(names, offsets, targets);
+		}
+	}
+
+	/**
+	 * Unmodifiable Set view of the vertices of one State, returned by
+	 * Version.vertices(). It is as immutable as the State, so it can be read from
+	 * any thread.
+	 */
+	private static final class VertexSet extends AbstractSet<String> {
+
+		private final State state; // the version of the graph the view is of
+		private final Map<String, Integer> ids; // the ids of the vertices of the version, and of later ones
+
+		/**
+		 * Constructs a view of the vertices of one version
+		 *
+		 * @param state - the version
+		 */
+		private VertexSet(State state) {
+			this.state = state;
+			this.ids = state.ids;
+		}
+
+		@Override
+		public int size() {
+			return state.order;
+		}
+
+		@Override
+		public boolean contains(Object vertex) {
+			// an id made after this version is past its capacity, so it has no node
+			return vertex instanceof String && state.node(idOf(ids, (String) vertex)) != null;
+		}
+
+		@Override
+		public Iterator<String> iterator() {
+			return new Iterator<String>() {
+				private int next = advance(0); // the next id with a vertex, capacity if none is left
+
+				/**
+				 * Returns the first id from the given one that has a vertex
+				 */
+				private int advance(int id) {
+					while (id < state.capacity && state.node(id) == null) {
+						id++;
+					}
+					return id;
+				}
+
+				@Override
+				public boolean hasNext() {
+					return next < state.capacity;
+				}
+
+				@Override
+				public String next() {
+					if (next >= state.capacity) {
+						throw new NoSuchElementException();
+					}
+					String vertex = state.node(next).vertex;
+					next = advance(next + 1);
+					return vertex;
+				}
+			};
+		}
+	}
+
+	// private helper methods
+	/**
+	 * Maps a list of ids to their new ids
+	 *
+	 * @param list       - the old ids
+	 * @param renumbered - the new id of every old id
+	 * @return the new ids in the same order
+	 */
+	private static int[] renumber(int[] list, int[] renumbered) {
+		if (list.length == 0) {
+			return NO_EDGES;
+		}
+		int[] result = new int[list.length];
+		for (int i = 0; i < list.length; i++) {
+			result[i] = renumbered[list[i]];
+		}
+		return result;
+	}
+
+	/**
+	 * Runs one write while holding the write lock, and publishes what it changed
+	 * as the next version
+	 *
+	 * @param changes - makes the changes of the write
+	 */
+	private void write(Consumer<Edit> changes) {
+		writeLock.lock();
+		try {
+			Edit edit = new Edit();
+			changes.accept(edit);
+			edit.publish();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the id a vertex has, or had before it was removed
+	 *
+	 * @param ids    - the ids of the graph
+	 * @param vertex - the vertex
+	 * @return its id, -1 if it is null or was never added
+	 */
+	private static int idOf(Map<String, Integer> ids, String vertex) {
+		if (vertex == null) {
+			return -1;
+		}
+		Integer id = ids.get(vertex);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Returns the names of the vertices with the given ids in a State
+	 *
+	 * @param current - the State the ids are from
+	 * @param edges   - the ids
+	 * @return a new list of the names
+	 */
+	private static List<String> names(State current, int[] edges) {
+		List<String> names = new ArrayList<String>(edges.length);
+		for (int id : edges) {
+			names.add(current.node(id).vertex);
+		}
+		return names;
+	}
+
+	/**
+	 * Passes the names of the vertices with the given ids in a State to an action
+	 *
+	 * @param current - the State the ids are from
+	 * @param edges   - the ids
+	 * @param action  - called with each name, in the order of the ids
+	 */
+	private static void forEachName(State current, int[] edges, Consumer<String> action) {
+		for (int id : edges) {
+			action.accept(current.node(id).vertex);
+		}
+	}
+
+}
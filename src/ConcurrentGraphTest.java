@@ -0,0 +1,236 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the thread-safe ConcurrentGraph.
+ * 
+ * Written By Max Johnson
+ */
+public class ConcurrentGraphTest {
+
+	// The graph being tested
+	private ConcurrentGraph graph;
+
+	/** Makes a new graph before each method */
+	@BeforeEach
+	public void setUp() throws Exception {
+		graph = new ConcurrentGraph();
+	}
+
+	/** Not much to do, just make sure that variables are reset */
+	@AfterEach
+	public void tearDown() throws Exception {
+		graph = null;
+	}
+
+	/** Tests that the graph behaves like a Graph on a single thread */
+	@Test
+	public void test00_testGraphOperations() {
+		// A->[B, C], B->[C], C->[C], with A->B added twice
+		graph.addEdge("A", "B");
+		graph.addEdge("A", "C");
+		graph.addEdge("A", "B");
+		graph.addEdge("B", "C");
+		graph.addEdge("C", "C");
+		if (graph.order() != 3 || graph.size() != 4 || !graph.getAdjacentVerticesOf("A").equals(Arrays.asList("B", "C"))
+				|| !graph.getDependentsOf("C").equals(Arrays.asList("A", "B", "C"))) {
+			fail("ERROR: The graph has the wrong vertices or edges");
+		}
+
+		// removing C should remove the three edges to it and the edge to itself
+		graph.removeVertex("C");
+		if (graph.order() != 2 || graph.size() != 1 || graph.inDegree("C") != -1
+				|| !graph.getAdjacentVerticesOf("A").equals(Arrays.asList("B"))) {
+			fail("ERROR: The edges of the removed vertex were not removed");
+		}
+
+		// C comes back with its old id and no edges
+		graph.addVertex("C");
+		FrozenGraph frozen = graph.freeze();
+		if (frozen.indexOf("C") != 2 || frozen.outDegree(2) != 0 || frozen.size() != 1) {
+			fail("ERROR: The re-added vertex is wrong");
+		}
+	}
+
+	/** Tests that readers always see a whole write while another thread writes */
+	@Test
+	public void test01_testConcurrentReaders() throws InterruptedException {
+		// the writer moves the single dependency of X from one vertex to the next
+		final int moves = 20000;
+		graph.addEdge("X", "Y0");
+		Thread writer = new Thread(() -> {
+			for (int i = 1; i <= moves; i++) {
+				graph.removeEdge("X", "Y" + (i - 1));
+				graph.addEdge("X", "Y" + i);
+			}
+		});
+
+		// the readers check that X never has more than one dependency, and that every
+		// snapshot has as many dependents as dependencies
+		AtomicReference<String> error = new AtomicReference<String>();
+		Thread[] readers = new Thread[3];
+		for (int r = 0; r < readers.length; r++) {
+			readers[r] = new Thread(() -> {
+				while (writer.isAlive() && error.get() == null) {
+					List<String> deps = graph.getAdjacentVerticesOf("X");
+					if (deps.size() > 1) {
+						error.set("X had the dependencies " + deps);
+					}
+					FrozenGraph frozen = graph.freeze();
+					int in = 0;
+					for (int id = 0; id < frozen.capacity(); id++) {
+						in += frozen.vertexAt(id) == null ? 0 : frozen.inDegree(id);
+					}
+					if (in != frozen.size() || frozen.size() > 1) {
+						error.set("a snapshot had " + frozen.size() + " edges");
+					}
+				}
+			});
+		}
+
+		writer.start();
+		for (Thread reader : readers) {
+			reader.start();
+		}
+		writer.join();
+		for (Thread reader : readers) {
+			reader.join();
+		}
+		if (error.get() != null) {
+			fail("ERROR: " + error.get());
+		}
+		if (!graph.getAdjacentVerticesOf("X").equals(Arrays.asList("Y" + moves)) || graph.size() != 1) {
+			fail("ERROR: The writes were not all applied");
+		}
+	}
+
+	/** Tests that a snapshot stays on its version while the graph changes */
+	@Test
+	public void test02_testSnapshotVersions() {
+		graph.addEdge("A", "B");
+		graph.addEdge("B", "C");
+		ConcurrentGraph.Version before = graph.snapshot();
+
+		// changes every part of the graph the snapshot can see
+		graph.removeVertex("B");
+		graph.addEdge("A", "D");
+		graph.addVertex("A"); // changes nothing, so publishes no version
+		ConcurrentGraph.Version after = graph.snapshot();
+
+		if (before.order() != 3 || before.size() != 2 || !before.getAdjacentVerticesOf("A").equals(Arrays.asList("B"))
+				|| !before.getDependentsOf("C").equals(Arrays.asList("B"))) {
+			fail("ERROR: The snapshot changed with the graph");
+		}
+		if (after.getAdjacentVerticesOf("B") != null || !after.getAdjacentVerticesOf("A").equals(Arrays.asList("D"))
+				|| after.getVersion() != before.getVersion() + 2) {
+			fail("ERROR: The new snapshot does not have the changes");
+		}
+
+		// the old version can still be ordered on its own
+		try {
+			if (!new DependencyTraversal(before.freeze()).installationOrder("A").equals(Arrays.asList("C", "B", "A"))) {
+				fail("ERROR: The old version has the wrong installation order");
+			}
+			before.addEdge("C", "A");
+			fail("ERROR: A snapshot was changed");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+	}
+
+	/** Tests that a batch is published as a single version */
+	@Test
+	public void test03_testBatchIsOneVersion() {
+		graph.addEdge("A", "B");
+		ConcurrentGraph.Version before = graph.snapshot();
+		graph.applyBatch(Arrays.asList(Mutation.removeEdge("A", "B"), Mutation.addEdge("A", "C"),
+				Mutation.addEdge("C", "B"), Mutation.removeVertex("D")));
+		ConcurrentGraph.Version after = graph.snapshot();
+		if (after.getVersion() != before.getVersion() + 1 || after.size() != 2
+				|| !after.getAdjacentVerticesOf("A").equals(Arrays.asList("C"))) {
+			fail("ERROR: The batch was not applied as one version");
+		}
+	}
+
+	/** Tests that large batches give the same graph as Graph does */
+	@Test
+	public void test04_testBatchMatchesGraph() {
+		Graph expected = new Graph();
+		Random random = new Random(42);
+
+		// fans many edges in and out of a few hubs, with repeated, removed and
+		// self edges, and vertices removed and added again, in a few big batches
+		for (int round = 0; round < 5; round++) {
+			List<Mutation> batch = new ArrayList<Mutation>();
+			for (int i = 0; i < 2000; i++) {
+				String from = random.nextInt(4) == 0 ? "hub" + random.nextInt(3) : "v" + random.nextInt(300);
+				String to = random.nextInt(4) == 0 ? "hub" + random.nextInt(3) : "v" + random.nextInt(300);
+				int kind = random.nextInt(10);
+				if (kind < 6) {
+					batch.add(Mutation.addEdge(from, to));
+				} else if (kind < 9) {
+					batch.add(Mutation.removeEdge(from, to));
+				} else {
+					batch.add(Mutation.removeVertex(from));
+				}
+			}
+			graph.applyBatch(batch);
+			expected.applyBatch(batch);
+		}
+
+		// every vertex has the same dependencies and dependents in the same order
+		if (graph.order() != expected.order() || graph.size() != expected.size()
+				|| !graph.getAllVertices().equals(expected.getAllVertices())) {
+			fail("ERROR: The batches gave " + graph.order() + " vertices and " + graph.size() + " edges instead of "
+					+ expected.order() + " and " + expected.size());
+		}
+		for (String vertex : expected.getAllVertices()) {
+			if (!graph.getAdjacentVerticesOf(vertex).equals(expected.getAdjacentVerticesOf(vertex))
+					|| !graph.getDependentsOf(vertex).equals(expected.getDependentsOf(vertex))) {
+				fail("ERROR: The edges of " + vertex + " are different");
+			}
+		}
+	}
+
+	/** Tests that compact frees the ids of removed vertices and keeps the rest */
+	@Test
+	public void test05_testCompact() {
+		// churns through many names, keeping only the last two
+		for (int i = 0; i < 3000; i++) {
+			graph.addEdge("old" + i, "A");
+			graph.removeVertex("old" + i);
+		}
+		graph.addEdge("A", "B");
+		graph.addEdge("B", "A");
+		graph.removeEdge("B", "A");
+		ConcurrentGraph.Version before = graph.snapshot();
+		graph.compact();
+		ConcurrentGraph.Version after = graph.snapshot();
+
+		FrozenGraph frozen = graph.freeze();
+		if (frozen.capacity() != 2 || after.order() != 2 || after.size() != 1
+				|| !after.getAdjacentVerticesOf("A").equals(Arrays.asList("B"))
+				|| !after.getDependentsOf("B").equals(Arrays.asList("A")) || after.getVersion() != before.getVersion() + 1) {
+			fail("ERROR: Compacting changed the graph or kept the old ids");
+		}
+
+		// the older snapshot keeps its own ids, and new vertices get the next free id
+		graph.addEdge("C", "A");
+		if (!before.getAdjacentVerticesOf("A").equals(Arrays.asList("B")) || before.getAdjacentVerticesOf("C") != null
+				|| graph.freeze().indexOf("C") != 2 || !graph.getDependentsOf("A").equals(Arrays.asList("C"))) {
+			fail("ERROR: The ids were wrong after compacting");
+		}
+	}
+
+}
@@ -1,5 +1,32 @@
+import java.util.Collections;
+import java.util.List;
 
 @SuppressWarnings("serial")
 public class CycleException extends Exception {
-	
+
+	private final List<String> cycle; // the packages on the cycle, starting and ending with the same one
+
+	public CycleException() {
+		this(Collections.<String>emptyList());
+	}
+
+	/**
+	 * Constructs a CycleException for the given cycle
+	 * 
+	 * @param cycle - the packages on the cycle in dependency order, starting and
+	 *              ending with the same package
+	 */
+	public CycleException(List<String> cycle) {
+		super(cycle.isEmpty() ? null : "cycle: " + String.join(" -> ", cycle));
+		this.cycle = Collections.unmodifiableList(cycle);
+	}
+
+	/**
+	 * Returns the cycle that was found, or an empty list if it is unknown
+	 * 
+	 * @return List<String> of the packages on the cycle
+	 */
+	public List<String> getCycle() {
+		return cycle;
+	}
 }
@@ -0,0 +1,73 @@
+/**
+ * Filename: DenseAdjacency.java Project: p4 Authors: Max Johnson
+ * 
+ * Dense AdjacencyStorage backed by a boolean adjacency matrix. The row index of
+ * the matrix is the id an edge comes from and the column index is the id it
+ * goes to. The matrix starts at 100 by 100 and doubles whenever a vertex id
+ * doesn't fit, so it should only be used for small, dense graphs.
+ */
+public class DenseAdjacency implements AdjacencyStorage {
+
+	boolean[][] adjMatrix; // 2D list of each vertex represented by an index on each axis. the row index
+							// will tell where each edge comes from and the columns will tell where the edge
+							// goes to
+
+	/**
+	 * Constructs a DenseAdjacency. The adjacency matrix is initialized to 100
+	 * indices in both rows and columns
+	 */
+	public DenseAdjacency() {
+		adjMatrix = new boolean[100][100];// initialized to 100 indices in both directions
+	}
+
+	@Override
+	public void ensureCapacity(int vertices) {
+		// this section of the code checks if the number of vertex ids is larger than
+		// the length of the adjMatrix, and if it is, it creates a new list to be made
+		// for the adjMatrix with a larger length
+		if (vertices > adjMatrix.length) {
+			int length = Math.max(vertices, adjMatrix.length * 2);// doubles the length of the current matrix
+			boolean[][] matrix = new boolean[length][length];
+
+			// loop to add all previous values from the matrix into the new one
+			for (int i = 0; i < adjMatrix.length; i++) {
+				System.arraycopy(adjMatrix[i], 0, matrix[i], 0, adjMatrix[i].length);
+			}
+			// sets the adjMatrix array equal to the new matrix
+			adjMatrix = matrix;
+		}
+	}
+
+	@Override
+	public boolean addEdge(int from, int to) {
+		ensureCapacity(Math.max(from, to) + 1);
+		// uses from as the row of the matrix and to as the column of the matrix
+		if (adjMatrix[from][to]) {
+			return false;
+		}
+		adjMatrix[from][to] = true;
+		return true;
+	}
+
+	@Override
+	public boolean removeEdge(int from, int to) {
+		if (!hasEdge(from, to)) {
+			return false;
+		}
+		adjMatrix[from][to] = false;// removes the edge between the two vertices if it exists
+		return true;
+	}
+
+	@Override
+	public boolean hasEdge(int from, int to) {
+		return from < adjMatrix.length && to < adjMatrix.length && adjMatrix[from][to];
+	}
+
+	@Override
+	public void clear(int vertices) {
+		// replaces the matrix with an empty one that is never smaller than the initial 100
+		int length = Math.max(100, vertices);
+		adjMatrix = new boolean[length][length];
+	}
+
+}
@@ -0,0 +1,210 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Filename: DependencyClosure.java Project: p4 Authors: Max Johnson
+ * 
+ * Memoized cache of the transitive dependencies of every package in a Graph.
+ * The closure of a package is kept as a BitSet over the vertex ids of the
+ * graph, holding every package it depends on directly or through its
+ * dependencies. Closures are built in reverse topological order, so the
+ * closure of a package is the union of the closures of its dependencies plus
+ * the dependencies themselves, and each shared sub-closure is only computed
+ * once. After that the closure size, membership and the package with the most
+ * dependencies are answered without another traversal.
+ * 
+ * The cache listens to its Graph. When the dependencies of a package change,
+ * only the closures of that package and of every package that depends on it
+ * are thrown away. A package's closure is only cached while the closures of
+ * all its dependencies are too, so the invalidation stops at packages that
+ * have nothing cached. Each BitSet takes up to one bit per vertex id. When
+ * the engine walks the Graph itself, the next query after a change rebuilds
+ * only the closures that were thrown away, so its cost follows the size of the
+ * change instead of the size of the graph.
+ */
+public class DependencyClosure implements GraphListener {
+
+	private final Graph graph; // the graph the closures are of
+	private final Supplier<DependencyTraversal> traversal; // engine over the graph, or a snapshot with its ids
+	private final List<BitSet> closures; // the closure of every id, null if it isn't cached
+	private int[] sizes; // the number of bits in every cached closure, grown with closures
+	private String maxPackage; // the package with the most dependencies, null if not known
+	private long maxModCount; // the modification count of the graph maxPackage was found at
+
+	/**
+	 * Constructs an empty DependencyClosure and registers it with the graph
+	 * 
+	 * @param graph     - the graph the closures are of
+	 * @param traversal - supplies the traversal engine over the graph itself, or
+	 *                  over a current snapshot that shares its vertex ids
+	 */
+	public DependencyClosure(Graph graph, Supplier<DependencyTraversal> traversal) {
+		this.graph = graph;
+		this.traversal = traversal;
+		closures = new ArrayList<BitSet>();
+		sizes = new int[0];
+		graph.addListener(this);
+	}
+
+	/**
+	 * Returns the closure of the given package, computing it and every closure it
+	 * needs that isn't cached yet. The returned BitSet must not be changed.
+	 * 
+	 * @param pkg - the package
+	 * @return BitSet of the ids of every package it depends on
+	 * @throws CycleException           if the package depends on a cycle
+	 * @throws PackageNotFoundException if the package isn't in the graph
+	 */
+	public BitSet closureOf(String pkg) throws CycleException, PackageNotFoundException {
+		DependencyTraversal engine = traversal.get();
+		int id = engine.getGraph().indexOf(pkg);
+		if (id == -1) {
+			throw new PackageNotFoundException();
+		}
+		return closureOf(engine, id);
+	}
+
+	/**
+	 * Returns the number of packages the given package depends on, directly or
+	 * through its dependencies.
+	 * 
+	 * @param pkg - the package
+	 * @return the size of its closure
+	 * @throws CycleException           if the package depends on a cycle
+	 * @throws PackageNotFoundException if the package isn't in the graph
+	 */
+	public int dependencyCount(String pkg) throws CycleException, PackageNotFoundException {
+		closureOf(pkg);
+		return sizes[graph.indexOf(pkg)];
+	}
+
+	/**
+	 * Determines whether a package depends on another one, directly or through
+	 * its dependencies.
+	 * 
+	 * @param pkg        - the package
+	 * @param dependency - the package that might be depended on
+	 * @return true if dependency is in the closure of pkg
+	 * @throws CycleException           if the package depends on a cycle
+	 * @throws PackageNotFoundException if either package isn't in the graph
+	 */
+	public boolean dependsOn(String pkg, String dependency) throws CycleException, PackageNotFoundException {
+		int id = graph.indexOf(dependency);
+		if (id == -1) {
+			throw new PackageNotFoundException();
+		}
+		return closureOf(pkg).get(id);
+	}
+
+	/**
+	 * Returns the package with the most dependencies. The closures of every
+	 * package are built the first time, and the answer is kept until the graph
+	 * changes. Adding a vertex fires no listener, so the answer is checked
+	 * against the modification count of the graph as well.
+	 * 
+	 * Every closure stays cached, so this holds a BitSet for every package. A
+	 * BitSet takes a bit for every id up to the largest one in it, so on a long
+	 * chain of packages that each depend on the next one the closures take up to
+	 * V * V / 8 bytes, over 1 GB for 100,000 packages. Use dependencyCount on
+	 * the packages of interest instead of this for graphs that deep.
+	 * 
+	 * @return the package with the largest closure, "" if the graph is empty
+	 * @throws CycleException if any package in the graph depends on a cycle
+	 */
+	public String maxDependencies() throws CycleException {
+		if (maxPackage != null && maxModCount == graph.getModificationCount()) {
+			return maxPackage;
+		}
+		DependencyTraversal engine = traversal.get();
+		IndexedGraph g = engine.getGraph();
+
+		// compares the closure size of every id, keeping the first largest one
+		String max = "";
+		int maxSize = -1;
+		for (int id = 0; id < g.capacity(); id++) {
+			if (g.vertexAt(id) != null) {
+				closureOf(engine, id);
+				int size = sizes[id];
+				if (size > maxSize) {
+					maxSize = size;
+					max = g.vertexAt(id);
+				}
+			}
+		}
+		maxPackage = max;
+		maxModCount = graph.getModificationCount();
+		return max;
+	}
+
+	/**
+	 * Throws away the closures of the vertex and of every vertex that depends on
+	 * it
+	 */
+	@Override
+	public void dependenciesChanged(int id) {
+		maxPackage = null;
+
+		// walks up the dependents, stopping at vertices with nothing cached since
+		// nothing that depends on them can be cached either
+		List<Integer> stack = new ArrayList<Integer>();
+		stack.add(id);
+		while (!stack.isEmpty()) {
+			int current = stack.remove(stack.size() - 1);
+			if (current >= closures.size() || closures.get(current) == null) {
+				continue;
+			}
+			closures.set(current, null);
+			// walks the ids of the dependents directly, without looking up their names
+			IntView dependents = graph.dependents(current);
+			for (int i = 0; i < dependents.size(); i++) {
+				stack.add(dependents.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Throws away every closure since the ids they use have changed
+	 */
+	@Override
+	public void verticesRenumbered() {
+		maxPackage = null;
+		closures.clear();
+		sizes = new int[0];
+	}
+
+	/**
+	 * Returns the closure of the id, building the closures of every id it reaches
+	 * that aren't cached yet, each after the closures of its dependencies
+	 * 
+	 * @param engine - the traversal engine over the graph
+	 * @param id     - the id of the package
+	 * @return BitSet of its closure
+	 * @throws CycleException if the package depends on a cycle
+	 */
+	private BitSet closureOf(DependencyTraversal engine, int id) throws CycleException {
+		IndexedGraph g = engine.getGraph();
+		while (closures.size() < g.capacity()) {
+			closures.add(null);
+		}
+		if (sizes.length < g.capacity()) {
+			sizes = Arrays.copyOf(sizes, g.capacity());
+		}
+
+		engine.postOrder(id, cached -> closures.get(cached) != null, finished -> {
+			// unions the closures of the dependencies, which are all finished already
+			BitSet bits = new BitSet();
+			for (int e = 0; e < g.outDegree(finished); e++) {
+				int dependency = g.neighborAt(finished, e);
+				bits.set(dependency);
+				bits.or(closures.get(dependency));
+			}
+			closures.set(finished, bits);
+			sizes[finished] = bits.cardinality();
+		});
+		return closures.get(id);
+	}
+
+}
@@ -0,0 +1,144 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the cached closures of DependencyClosure and their invalidation.
+ * 
+ * Written By Max Johnson
+ */
+public class DependencyClosureTest {
+
+	// The graph the closures are of
+	private Graph graph;
+	// The snapshot engine the closures are built with, remade after every change
+	private DependencyTraversal traversal;
+	// The cache being tested
+	private DependencyClosure closure;
+
+	/** Builds the example graph A->[B, C], B->[C], C->[D] before each method */
+	@BeforeEach
+	public void setUp() throws Exception {
+		graph = new Graph();
+		graph.addEdge("A", "B");
+		graph.addEdge("A", "C");
+		graph.addEdge("B", "C");
+		graph.addEdge("C", "D");
+		closure = new DependencyClosure(graph, () -> {
+			if (traversal == null) {
+				traversal = new DependencyTraversal(graph.freeze());
+			}
+			return traversal;
+		});
+	}
+
+	/** Not much to do, just make sure that variables are reset */
+	@AfterEach
+	public void tearDown() throws Exception {
+		graph = null;
+		closure = null;
+	}
+
+	/** Tests the closure sizes, membership and max of the example graph */
+	@Test
+	public void test00_testClosures() throws Exception {
+		if (closure.dependencyCount("A") != 3 || closure.dependencyCount("C") != 1
+				|| closure.dependencyCount("D") != 0) {
+			fail("ERROR: The closure sizes were wrong");
+		}
+		if (!closure.dependsOn("A", "D") || closure.dependsOn("D", "A")) {
+			fail("ERROR: The closure membership was wrong");
+		}
+		if (!closure.maxDependencies().equals("A")) {
+			fail("ERROR: A should have the most dependencies");
+		}
+	}
+
+	/** Tests that changing an edge only invalidates what depends on it */
+	@Test
+	public void test01_testInvalidation() throws Exception {
+		closure.maxDependencies();
+
+		// E depends on nothing else, so only C, B and A change
+		graph.addEdge("D", "E");
+		traversal = null;
+		if (closure.dependencyCount("A") != 4 || closure.dependencyCount("D") != 1) {
+			fail("ERROR: The closures were not updated after adding an edge");
+		}
+
+		graph.removeEdge("C", "D");
+		traversal = null;
+		if (closure.dependencyCount("A") != 2 || closure.dependsOn("B", "E")) {
+			fail("ERROR: The closures were not updated after removing an edge");
+		}
+
+		graph.removeVertex("C");
+		traversal = null;
+		if (closure.dependencyCount("A") != 1 || !closure.maxDependencies().equals("A")) {
+			fail("ERROR: The closures were not updated after removing a vertex");
+		}
+	}
+
+	/** Tests that a cycle is reported only for the packages that depend on it */
+	@Test
+	public void test02_testCycle() throws Exception {
+		graph.addEdge("D", "C");
+		traversal = null;
+		try {
+			closure.dependencyCount("A");
+			fail("ERROR: The cycle C -> D -> C was not found");
+		} catch (CycleException e) {
+			// expected
+		}
+		graph.addVertex("F");
+		traversal = null;
+		if (closure.dependencyCount("F") != 0) {
+			fail("ERROR: The cycle affected F");
+		}
+	}
+
+	/** Tests that the max is found again after vertices with no edges are added */
+	@Test
+	public void test03_testMaxAfterAddingVertices() throws Exception {
+		graph = new Graph();
+		traversal = null;
+		closure = new DependencyClosure(graph, () -> {
+			if (traversal == null) {
+				traversal = new DependencyTraversal(graph.freeze());
+			}
+			return traversal;
+		});
+		if (!closure.maxDependencies().equals("")) {
+			fail("ERROR: An empty graph should have no max");
+		}
+
+		// adding vertices changes no dependencies, so no listener is told
+		graph.addVertex("X");
+		graph.addVertex("Y");
+		traversal = null;
+		if (!closure.maxDependencies().equals("X")) {
+			fail("ERROR: The max of the empty graph was kept: " + closure.maxDependencies());
+		}
+	}
+
+	/** Tests that a batch invalidates every closure it changes, even with reused ids */
+	@Test
+	public void test04_testBatchInvalidation() throws Exception {
+		closure.maxDependencies();
+
+		// C is removed and added again, likely with its old id, at the end of a new
+		// chain A->[B], B->[X], X->[D], D->[C]
+		graph.applyBatch(Arrays.asList(Mutation.removeVertex("C"), Mutation.addEdge("B", "X"),
+				Mutation.addEdge("X", "D"), Mutation.addEdge("D", "C")));
+		traversal = null;
+		if (closure.dependencyCount("A") != 4 || closure.dependencyCount("B") != 3
+				|| closure.dependencyCount("D") != 1 || closure.dependencyCount("C") != 0
+				|| !closure.dependsOn("X", "C")) {
+			fail("ERROR: The closures were not updated after the batch");
+		}
+	}
+}
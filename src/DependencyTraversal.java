@@ -0,0 +1,343 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Filename: DependencyTraversal.java Project: p4 Authors: Max Johnson
+ * 
+ * Traversal engine that finds installation orders in an IndexedGraph, either a
+ * FrozenGraph or a live Graph. It runs an iterative depth first search with
+ * three colours over the int ids of the graph: white ids haven't been reached,
+ * grey ids are on the current path
+ * and black ids are finished. A package is added to the order when it turns
+ * black, which is after all of its dependencies, so the order is a true
+ * topological order. Reaching a grey id means the path loops back on itself,
+ * and the packages on that loop are reported in the CycleException.
+ * 
+ * The order for the whole graph is found with Kahn's algorithm instead: every
+ * package starts with a count of its unfinished dependencies, packages whose
+ * count is 0 are installed, and installing a package lowers the count of each
+ * of its dependents. Packages that become ready at the same time form a level,
+ * and every package in a level can be installed in parallel once the levels
+ * before it are done. That costs O(V + E) for the whole graph.
+ * 
+ * Each search costs O(V + E) of the part of the graph it reaches. The colour,
+ * stack and cursor arrays are allocated once per engine and reused, and grow
+ * when a live Graph gets more ids, so one engine can follow a Graph through
+ * all of its changes as long as the graph isn't changed during a search. A
+ * DependencyTraversal must not be shared between threads.
+ */
+public class DependencyTraversal {
+
+	private final IndexedGraph graph; // the graph being traversed
+	private int[] colour; // the colour of every id, relative to stamp
+	private int[] stack; // the ids on the current path of the search
+	private int[] cursor; // the position of the next edge to follow for every id on the stack
+	private int stamp; // colour[id] == stamp is grey, stamp + 1 is black, anything lower is white
+	private Metrics metrics; // where the edges followed are counted, null while metrics are off
+	private long visited; // the number of vertices finished by every search so far
+
+	/**
+	 * Constructs a DependencyTraversal over the given graph
+	 * 
+	 * @param graph - the graph to find installation orders in
+	 */
+	public DependencyTraversal(IndexedGraph graph) {
+		this.graph = graph;
+		colour = new int[graph.capacity()];
+		stack = new int[graph.capacity()];
+		cursor = new int[graph.capacity()];
+		stamp = 1;
+	}
+
+	/**
+	 * Returns the packages that have to be installed for the given package, in a
+	 * valid installation order that ends with the package itself.
+	 * 
+	 * @param pkg - the package to install
+	 * @return List<String> of the package and all of its dependencies, each listed
+	 *         after all of its own dependencies
+	 * @throws CycleException           if the package depends on a cycle
+	 * @throws PackageNotFoundException if the package isn't in the graph
+	 */
+	public List<String> installationOrder(String pkg) throws CycleException, PackageNotFoundException {
+		int id = graph.indexOf(pkg);
+		if (id == -1) {
+			throw new PackageNotFoundException();
+		}
+		List<String> order = new ArrayList<String>();
+		nextSearch();
+		visit(id, null, finished -> order.add(graph.vertexAt(finished)));
+		return order;
+	}
+
+	/**
+	 * Returns every package in the graph in a valid installation order, where
+	 * each package is listed after all of its dependencies.
+	 * 
+	 * @return List<String> of every package in the graph
+	 * @throws CycleException if any package in the graph is on a cycle
+	 */
+	public List<String> installationOrderForAll() throws CycleException {
+		return kahn(null);
+	}
+
+	/**
+	 * Returns every package in the graph grouped into installation levels. The
+	 * first level holds the packages with no dependencies, and every package is
+	 * in the level after the last level that holds one of its dependencies, so
+	 * the packages in a level can all be installed at the same time.
+	 * 
+	 * @return List<List<String>> of the levels in the order they are installed
+	 * @throws CycleException if any package in the graph is on a cycle
+	 */
+	public List<List<String>> installationLevels() throws CycleException {
+		List<List<String>> levels = new ArrayList<List<String>>();
+		kahn(levels);
+		return levels;
+	}
+
+	/**
+	 * Returns the number of packages that the given id depends on, directly or
+	 * through its dependencies, not counting itself.
+	 * 
+	 * @param id - the id of the package
+	 * @return the number of packages it depends on
+	 * @throws CycleException if the package depends on a cycle
+	 */
+	public int dependencyCount(int id) throws CycleException {
+		nextSearch();
+		return visit(id, null, null) - 1;
+	}
+
+	/**
+	 * Runs the depth first search from the given id and calls finish for every id
+	 * it reaches once all of that id's dependencies have been finished, so the
+	 * ids are finished in a valid installation order. Ids that done accepts are
+	 * treated as finished by an earlier search: they are neither followed nor
+	 * passed to finish.
+	 * 
+	 * @param id     - the id to start from
+	 * @param done   - accepts the ids that are already finished, null if none are
+	 * @param finish - called with every id as it is finished
+	 * @throws CycleException if the search reaches a cycle
+	 */
+	public void postOrder(int id, IntPredicate done, IntConsumer finish) throws CycleException {
+		if (done != null && done.test(id)) {
+			return;
+		}
+		nextSearch();
+		visit(id, done, finish);
+	}
+
+	/**
+	 * Sets where the engine counts the edges its searches follow
+	 * 
+	 * @param metrics - the metrics to count in, null to stop counting
+	 */
+	public void setMetrics(Metrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Returns the number of vertices the searches of this engine have finished,
+	 * counting a vertex again every time another search finishes it
+	 * 
+	 * @return the number of vertices visited so far
+	 */
+	public long getVerticesVisited() {
+		return visited;
+	}
+
+	/**
+	 * Returns the graph this engine traverses
+	 * 
+	 * @return IndexedGraph of the engine
+	 */
+	public IndexedGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Runs Kahn's algorithm over the whole graph one level at a time
+	 * 
+	 * @param levels - the list to add every level to, null if they aren't needed
+	 * @return List<String> of every package in installation order
+	 * @throws CycleException if any package in the graph is on a cycle
+	 */
+	private List<String> kahn(List<List<String>> levels) throws CycleException {
+		// the number of unfinished dependencies of every id
+		int[] remaining = new int[graph.capacity()];
+		// the ids in the order they become ready, which is the installation order
+		int[] ready = new int[graph.order()];
+		int tail = 0;
+
+		// the packages with no dependencies are ready first
+		for (int id = 0; id < graph.capacity(); id++) {
+			if (graph.vertexAt(id) != null) {
+				remaining[id] = graph.outDegree(id);
+				if (remaining[id] == 0) {
+					ready[tail++] = id;
+				}
+			}
+		}
+
+		// installs one level at a time, which lowers the count of every dependent of
+		// the packages in the level and makes the ones that reach 0 the next level
+		int head = 0;
+		long edges = 0; // the number of edges followed, counted per id instead of per edge
+		while (head < tail) {
+			int levelEnd = tail;
+			if (levels != null) {
+				List<String> level = new ArrayList<String>(levelEnd - head);
+				for (int i = head; i < levelEnd; i++) {
+					level.add(graph.vertexAt(ready[i]));
+				}
+				levels.add(level);
+			}
+			for (; head < levelEnd; head++) {
+				int id = ready[head];
+				edges += graph.inDegree(id);
+				for (int e = 0; e < graph.inDegree(id); e++) {
+					int dependent = graph.dependentAt(id, e);
+					if (--remaining[dependent] == 0) {
+						ready[tail++] = dependent;
+					}
+				}
+			}
+		}
+
+		countEdgesVisited(edges);
+		visited += tail;
+
+		// any package that never became ready depends on a cycle, so a search from it
+		// finds the packages on that cycle
+		if (tail < graph.order()) {
+			for (int id = 0; id < graph.capacity(); id++) {
+				if (graph.vertexAt(id) != null && remaining[id] > 0) {
+					nextSearch();
+					visit(id, null, null);
+				}
+			}
+			throw new CycleException();
+		}
+
+		List<String> order = new ArrayList<String>(tail);
+		for (int i = 0; i < tail; i++) {
+			order.add(graph.vertexAt(ready[i]));
+		}
+		return order;
+	}
+
+	/**
+	 * Starts a new search by moving the stamp past the colours of the last one,
+	 * which turns every id white without clearing the array. The arrays grow first
+	 * if the graph has more ids than they have room for.
+	 */
+	private void nextSearch() {
+		int capacity = graph.capacity();
+		if (colour.length < capacity) {
+			// new ids start at colour 0, which is white for every stamp
+			int length = Math.max(capacity, colour.length * 2);
+			colour = Arrays.copyOf(colour, length);
+			stack = new int[length];
+			cursor = new int[length];
+		}
+		// clears the array once the stamp is about to overflow
+		if (stamp >= Integer.MAX_VALUE - 2) {
+			Arrays.fill(colour, 0);
+			stamp = 1;
+		}
+		stamp += 2;
+	}
+
+	/**
+	 * Runs the depth first search from the given id, passing every package to
+	 * finish when it is finished.
+	 * 
+	 * @param start  - the id to start from
+	 * @param done   - accepts ids finished by an earlier search, null if none are
+	 * @param finish - called with every id as it is finished, null to only count
+	 *               them
+	 * @return the number of packages finished by the search
+	 * @throws CycleException if the search reaches an id on its own path
+	 */
+	private int visit(int start, IntPredicate done, IntConsumer finish) throws CycleException {
+		int grey = stamp;
+		int black = stamp + 1;
+		int finished = 0;
+		long edges = 0; // the number of edges followed
+
+		// pushes the start id onto the path and colours it grey
+		int top = 0;
+		stack[0] = start;
+		cursor[start] = 0;
+		colour[start] = grey;
+
+		while (top >= 0) {
+			int current = stack[top];
+			if (cursor[current] < graph.outDegree(current)) {
+				// follows the next edge of the id on top of the path
+				int next = graph.neighborAt(current, cursor[current]++);
+				edges++;
+				if (colour[next] == grey) {
+					countEdgesVisited(edges);
+					throw new CycleException(cycle(next, top));
+				}
+				if (colour[next] != black && (done == null || !done.test(next))) {
+					stack[++top] = next;
+					cursor[next] = 0;
+					colour[next] = grey;
+				}
+			} else {
+				// every dependency is finished, so the id is finished too
+				colour[current] = black;
+				top--;
+				finished++;
+				if (finish != null) {
+					finish.accept(current);
+				}
+			}
+		}
+		countEdgesVisited(edges);
+		visited += finished;
+		return finished;
+	}
+
+	/**
+	 * Counts the edges a search followed, if metrics are on
+	 * 
+	 * @param edges - the number of edges
+	 */
+	private void countEdgesVisited(long edges) {
+		if (metrics != null) {
+			metrics.countEdgesVisited(edges);
+		}
+	}
+
+	/**
+	 * Builds the cycle that the search found when the id on top of the path had an
+	 * edge back to an id that is already on the path.
+	 * 
+	 * @param repeated - the grey id that was reached again
+	 * @param top      - the position of the top of the path
+	 * @return List<String> of the packages on the cycle, starting and ending with
+	 *         the repeated one
+	 */
+	private List<String> cycle(int repeated, int top) {
+		// finds where the repeated id is on the path
+		int from = top;
+		while (stack[from] != repeated) {
+			from--;
+		}
+		List<String> cycle = new ArrayList<String>(top - from + 2);
+		for (int i = from; i <= top; i++) {
+			cycle.add(graph.vertexAt(stack[i]));
+		}
+		cycle.add(graph.vertexAt(repeated));
+		return cycle;
+	}
+
+}
@@ -0,0 +1,136 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the installation orders and cycles found by DependencyTraversal.
+ * 
+ * Written By Max Johnson
+ */
+public class DependencyTraversalTest {
+
+	// The graph the snapshots are made from
+	private Graph graph;
+
+	/** Initializes the graph before each method */
+	@BeforeEach
+	public void setUp() throws Exception {
+		graph = new Graph();
+	}
+
+	/** Not much to do, just make sure that variables are reset */
+	@AfterEach
+	public void tearDown() throws Exception {
+		graph = null;
+	}
+
+	/**
+	 * Tests that every package in the order comes after all of its dependencies,
+	 * using the graph from shared_dependencies.json
+	 */
+	@Test
+	public void test00_testTopologicalOrder() throws Exception {
+		graph.addEdge("A", "B");
+		graph.addEdge("A", "C");
+		graph.addEdge("B", "D");
+		graph.addEdge("C", "D");
+
+		List<String> order = new DependencyTraversal(graph.freeze()).installationOrder("A");
+		if (!order.equals(Arrays.asList("D", "B", "C", "A"))) {
+			fail("ERROR: The installation order was " + order);
+		}
+	}
+
+	/** Tests that a cycle longer than two packages is found and reported */
+	@Test
+	public void test01_testLongCycle() throws Exception {
+		graph.addEdge("A", "B");
+		graph.addEdge("B", "C");
+		graph.addEdge("C", "D");
+		graph.addEdge("D", "B");
+
+		DependencyTraversal traversal = new DependencyTraversal(graph.freeze());
+		try {
+			traversal.installationOrder("A");
+			fail("ERROR: The cycle B -> C -> D -> B was not found");
+		} catch (CycleException e) {
+			if (!e.getCycle().equals(Arrays.asList("B", "C", "D", "B"))) {
+				fail("ERROR: The cycle was reported as " + e.getCycle());
+			}
+		}
+	}
+
+	/** Tests that a cycle in another part of the graph doesn't affect a package */
+	@Test
+	public void test02_testCycleElsewhere() throws Exception {
+		graph.addEdge("A", "B");
+		graph.addEdge("C", "D");
+		graph.addEdge("D", "C");
+
+		DependencyTraversal traversal = new DependencyTraversal(graph.freeze());
+		if (!traversal.installationOrder("A").equals(Arrays.asList("B", "A"))) {
+			fail("ERROR: The cycle between C and D affected A");
+		}
+		try {
+			traversal.installationOrder("X");
+			fail("ERROR: A package that doesn't exist was found");
+		} catch (PackageNotFoundException e) {
+			// expected
+		}
+	}
+
+	/** Tests the order and levels for the whole graph from valid.json */
+	@Test
+	public void test03_testWholeGraphLevels() throws Exception {
+		graph.addEdge("A", "B");
+		graph.addEdge("B", "C");
+		graph.addEdge("B", "D");
+		graph.addEdge("E", "B");
+
+		DependencyTraversal traversal = new DependencyTraversal(graph.freeze());
+		if (!traversal.installationOrderForAll().equals(Arrays.asList("C", "D", "B", "A", "E"))) {
+			fail("ERROR: The installation order for all packages was wrong");
+		}
+		List<List<String>> levels = traversal.installationLevels();
+		if (!levels.equals(Arrays.asList(Arrays.asList("C", "D"), Arrays.asList("B"), Arrays.asList("A", "E")))) {
+			fail("ERROR: The installation levels were " + levels);
+		}
+
+		// a cycle anywhere in the graph should stop the whole graph from installing
+		graph.addEdge("C", "E");
+		try {
+			new DependencyTraversal(graph.freeze()).installationOrderForAll();
+			fail("ERROR: The cycle C -> E -> B -> C was not found");
+		} catch (CycleException e) {
+			// expected
+		}
+	}
+
+	/** Tests that one engine over the live graph follows its changes */
+	@Test
+	public void test04_testLiveGraph() throws Exception {
+		graph.addEdge("A", "B");
+		DependencyTraversal traversal = new DependencyTraversal(graph);
+		if (!traversal.installationOrder("A").equals(Arrays.asList("B", "A"))) {
+			fail("ERROR: The order of the live graph was wrong");
+		}
+
+		// grows the graph past the arrays of the engine and reuses a freed id
+		for (int i = 0; i < 100; i++) {
+			graph.addEdge("B", "C" + i);
+		}
+		graph.removeVertex("C0");
+		graph.addEdge("C1", "D");
+		List<String> order = traversal.installationOrder("A");
+		if (order.size() != 102 || !order.get(0).equals("D") || !order.get(101).equals("A")
+				|| traversal.dependencyCount(graph.indexOf("B")) != 100
+				|| traversal.installationOrderForAll().size() != graph.order()) {
+			fail("ERROR: The engine did not follow the changes to the graph");
+		}
+	}
+}
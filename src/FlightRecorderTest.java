@@ -0,0 +1,73 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the Java Flight Recorder events of Graph and PackageManager.
+ *
+ * Written By Max Johnson
+ */
+public class FlightRecorderTest {
+
+	/** Tests that changes and queries are recorded with their details */
+	@Test
+	public void test00_testEvents() {
+		try {
+			Path file = Files.createTempFile("events", ".jfr");
+			try (Recording recording = new Recording()) {
+				// records every change instead of only the slow ones
+				recording.enable("p4.GraphMutation").withThreshold(Duration.ZERO);
+				recording.enable("p4.StorageResize");
+				recording.enable("p4.PackageQuery").withThreshold(Duration.ZERO);
+				recording.start();
+
+				PackageManager manager = new PackageManager();
+				manager.constructGraph("valid.json");
+				manager.getInstallationOrder("A");
+				Graph graph = new Graph();
+				graph.addEdge("X", "Y");
+				graph.removeEdge("X", "Y");
+				recording.stop();
+				recording.dump(file);
+			}
+
+			List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+			Files.delete(file);
+			int mutations = 0;
+			int resizes = 0;
+			RecordedEvent query = null;
+			for (RecordedEvent event : events) {
+				String name = event.getEventType().getName();
+				if (name.equals("p4.GraphMutation")) {
+					mutations++;
+				} else if (name.equals("p4.StorageResize")) {
+					resizes++;
+				} else if (name.equals("p4.PackageQuery")
+						&& event.getString("operation").equals("GET_INSTALLATION_ORDER")) {
+					query = event;
+				}
+			}
+
+			// valid.json has 5 vertices and 4 edges, and X and Y add 2 vertices and 1 edge and remove it
+			if (mutations != 13 || resizes == 0) {
+				fail("ERROR: Recorded " + mutations + " changes and " + resizes + " resizes");
+			}
+			// A needs itself, B, C and D
+			if (query == null || !query.getString("pkg").equals("A") || query.getInt("resultSize") != 4
+					|| query.getLong("verticesVisited") != 4) {
+				fail("ERROR: The query was not recorded correctly: " + query);
+			}
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+	}
+}
@@ -0,0 +1,380 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Filename: FrozenGraph.java Project: p4 Authors: Max Johnson
+ *
+ * Immutable snapshot of a Graph made by Graph.freeze(), stored in Compressed
+ * Sparse Row form. Every vertex keeps the integer id it had in the Graph, the
+ * dependencies of vertex id are targets[offsets[id]] to
+ * targets[offsets[id + 1] - 1] in the order they were added, and names[id] is
+ * the vertex with that id (null if the Graph had no vertex with that id).
+ *
+ * Traversals should walk the int arrays through firstNeighbor, endNeighbor and
+ * neighborAt instead of getAdjacentVerticesOf, which has to build a new list
+ * of Strings for every call. The reverse edges are stored the same way, so the
+ * dependents of an id are walked with firstDependent, endDependent and
+ * dependentAt. The GraphADT mutators throw an UnsupportedOperationException.
+ * It is also an IndexedGraph, so DependencyTraversal can walk it by id.
+ */
+public class FrozenGraph implements GraphADT, IndexedGraph {
+
+	private final String[] names; // the vertex of every id, null if the id is unused
+	private final int[] offsets; // where the targets of every id start, with one extra entry at the end
+	private final int[] targets; // the ids every edge goes to, grouped by the id it comes from
+	private final int[] reverseOffsets; // where the sources of every id start, with one extra entry at the end
+	private final int[] sources; // the ids every edge comes from, grouped by the id it goes to
+	private final Map<String, Integer> ids; // the id of every vertex name
+	private final int order; // the # of vertices
+	private final Set<String> vertexView; // unmodifiable view of the keys of ids, returned by vertices()
+
+	/**
+	 * Constructs a FrozenGraph from the arrays built by Graph.freeze()
+	 *
+	 * @param names   - the vertex of every id, null if the id is unused
+	 * @param offsets - where the targets of every id start, of length
+	 *                names.length + 1
+	 * @param targets - the ids every edge goes to, grouped by the id it comes from
+	 */
+	FrozenGraph(String[] names, int[] offsets, int[] targets) {
+		this.names = names;
+		this.offsets = offsets;
+		this.targets = targets;
+
+		// builds the dictionary from vertex names back to their ids
+		ids = new HashMap<String, Integer>(names.length * 2);
+		for (int id = 0; id < names.length; id++) {
+			if (names[id] != null) {
+				ids.put(names[id], id);
+			}
+		}
+		order = ids.size();
+		vertexView = Collections.unmodifiableSet(ids.keySet());
+
+		// counts the edges going to every id to find where its sources start
+		reverseOffsets = new int[names.length + 1];
+		for (int i = 0; i < targets.length; i++) {
+			reverseOffsets[targets[i] + 1]++;
+		}
+		for (int id = 0; id < names.length; id++) {
+			reverseOffsets[id + 1] += reverseOffsets[id];
+		}
+
+		// fills in the sources of every id in the order of the ids they come from
+		sources = new int[targets.length];
+		int[] next = new int[names.length];
+		for (int id = 0; id < names.length; id++) {
+			for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+				int target = targets[i];
+				sources[reverseOffsets[target] + next[target]++] = id;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of ids in the snapshot. Every id is between 0 and
+	 * capacity() - 1, but ids that were free in the Graph have no vertex.
+	 *
+	 * @return the number of ids in the snapshot
+	 */
+	@Override
+	public int capacity() {
+		return names.length;
+	}
+
+	/**
+	 * Returns the integer id of the input vertex
+	 *
+	 * @param vertex - the vertex to be found in the snapshot
+	 * @return the id of the vertex, -1 if it is null or not in the snapshot
+	 */
+	@Override
+	public int indexOf(String vertex) {
+		if (vertex == null) {
+			return -1;
+		}
+		Integer id = ids.get(vertex);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Returns the vertex that has the input integer id
+	 *
+	 * @param id - the id of the vertex
+	 * @return the vertex with that id, null if no vertex has that id
+	 */
+	@Override
+	public String vertexAt(int id) {
+		if (id < 0 || id >= names.length) {
+			return null;
+		}
+		return names[id];
+	}
+
+	/**
+	 * Returns the position in the edge array of the first dependency of the id
+	 *
+	 * @param id - the id of the vertex
+	 * @return the position of its first dependency
+	 */
+	public int firstNeighbor(int id) {
+		return offsets[id];
+	}
+
+	/**
+	 * Returns the position in the edge array just after the last dependency of the
+	 * id
+	 *
+	 * @param id - the id of the vertex
+	 * @return the position after its last dependency
+	 */
+	public int endNeighbor(int id) {
+		return offsets[id + 1];
+	}
+
+	/**
+	 * Returns the id an edge goes to
+	 *
+	 * @param edge - the position of the edge, from firstNeighbor(id) to
+	 *             endNeighbor(id) - 1
+	 * @return the id the edge goes to
+	 */
+	public int neighborAt(int edge) {
+		return targets[edge];
+	}
+
+	/**
+	 * Returns one dependency of the id
+	 *
+	 * @param id    - the id of the vertex
+	 * @param index - the position of the dependency, from 0 to outDegree(id) - 1
+	 * @return the id the edge goes to
+	 */
+	@Override
+	public int neighborAt(int id, int index) {
+		return targets[offsets[id] + index];
+	}
+
+	/**
+	 * Returns the number of dependencies of the id
+	 *
+	 * @param id - the id of the vertex
+	 * @return the number of edges coming from the id
+	 */
+	@Override
+	public int outDegree(int id) {
+		return offsets[id + 1] - offsets[id];
+	}
+
+	/**
+	 * Returns the position in the reverse edge array of the first dependent of the
+	 * id
+	 *
+	 * @param id - the id of the vertex
+	 * @return the position of its first dependent
+	 */
+	public int firstDependent(int id) {
+		return reverseOffsets[id];
+	}
+
+	/**
+	 * Returns the position in the reverse edge array just after the last
+	 * dependent of the id
+	 *
+	 * @param id - the id of the vertex
+	 * @return the position after its last dependent
+	 */
+	public int endDependent(int id) {
+		return reverseOffsets[id + 1];
+	}
+
+	/**
+	 * Returns the id a reverse edge comes from
+	 *
+	 * @param edge - the position of the reverse edge, from firstDependent(id) to
+	 *             endDependent(id) - 1
+	 * @return the id the edge comes from
+	 */
+	public int dependentAt(int edge) {
+		return sources[edge];
+	}
+
+	/**
+	 * Returns one dependent of the id
+	 *
+	 * @param id    - the id of the vertex
+	 * @param index - the position of the dependent, from 0 to inDegree(id) - 1
+	 * @return the id the edge comes from
+	 */
+	@Override
+	public int dependentAt(int id, int index) {
+		return sources[reverseOffsets[id] + index];
+	}
+
+	/**
+	 * Returns the number of dependents of the id
+	 *
+	 * @param id - the id of the vertex
+	 * @return the number of edges going to the id
+	 */
+	@Override
+	public int inDegree(int id) {
+		return reverseOffsets[id + 1] - reverseOffsets[id];
+	}
+
+	/**
+	 * A FrozenGraph cannot be changed
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void addVertex(String vertex) {
+		throw new UnsupportedOperationException("FrozenGraph cannot be changed");
+	}
+
+	/**
+	 * A FrozenGraph cannot be changed
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void removeVertex(String vertex) {
+		throw new UnsupportedOperationException("FrozenGraph cannot be changed");
+	}
+
+	/**
+	 * A FrozenGraph cannot be changed
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void addEdge(String vertex1, String vertex2) {
+		throw new UnsupportedOperationException("FrozenGraph cannot be changed");
+	}
+
+	/**
+	 * A FrozenGraph cannot be changed
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void removeEdge(String vertex1, String vertex2) {
+		throw new UnsupportedOperationException("FrozenGraph cannot be changed");
+	}
+
+	/**
+	 * Returns a Set that contains all the vertices
+	 */
+	@Override
+	public Set<String> getAllVertices() {
+		return new HashSet<String>(ids.keySet());
+	}
+
+	/**
+	 * Returns an unmodifiable view of the vertices, the same view on every call
+	 */
+	@Override
+	public Set<String> vertices() {
+		return vertexView;
+	}
+
+	/**
+	 * Get all the neighbor (adjacent) vertices of a vertex
+	 */
+	@Override
+	public List<String> getAdjacentVerticesOf(String vertex) {
+		// returns null if the vertex isn't in the snapshot, like Graph does
+		int id = indexOf(vertex);
+		if (id == -1) {
+			return null;
+		}
+		List<String> strings = new ArrayList<String>(outDegree(id));
+		for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+			strings.add(names[targets[i]]);
+		}
+		return strings;
+	}
+
+	/**
+	 * Passes every neighbor of a vertex to the action without building a list
+	 */
+	@Override
+	public void forEachNeighbor(String vertex, Consumer<String> action) {
+		// does nothing if the vertex isn't in the snapshot
+		int id = indexOf(vertex);
+		if (id == -1) {
+			return;
+		}
+		for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+			action.accept(names[targets[i]]);
+		}
+	}
+
+	/**
+	 * Get all the vertices that have an edge to a vertex
+	 */
+	@Override
+	public List<String> getDependentsOf(String vertex) {
+		// returns null if the vertex isn't in the snapshot, like Graph does
+		int id = indexOf(vertex);
+		if (id == -1) {
+			return null;
+		}
+		List<String> strings = new ArrayList<String>(inDegree(id));
+		for (int i = reverseOffsets[id]; i < reverseOffsets[id + 1]; i++) {
+			strings.add(names[sources[i]]);
+		}
+		return strings;
+	}
+
+	/**
+	 * Passes every vertex that has an edge to a vertex to the action without
+	 * building a list
+	 */
+	@Override
+	public void forEachDependent(String vertex, Consumer<String> action) {
+		// does nothing if the vertex isn't in the snapshot
+		int id = indexOf(vertex);
+		if (id == -1) {
+			return;
+		}
+		for (int i = reverseOffsets[id]; i < reverseOffsets[id + 1]; i++) {
+			action.accept(names[sources[i]]);
+		}
+	}
+
+	/**
+	 * Returns the number of edges that go to a vertex
+	 */
+	@Override
+	public int inDegree(String vertex) {
+		int id = indexOf(vertex);
+		if (id == -1) {
+			return -1;
+		}
+		return inDegree(id);
+	}
+
+	/**
+	 * Returns the number of edges in this snapshot.
+	 */
+	@Override
+	public int size() {
+		return targets.length;
+	}
+
+	/**
+	 * Returns the number of vertices in this snapshot.
+	 */
+	@Override
+	public int order() {
+		return order;
+	}
+
+}
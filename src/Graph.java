@@ -1,7 +1,16 @@
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * Filename:   Graph.java
@@ -20,12 +29,12 @@ import java.util.Set;
  * @author Max Johnson
  *
  */
-public class Graph implements GraphADT {
+public class Graph implements GraphADT, IndexedGraph {
 
 	/**
 	 * A GraphNode object represents a vertex in the GraphADT. Each node contains
 	 * the data to be stored as a vertex, the list of all neighboring vertices, and
-	 * it's index in the adjacency matrix.
+	 * it's index in the edge storage of its graph.
 	 * 
 	 * @author Maxwell Johnson
 	 *
@@ -36,21 +45,24 @@ public class Graph implements GraphADT {
 		// private instance fields
 		T vertex; // the vertex within the node
 		List<GraphNode<T>> neighbors;// all of the nodes that the node shares an edge with
-		int AMindex;// index within the adjacency matrix of the graph
+		List<GraphNode<T>> dependents;// all of the nodes that have an edge to the node
+		int AMindex;// index within the edge storage of the graph
+		IntView neighborIds;// view of the ids of the neighbors, made the first time it is asked for
+		IntView dependentIds;// view of the ids of the dependents, made the first time it is asked for
 
 		// constructor
 		/**
 		 * Constructs a GraphNode with given vertex and AMindex
 		 * 
-		 * @param vert - the data stored in the node
+		 * @param vert  - the data stored in the node
+		 * @param index - the index allocated to the node by its graph
 		 */
-		private GraphNode(T vert) {
+		private GraphNode(T vert, int index) {
 			// initializes the private fields of the GraphNode
 			vertex = vert;
-			AMindex = AMINDEX;// gets the next available index for the AM
+			AMindex = index;// the index the graph allocated for the node
 			neighbors = new ArrayList<GraphNode<T>>();// the neighboors will be set with a setter method
-
-			AMINDEX++;// increments the AM for the next node to be created
+			dependents = new ArrayList<GraphNode<T>>();// the dependents are set when the neighbors are
 		}
 
 		// getter methods
@@ -81,6 +93,59 @@ public class Graph implements GraphADT {
 			return neighbors;
 		}
 
+		/**
+		 * returns the list of nodes that have an edge to the given GraphNode
+		 * 
+		 * @return dependents
+		 */
+		private List<GraphNode<T>> getDependents() {
+			return dependents;
+		}
+
+		/**
+		 * returns a live view of the ids of the neighbors of the given GraphNode
+		 * 
+		 * @return neighborIds
+		 */
+		private IntView getNeighborIds() {
+			if (neighborIds == null) {
+				neighborIds = idsOf(neighbors);// made once and reused by every caller
+			}
+			return neighborIds;
+		}
+
+		/**
+		 * returns a live view of the ids of the dependents of the given GraphNode
+		 * 
+		 * @return dependentIds
+		 */
+		private IntView getDependentIds() {
+			if (dependentIds == null) {
+				dependentIds = idsOf(dependents);// made once and reused by every caller
+			}
+			return dependentIds;
+		}
+
+		/**
+		 * Returns a view of the ids of a list of nodes, read from the list every time
+		 * 
+		 * @param nodes - the list of nodes to view
+		 * @return the view of their ids
+		 */
+		private IntView idsOf(List<GraphNode<T>> nodes) {
+			return new IntView() {
+				@Override
+				public int size() {
+					return nodes.size();
+				}
+
+				@Override
+				public int get(int index) {
+					return nodes.get(index).getIndex();// reads the id now, so compact() is reflected
+				}
+			};
+		}
+
 		// setter methods
 
 		/**
@@ -90,32 +155,63 @@ public class Graph implements GraphADT {
 		 */
 		private void addNeighbor(GraphNode<T> node) {
 			neighbors.add(node);
+			node.dependents.add(this);// this node is now a dependent of the neighbor
 		}
 	}
 
 	// Instance Variables
-	private static int AMINDEX;// a static variable that is incremented every time a node is added
 	private int size; // the # of edges in the array
 	private int degree; // the # of vertices
-	private List<GraphNode<String>> vertList; // List of all the vertices
-	boolean[][] adjMatrix; // 2D list of each vertex represented by an index on each axis. the row index
-							// will tell where each edge comes from and the columns will tell where the edge
-							// goes to
+	private Map<String, GraphNode<String>> vertMap; // index of every vertex name to its node, in insertion order
+	private ArrayList<GraphNode<String>> idTable; // every node stored at its integer id (AMindex), null if unused
+	private Queue<Integer> freeIndices; // ids of removed vertices that can be given to new vertices
+	private AdjacencyStorage edges; // stores which edges exist between the ids of the vertices
+	private List<GraphListener> listeners; // told about every change to the dependencies of a vertex
+	private boolean checksEnabled; // true to run checkConsistency after every change
+	private boolean batching; // true while applyBatch makes its changes, which tell no listeners and run no checks
+	private Set<String> vertexView; // unmodifiable live view of the keys of vertMap, returned by vertices()
+	private int room; // the number of ids the id table and the edge storage have room for
+	private Metrics metrics; // where lookups, resizes and edge reads are counted, null while metrics are off
+	private long modCount; // the number of changes made to the vertices and edges
+	private ConcurrentGraph mirror; // copy-on-write copy that snapshot() publishes from, null until it is made
+	private List<Mutation> unpublished; // the changes made since the mirror was last brought up to date
+	private final AtomicReference<ConcurrentGraph.Version> published; // the version last published, read by any thread
 
 	/*
 	 * Default no-argument constructor
 	 */
 	/**
-	 * Constructs and initializes a Graph object. The adjacency matrix is
-	 * initialized to 100 indices in both rows and columns
+	 * Constructs and initializes a Graph object that stores its edges in a
+	 * SparseAdjacency, so memory grows with the number of edges.
 	 */
 	public Graph() {
-		AMINDEX = 0;// initializes the static index for the next index in the AM
+		this(new SparseAdjacency());
+	}
+
+	/**
+	 * Constructs and initializes a Graph object that stores its edges in the
+	 * given storage. Use a DenseAdjacency for small graphs where most vertices
+	 * are connected.
+	 * 
+	 * @param storage - the empty storage backend for the edges of the graph
+	 */
+	public Graph(AdjacencyStorage storage) {
 		size = 0;// no edges are present at construction
 		degree = 0;// no vertices are present at construction
-		vertList = new ArrayList<GraphNode<String>>();// creates a new arrayList of GraphNodes of String type
-		adjMatrix = new boolean[100][100];// initialized to 100 indices in both directions
-
+		vertMap = new LinkedHashMap<String, GraphNode<String>>();// creates the name index of the GraphNodes
+		idTable = new ArrayList<GraphNode<String>>();// creates the id table of the GraphNodes
+		freeIndices = new ArrayDeque<Integer>();// no ids have been freed at construction
+		edges = storage;// the storage grows as vertices are added
+		listeners = new ArrayList<GraphListener>();// no listeners at construction
+		checksEnabled = Boolean.getBoolean("graph.checkConsistency");// off unless asked for
+		batching = false;// no batch is being applied at construction
+		vertexView = Collections.unmodifiableSet(vertMap.keySet());// follows vertMap, so it is made once
+		room = 0;// the storage grows as vertices are added
+		metrics = null;// metrics are off until a PackageManager turns them on
+		modCount = 0;// no changes have been made at construction
+		mirror = null;// no copy is kept until the first snapshot
+		unpublished = new ArrayList<Mutation>();
+		published = new AtomicReference<ConcurrentGraph.Version>(new ConcurrentGraph().snapshot());
 	}
 
 	/**
@@ -133,34 +229,8 @@ public class Graph implements GraphADT {
 		if (vertex == null) {
 			return;// ends the method if the input is null
 		}
-		// checks if the vertex exists or not already in the graph
-		if (vertExist(vertex)) {
-			return; // ends the method if the vertex exists in the graph
-		}
-
-		// Creates a new GraphNode object of type String and adds it to the list of
-		// vertices
-		GraphNode<String> node = new GraphNode<String>(vertex);
-		vertList.add(node);
-		degree++;
-
-		// this section of the code checks if the AMINDEX is larger than the length of
-		// the adjMatrix
-		// if the AMINDEX is equal to the adjMatrix length, and if it is, it creates a
-		// new list to be made for the adjMatrix with a larger length
-		if (AMINDEX >= adjMatrix.length) {
-			boolean[][] matrix = new boolean[AMINDEX * 2][AMINDEX * 2];// doubles the length of the current matrix
-
-			// loop to add all previous values from the matrix into the new one
-			for (int i = 0; i < adjMatrix.length; i++) {
-				for (int j = 0; j < adjMatrix[i].length; j++) {
-					matrix[i][j] = adjMatrix[i][j];// copies value from same position in adjMatrix into matrix
-
-				}
-			}
-			// sets the adjMatrix array equal to the new matrix
-			adjMatrix = matrix;
-		}
+		// adds the vertex unless it is already in the graph
+		findOrAddVertex(vertex);
 	}
 
 	/**
@@ -182,28 +252,42 @@ public class Graph implements GraphADT {
 			return; // ends the method if the vertex doesnt exist in the graph
 		}
 
+		GraphMutationEvent event = new GraphMutationEvent();
+		event.begin();
+
+		// tells the listeners before the vertex and its edges are removed
+		fireDependenciesChanged(findVertex(vertex).getIndex());
+
 		// returns the node from the graph list that is removed
 		GraphNode<String> node = removeVertexHelper(vertex);
 		degree--;
+		modCount++;
 
-		// removes all associated edges with the node removed from the graph by
-		// iterating through the matrix and making all values that are true equal to
-		// false within its indicated row and column. thus removing any edge that comes
-		// FROM that vertex (anything that is
-		// true in its row) and TO that vertex (anything true in its column).
-		for (int i = 0; i < adjMatrix.length; i++) {
-			// removes any edge coming from that said vertex if the matrices is true
-			if (adjMatrix[node.getIndex()][i]) {
-				adjMatrix[node.getIndex()][i] = false;
+		// removes all associated edges with the node removed from the graph. thus
+		// removing any edge that comes FROM that vertex (every node in its neighbor
+		// list) and TO that vertex (every node in its dependent list).
+		for (GraphNode<String> neighbor : node.getNeighbors()) {
+			// removes any edge coming from that said vertex if it is stored
+			if (edges.removeEdge(node.getIndex(), neighbor.getIndex())) {
 				size--;// decrements the size of the graph (number of edges)
 			}
-			// removes any edge going to that said vertex if the matrices is true;
-			if (adjMatrix[i][node.getIndex()]) {
-				adjMatrix[i][node.getIndex()] = false;
+		}
+		for (GraphNode<String> dependent : node.getDependents()) {
+			// removes any edge going to that said vertex if it is stored
+			if (edges.removeEdge(dependent.getIndex(), node.getIndex())) {
 				size--;
 			}
 		}
 
+		// the id of the removed vertex can now be reused by the next vertex added
+		freeIndices.add(node.getIndex());
+		record(Mutation.Kind.REMOVE_VERTEX, vertex, null);
+		commitMutation(event, Mutation.Kind.REMOVE_VERTEX, vertex, null);
+
+		if (checksEnabled && !batching) {
+			checkConsistency();
+		}
+
 	}
 
 	/**
@@ -232,19 +316,8 @@ public class Graph implements GraphADT {
 			addVertex(vertex2);
 		}
 
-		// gets the node and AMINDEX for each vertex in the graph
-		GraphNode<String> fromNode = findVertex(vertex1);// node where edge comes from
-		GraphNode<String> toNode = findVertex(vertex2);// node where edge goes to
-		int fromInd = fromNode.getIndex();// edge comes from this index
-		int toInd = toNode.getIndex();// edge goes to this index
-
-		// accesses the adjMatrix and uses the fromInd as the index for the row of the
-		// matrix (from) and the toInd as the index for the column of the matrix (to).
-		adjMatrix[fromInd][toInd] = true;
-		size++;// increments the amount of edges in the list
-
-		// adds toNode to the adjacency list of fromNode
-		fromNode.addNeighbor(toNode);
+		// links the node of vertex1 to the node of vertex2
+		linkNodes(findVertex(vertex1), findVertex(vertex2));
 	}
 
 	/**
@@ -265,21 +338,143 @@ public class Graph implements GraphADT {
 			return;
 		}
 
-		// gets the node and AMINDEX for each vertex in the graph
+		GraphMutationEvent event = new GraphMutationEvent();
+		event.begin();
+
+		// gets the node and AMindex for each vertex in the graph
 		GraphNode<String> fromNode = findVertex(vertex1);// node where edge comes from
 		GraphNode<String> toNode = findVertex(vertex2);// node where edge goes to
 		int fromInd = fromNode.getIndex();// edge comes from this index
 		int toInd = toNode.getIndex();// edge goes to this index
 
-		// accesses the adjMatrix and uses the fromInd as the index for the row of the
-		// matrix (from) and the toInd as the index for the column of the matrix (to).
-		if (adjMatrix[fromInd][toInd]) {
-			adjMatrix[fromInd][toInd] = false;// removes the edge between the two vertices if it exists
+		// tells the listeners if the dependencies of fromNode are changing
+		if (edges.hasEdge(fromInd, toInd)) {
+			fireDependenciesChanged(fromInd);
+		}
+
+		// removes the edge between the two vertices if it exists
+		if (edges.removeEdge(fromInd, toInd)) {
 			size--;// increments the amount of edges in the list
 		}
 
-		// removes toNode from the adjacency list of fromNode
-		fromNode.getNeighbors().remove(toNode);
+		// removes toNode from the adjacency list of fromNode, and fromNode from the
+		// dependent list of toNode
+		if (fromNode.getNeighbors().remove(toNode)) {
+			toNode.getDependents().remove(fromNode);
+			modCount++;
+			record(Mutation.Kind.REMOVE_EDGE, vertex1, vertex2);
+			commitMutation(event, Mutation.Kind.REMOVE_EDGE, vertex1, vertex2);
+		}
+
+		if (checksEnabled && !batching) {
+			checkConsistency();
+		}
+	}
+
+	/**
+	 * Add an edge from vertex1 to each vertex in a collection, in order. vertex1
+	 * is looked up once, each other vertex once, and the edge storage makes room
+	 * for all the new vertices at the same time.
+	 */
+	@Override
+	public void addEdges(String vertex1, Collection<String> vertices) {
+		if (vertex1 == null) {
+			return;
+		}
+
+		// makes room for every distinct vertex that isn't in the graph yet
+		Set<String> added = new HashSet<String>();
+		addIfNew(added, vertex1);
+		for (String vertex2 : vertices) {
+			addIfNew(added, vertex2);
+		}
+		reserve(added.size());
+
+		// links vertex1 to each vertex, adding the ones that are new
+		GraphNode<String> fromNode = findOrAddVertex(vertex1);
+		for (String vertex2 : vertices) {
+			if (vertex2 != null) {
+				linkNodes(fromNode, findOrAddVertex(vertex2));
+			}
+		}
+	}
+
+	/**
+	 * Apply a list of changes to this graph in order, all or nothing. The batch is
+	 * checked first, and in the same pass the new vertices of the whole batch are
+	 * found so the edge storage and id table grow once. The listeners are then
+	 * told about every vertex whose dependencies the batch may change, while the
+	 * graph is still unchanged, so a listener that throws leaves the graph as it
+	 * was. The changes are made after that without telling the listeners again or
+	 * running the consistency check, and a checked Mutation cannot fail by itself
+	 * since null vertices are ignored, so only a bug in the graph can stop the
+	 * batch partway through. The consistency check, if it is on, runs once at the
+	 * end.
+	 */
+	@Override
+	public void applyBatch(List<Mutation> batch) {
+		// checks every change, collects the vertices the batch adds and marks the
+		// vertices whose dependencies it may change
+		Set<String> added = new HashSet<String>();
+		BitSet changed = new BitSet();
+		for (Mutation mutation : batch) {
+			if (mutation == null) {
+				throw new IllegalArgumentException("a batch cannot contain null");
+			}
+			if (mutation.getKind() != Mutation.Kind.ADD_VERTEX
+					&& (mutation.getKind() == Mutation.Kind.REMOVE_VERTEX || mutation.getVertex2() != null)) {
+				// a vertex added by the batch has no id yet, so nothing can be kept about it
+				GraphNode<String> node = findVertex(mutation.getVertex1());
+				if (node != null) {
+					changed.set(node.getIndex());
+				}
+			}
+			if (mutation.getKind() == Mutation.Kind.ADD_VERTEX) {
+				addIfNew(added, mutation.getVertex1());
+			} else if (mutation.getKind() == Mutation.Kind.ADD_EDGE && mutation.getVertex1() != null
+					&& mutation.getVertex2() != null) {
+				// an edge with a null end is skipped, so its other end is not added either
+				addIfNew(added, mutation.getVertex1());
+				addIfNew(added, mutation.getVertex2());
+			}
+		}
+		// tells the listeners before anything changes, while the dependents of every
+		// marked vertex can still be found
+		for (int id = changed.nextSetBit(0); id >= 0; id = changed.nextSetBit(id + 1)) {
+			fireDependenciesChanged(id);
+		}
+		reserve(added.size());
+
+		// makes the changes in order, which no listener or check can stop
+		batching = true;
+		try {
+			for (Mutation mutation : batch) {
+				String vertex1 = mutation.getVertex1();
+				String vertex2 = mutation.getVertex2();
+				switch (mutation.getKind()) {
+				case ADD_VERTEX:
+					addVertex(vertex1);
+					break;
+				case REMOVE_VERTEX:
+					removeVertex(vertex1);
+					break;
+				case ADD_EDGE:
+					if (vertex1 != null && vertex2 != null) {
+						linkNodes(findOrAddVertex(vertex1), findOrAddVertex(vertex2));
+					}
+					break;
+				default:
+					removeEdge(vertex1, vertex2);
+					break;
+				}
+			}
+		} finally {
+			batching = false;
+		}
+
+		if (checksEnabled) {
+			checkConsistency();
+		}
 	}
 
 	/**
@@ -287,20 +482,19 @@ public class Graph implements GraphADT {
 	 * 
 	 */
 	public Set<String> getAllVertices() {
-		// first checks if the list is empty or not, and if so, returns an empty set
-		Set<String> set = new HashSet<String>();
-		if (vertList.isEmpty()) {
-			return set;
-		}
+		// the keys of the name index are exactly the vertices of the graph
+		return new HashSet<String>(vertMap.keySet());
+	}
 
-		// now goes through the list and adds all the vertices to the set by iterating
-		// through the nodes and adding each of the nodes vertices individually
-		for(int i = 0; i < vertList.size(); i++) {
-			//creates a temporary string from accessing the nodes vertex then adds it to the set
-			String str = vertList.get(i).getVertex();
-			set.add(str);
-		}
-		return set;
+	/**
+	 * Returns an unmodifiable view of the vertices that follows later changes
+	 * to the graph, in the order they were added. The graph must not be changed
+	 * while the view is being iterated.
+	 * 
+	 */
+	@Override
+	public Set<String> vertices() {
+		return vertexView;
 	}
 
 	/**
@@ -325,8 +519,106 @@ public class Graph implements GraphADT {
 		for (int i = 0; i < node.getNeighbors().size(); i++) {
 			strings.add(node.getNeighbors().get(i).getVertex());
 		}
+		countEdgesVisited(strings.size());
+		return strings;
+
+	}
+
+	/**
+	 * Passes every neighbor of a vertex to the action without building a list
+	 *
+	 */
+	@Override
+	public void forEachNeighbor(String vertex, Consumer<String> action) {
+		// does nothing if the vertex is null or not in the graph
+		GraphNode<String> node = findVertex(vertex);
+		if (node == null) {
+			return;
+		}
+		// an index loop, so no iterator is allocated either
+		List<GraphNode<String>> neighbors = node.getNeighbors();
+		for (int i = 0; i < neighbors.size(); i++) {
+			action.accept(neighbors.get(i).getVertex());
+		}
+		countEdgesVisited(neighbors.size());
+	}
+
+	/**
+	 * Get all the vertices that have an edge to a vertex
+	 *
+	 */
+	public List<String> getDependentsOf(String vertex) {
+		// returns null if the vertex is null or not in the graph
+		GraphNode<String> node = findVertex(vertex);
+		if (node == null) {
+			return null;
+		}
+
+		// adds the vertex of each dependent node to a new list
+		List<String> strings = new ArrayList<String>(node.getDependents().size());
+		for (GraphNode<String> dependent : node.getDependents()) {
+			strings.add(dependent.getVertex());
+		}
+		countEdgesVisited(strings.size());
 		return strings;
+	}
+
+	/**
+	 * Passes every vertex that has an edge to a vertex to the action without
+	 * building a list
+	 *
+	 */
+	@Override
+	public void forEachDependent(String vertex, Consumer<String> action) {
+		// does nothing if the vertex is null or not in the graph
+		GraphNode<String> node = findVertex(vertex);
+		if (node == null) {
+			return;
+		}
+		List<GraphNode<String>> dependents = node.getDependents();
+		for (int i = 0; i < dependents.size(); i++) {
+			action.accept(dependents.get(i).getVertex());
+		}
+		countEdgesVisited(dependents.size());
+	}
+
+	/**
+	 * Returns a live view of the ids of the neighbors of the vertex with the
+	 * given id, in the same order as getAdjacentVerticesOf. The view is made once
+	 * per vertex and reused, so walking the graph by id allocates nothing. Ids
+	 * can be turned back into names with vertexAt.
+	 * 
+	 * @param index - the id of the vertex
+	 * @return the ids of its neighbors, or an empty view if no vertex has the id
+	 */
+	public IntView neighbors(int index) {
+		GraphNode<String> node = nodeAt(index);
+		return node == null ? IntView.EMPTY : node.getNeighborIds();
+	}
 
+	/**
+	 * Returns a live view of the ids of the vertices that have an edge to the
+	 * vertex with the given id, in the same order as getDependentsOf
+	 * 
+	 * @param index - the id of the vertex
+	 * @return the ids of its dependents, or an empty view if no vertex has the id
+	 */
+	public IntView dependents(int index) {
+		GraphNode<String> node = nodeAt(index);
+		return node == null ? IntView.EMPTY : node.getDependentIds();
+	}
+
+	/**
+	 * Returns the number of edges that go to a vertex
+	 *
+	 */
+	public int inDegree(String vertex) {
+		// returns -1 if the vertex is null or not in the graph
+		GraphNode<String> node = findVertex(vertex);
+		if (node == null) {
+			return -1;
+		}
+		return node.getDependents().size();
 	}
 
 	/**
@@ -343,7 +635,690 @@ public class Graph implements GraphADT {
 		return degree;
 	}
 
+	/**
+	 * Returns the number of changes made to the vertices and edges of this graph.
+	 * Every vertex or edge that is added or removed increases it, and nothing
+	 * else does, so a result computed from the graph is still valid as long as
+	 * the count is the same.
+	 * 
+	 * @return the modification count of the graph
+	 */
+	public long getModificationCount() {
+		return modCount;
+	}
+
+	/**
+	 * Returns the integer id of the input vertex. The id is the index of the vertex
+	 * in the edge storage and stays the same for as long as the vertex is in
+	 * the graph.
+	 * 
+	 * @param vertex - the vertex to be found in the graph.
+	 * @return the id of the vertex, -1 if it is null or not in the graph.
+	 */
+	public int indexOf(String vertex) {
+		// looks up the node in the name index
+		GraphNode<String> node = findVertex(vertex);
+		if (node == null) {
+			return -1;
+		}
+		return node.getIndex();
+	}
+
+	/**
+	 * Returns the vertex that has the input integer id.
+	 * 
+	 * @param index - the id of the vertex
+	 * @return the vertex with that id, null if no vertex has that id.
+	 */
+	public String vertexAt(int index) {
+		// returns null if the id is not within the id table or is free
+		GraphNode<String> node = nodeAt(index);
+		return node == null ? null : node.getVertex();
+	}
+
+	/**
+	 * Returns the number of ids in the id table. Every id is between 0 and
+	 * capacity() - 1, but the ids freed by removeVertex have no vertex.
+	 * 
+	 * @return the size of the id table
+	 */
+	@Override
+	public int capacity() {
+		return idTable.size();
+	}
+
+	/**
+	 * Returns the number of dependencies of the vertex with the given id
+	 * 
+	 * @param index - the id of the vertex
+	 * @return the number of its neighbors, 0 if no vertex has the id
+	 */
+	@Override
+	public int outDegree(int index) {
+		GraphNode<String> node = nodeAt(index);
+		return node == null ? 0 : node.getNeighbors().size();
+	}
+
+	/**
+	 * Returns the id of one neighbor of the vertex with the given id, in the same
+	 * order as getAdjacentVerticesOf
+	 * 
+	 * @param index    - the id of the vertex
+	 * @param position - the position of the neighbor, from 0 to outDegree - 1
+	 * @return the id of the neighbor
+	 */
+	@Override
+	public int neighborAt(int index, int position) {
+		return idTable.get(index).getNeighbors().get(position).getIndex();
+	}
+
+	/**
+	 * Returns the number of dependents of the vertex with the given id
+	 * 
+	 * @param index - the id of the vertex
+	 * @return the number of vertices with an edge to it, 0 if no vertex has the id
+	 */
+	@Override
+	public int inDegree(int index) {
+		GraphNode<String> node = nodeAt(index);
+		return node == null ? 0 : node.getDependents().size();
+	}
+
+	/**
+	 * Returns the id of one dependent of the vertex with the given id, in the same
+	 * order as getDependentsOf
+	 * 
+	 * @param index    - the id of the vertex
+	 * @param position - the position of the dependent, from 0 to inDegree - 1
+	 * @return the id of the dependent
+	 */
+	@Override
+	public int dependentAt(int index, int position) {
+		return idTable.get(index).getDependents().get(position).getIndex();
+	}
+
+	/**
+	 * Makes an immutable Compressed Sparse Row snapshot of the graph. The snapshot
+	 * keeps the ids of the vertices and the order of their dependencies, and it
+	 * is not affected by any later changes to this graph.
+	 * 
+	 * @return the FrozenGraph of the current vertices and edges
+	 */
+	public FrozenGraph freeze() {
+		int capacity = idTable.size();
+		String[] names = new String[capacity];
+		int[] offsets = new int[capacity + 1];
+
+		// first pass counts the edges of every id to find where its targets start
+		int count = 0;
+		for (int id = 0; id < capacity; id++) {
+			offsets[id] = count;
+			GraphNode<String> node = idTable.get(id);
+			if (node != null) {
+				names[id] = node.getVertex();
+				count += node.getNeighbors().size();
+			}
+		}
+		offsets[capacity] = count;
+
+		// second pass fills in the targets of every id in the order they were added
+		int[] targets = new int[count];
+		int next = 0;
+		for (int id = 0; id < capacity; id++) {
+			GraphNode<String> node = idTable.get(id);
+			if (node != null) {
+				for (GraphNode<String> neighbor : node.getNeighbors()) {
+					targets[next++] = neighbor.getIndex();
+				}
+			}
+		}
+
+		return new FrozenGraph(names, offsets, targets);
+	}
+
+	/**
+	 * Publishes the current version of the graph and returns it. The first call
+	 * copies the graph into a ConcurrentGraph, and from then on every change is
+	 * recorded and the next call replays the changes since the last one on the
+	 * copy as a single write. Unchanged pages and adjacency arrays are shared
+	 * with the version before, so publishing costs about as much as the changes
+	 * did, and nothing is published if the graph did not change. If more changes
+	 * pile up than the graph has vertices and edges, the record is dropped and
+	 * the next call copies the graph again instead. The new version replaces the
+	 * old one in a single atomic swap, so readers calling publishedSnapshot() see
+	 * either the whole old version or the whole new one. Like the mutators, this
+	 * must be called by the thread that changes the graph.
+	 * 
+	 * The version has the same vertices and edges as the graph, in the same
+	 * order, but its ids are its own: use freeze() for a snapshot with the ids
+	 * of the graph.
+	 * 
+	 * @return the read-only version of the current vertices and edges
+	 */
+	public ConcurrentGraph.Version snapshot() {
+		if (mirror == null) {
+			mirror = copy();
+			unpublished = new ArrayList<Mutation>();
+			published.set(mirror.snapshot());
+		} else if (!unpublished.isEmpty()) {
+			mirror.applyBatch(unpublished);
+			unpublished = new ArrayList<Mutation>();
+			published.set(mirror.snapshot());
+		}
+		return published.get();
+	}
+
+	/**
+	 * Returns the version last published by snapshot(). It can be called from any
+	 * thread while another thread changes the graph, without locks. The version
+	 * never changes, so a long query can run on it from start to end, and it is
+	 * garbage collected once it has been replaced and no reader holds it.
+	 * 
+	 * @return the read-only version published last, empty if none has been
+	 */
+	public ConcurrentGraph.Version publishedSnapshot() {
+		return published.get();
+	}
+
+	/**
+	 * Builds a Graph from a snapshot made by freeze(), or read back by
+	 * GraphSnapshot. Every vertex gets the id it has in the snapshot and keeps its
+	 * dependencies in the same order, and the ids without a vertex are free to be
+	 * given to new vertices. The edges are linked by id, so no vertex name is
+	 * looked up while they are added.
+	 * 
+	 * @param snapshot - the snapshot to copy
+	 * @return a new Graph that stores its edges in a SparseAdjacency
+	 */
+	public static Graph thaw(FrozenGraph snapshot) {
+		Graph graph = new Graph();
+		int capacity = snapshot.capacity();
+
+		// creates the node of every id, in the order of the ids
+		for (int id = 0; id < capacity; id++) {
+			graph.idTable.add(null);
+			String vertex = snapshot.vertexAt(id);
+			if (vertex == null) {
+				graph.freeIndices.add(id);// the id was free in the frozen graph too
+			} else {
+				GraphNode<String> node = graph.new GraphNode<String>(vertex, id);
+				graph.vertMap.put(vertex, node);
+				graph.idTable.set(id, node);
+				graph.degree++;
+			}
+		}
+		graph.ensureRoom(capacity);
+
+		// links every node to its dependencies in the order they were added
+		for (int id = 0; id < capacity; id++) {
+			GraphNode<String> fromNode = graph.idTable.get(id);
+			for (int edge = snapshot.firstNeighbor(id); edge < snapshot.endNeighbor(id); edge++) {
+				graph.linkNodes(fromNode, graph.idTable.get(snapshot.neighborAt(edge)));
+			}
+		}
+
+		return graph;
+	}
+
+	/**
+	 * Renumbers the vertices so their ids go from 0 to order() - 1 and shrinks the
+	 * edge storage to match. Ids freed by removeVertex are normally reused by the
+	 * next vertices added, so this is only needed to give memory back after many
+	 * vertices have been removed. Every id returned by indexOf before the call is
+	 * invalid after it.
+	 */
+	public void compact() {
+		// nothing to do if no ids have been freed
+		if (freeIndices.isEmpty()) {
+			return;
+		}
+
+		// collects every stored edge as its pair of nodes before the ids change
+		List<GraphNode<String>> edgeFrom = new ArrayList<GraphNode<String>>();
+		List<GraphNode<String>> edgeTo = new ArrayList<GraphNode<String>>();
+		for (GraphNode<String> node : vertMap.values()) {
+			for (GraphNode<String> neighbor : node.getNeighbors()) {
+				if (edges.hasEdge(node.getIndex(), neighbor.getIndex())) {
+					edgeFrom.add(node);
+					edgeTo.add(neighbor);
+				}
+			}
+		}
+
+		// gives the vertices new ids in insertion order
+		idTable = new ArrayList<GraphNode<String>>(degree);
+		for (GraphNode<String> node : vertMap.values()) {
+			node.AMindex = idTable.size();
+			idTable.add(node);
+		}
+		freeIndices.clear();
+
+		// stores the edges again with the new ids
+		edges.clear(degree);
+		room = degree;
+		for (int i = 0; i < edgeFrom.size(); i++) {
+			edges.addEdge(edgeFrom.get(i).getIndex(), edgeTo.get(i).getIndex());
+		}
+
+		// anything the listeners kept by id is now out of date
+		for (GraphListener listener : listeners) {
+			listener.verticesRenumbered();
+		}
+
+		if (checksEnabled) {
+			checkConsistency();
+		}
+	}
+
+	/**
+	 * Registers a listener that is told about every change to the dependencies of
+	 * the vertices of this graph.
+	 * 
+	 * @param listener - the listener to add
+	 */
+	public void addListener(GraphListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Unregisters a listener added with addListener.
+	 * 
+	 * @param listener - the listener to remove
+	 */
+	public void removeListener(GraphListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Adds every vertex and edge of another graph to this one. Vertices that are
+	 * already in this graph are shared, and the new vertices are added in the
+	 * order the other graph added them, so merging graphs built from several
+	 * files gives the same graph as loading the files one after another.
+	 *
+	 * @param other - the graph to copy the vertices and edges from, which is not
+	 *              changed
+	 * @throws IllegalArgumentException if other is this graph
+	 */
+	public void merge(Graph other) {
+		if (other == this) {
+			throw new IllegalArgumentException("a graph cannot be merged into itself");
+		}
+
+		// adds the vertices first so they get ids in the order the other graph added
+		// them, even the ones that only appear there as a dependency, and keeps the
+		// node each id of the other graph maps to so no name is looked up twice
+		List<GraphNode<String>> mapped = new ArrayList<GraphNode<String>>(other.idTable.size());
+		for (int i = 0; i < other.idTable.size(); i++) {
+			mapped.add(null);
+		}
+		for (GraphNode<String> node : other.vertMap.values()) {
+			addVertex(node.getVertex());
+			mapped.set(node.getIndex(), findVertex(node.getVertex()));
+		}
+
+		// then adds the dependencies of every vertex in the order they were added
+		for (GraphNode<String> node : other.vertMap.values()) {
+			GraphNode<String> fromNode = mapped.get(node.getIndex());
+			for (GraphNode<String> neighbor : node.getNeighbors()) {
+				linkNodes(fromNode, mapped.get(neighbor.getIndex()));
+			}
+		}
+	}
+
+	/**
+	 * Turns checkConsistency on or off after every change to the graph. The
+	 * checks take time proportional to the whole graph, so they are meant for
+	 * tests and debugging. They start on if the graph.checkConsistency system
+	 * property is true.
+	 * 
+	 * @param enabled - true to check the graph after every change
+	 */
+	public void setConsistencyChecks(boolean enabled) {
+		checksEnabled = enabled;
+	}
+
+	/**
+	 * Sets where the graph counts its vertex lookups, storage resizes and edge
+	 * reads. PackageManager sets this when its metrics are turned on.
+	 * 
+	 * @param metrics - the metrics to count in, null to stop counting
+	 */
+	public void setMetrics(Metrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Checks that the name index, the id table, the free ids, the edge storage
+	 * and the neighbor and dependent lists of every node all describe the same
+	 * graph: every edge is stored once, appears once in the neighbors of where it
+	 * comes from and once in the dependents of where it goes, and size() is the
+	 * number of those edges.
+	 * 
+	 * @throws IllegalStateException describing the first difference found
+	 */
+	public void checkConsistency() {
+		// every node is in the name index and the id table under its own name and id
+		if (vertMap.size() != degree) {
+			throw inconsistent(degree + " vertices counted but " + vertMap.size() + " in the name index");
+		}
+		for (GraphNode<String> node : vertMap.values()) {
+			int id = node.getIndex();
+			if (id < 0 || id >= idTable.size() || idTable.get(id) != node) {
+				throw inconsistent(node.getVertex() + " is not in the id table at id " + id);
+			}
+		}
+
+		// every other slot of the id table is free, and free only once
+		Set<Integer> free = new HashSet<Integer>(freeIndices);
+		if (free.size() != freeIndices.size() || free.size() + degree != idTable.size()) {
+			throw inconsistent(freeIndices.size() + " free ids for " + (idTable.size() - degree) + " empty slots");
+		}
+		for (int id : free) {
+			if (idTable.get(id) != null) {
+				throw inconsistent("free id " + id + " belongs to " + idTable.get(id).getVertex());
+			}
+		}
+
+		// every edge is stored once and is in the lists at both of its ends
+		int edgeCount = 0;
+		for (GraphNode<String> node : vertMap.values()) {
+			Set<GraphNode<String>> seen = new HashSet<GraphNode<String>>();
+			for (GraphNode<String> neighbor : node.getNeighbors()) {
+				String edge = node.getVertex() + " -> " + neighbor.getVertex();
+				if (!seen.add(neighbor)) {
+					throw inconsistent("the edge " + edge + " is listed twice");
+				}
+				if (vertMap.get(neighbor.getVertex()) != neighbor) {
+					throw inconsistent("the edge " + edge + " goes to a removed vertex");
+				}
+				if (!edges.hasEdge(node.getIndex(), neighbor.getIndex())) {
+					throw inconsistent("the edge " + edge + " is not in the edge storage");
+				}
+				if (!neighbor.getDependents().contains(node)) {
+					throw inconsistent("the edge " + edge + " is not in the dependents of " + neighbor.getVertex());
+				}
+			}
+			for (GraphNode<String> dependent : node.getDependents()) {
+				if (!dependent.getNeighbors().contains(node)) {
+					throw inconsistent(dependent.getVertex() + " is a dependent of " + node.getVertex()
+							+ " without an edge to it");
+				}
+			}
+			if (node.getDependents().size() != new HashSet<GraphNode<String>>(node.getDependents()).size()) {
+				throw inconsistent("a dependent of " + node.getVertex() + " is listed twice");
+			}
+			edgeCount += node.getNeighbors().size();
+		}
+		if (edgeCount != size) {
+			throw inconsistent(size + " edges counted but " + edgeCount + " in the neighbor lists");
+		}
+	}
+
 	// private helper methods
+	/**
+	 * Builds the exception thrown by checkConsistency
+	 * 
+	 * @param problem - what is wrong with the graph
+	 * @return the exception to throw
+	 */
+	private static IllegalStateException inconsistent(String problem) {
+		return new IllegalStateException("graph is inconsistent: " + problem);
+	}
+
+	/**
+	 * Tells every listener that the dependencies of the vertex with the given id
+	 * are about to change.
+	 * 
+	 * @param index - the id of the vertex
+	 */
+	private void fireDependenciesChanged(int index) {
+		// applyBatch has already told the listeners about every change it makes
+		if (batching) {
+			return;
+		}
+		for (int i = 0; i < listeners.size(); i++) {
+			listeners.get(i).dependenciesChanged(index);
+		}
+	}
+
+	/**
+	 * Returns the node of a vertex, adding the vertex first if it is not in the
+	 * graph.
+	 * 
+	 * @param vertex - the vertex, which is not null
+	 * @return the node of the vertex
+	 */
+	private GraphNode<String> findOrAddVertex(String vertex) {
+		GraphNode<String> node = vertMap.get(vertex);
+		if (metrics != null) {
+			metrics.countLookup();
+		}
+		if (node != null) {
+			return node;
+		}
+
+		GraphMutationEvent event = new GraphMutationEvent();
+		event.begin();
+
+		// Creates a new GraphNode object of type String and adds it to the name index
+		// and the id table of the vertices
+		node = new GraphNode<String>(vertex, allocateIndex());
+		vertMap.put(vertex, node);
+		idTable.set(node.getIndex(), node);
+		degree++;
+		modCount++;
+
+		// makes room in the edge storage for the id of the new node
+		ensureRoom(idTable.size());
+		record(Mutation.Kind.ADD_VERTEX, vertex, null);
+		commitMutation(event, Mutation.Kind.ADD_VERTEX, vertex, null);
+
+		if (checksEnabled && !batching) {
+			checkConsistency();
+		}
+		return node;
+	}
+
+	/**
+	 * Makes sure the id table and the edge storage have room for the given number
+	 * of ids, at least doubling the room whenever it runs out so a graph of n
+	 * vertices only grows its storage O(log n) times
+	 * 
+	 * @param ids - the number of ids that need room
+	 */
+	private void ensureRoom(int ids) {
+		if (ids <= room) {
+			return;
+		}
+		StorageResizeEvent event = new StorageResizeEvent();
+		event.begin();
+		int fromIds = room;
+
+		room = Math.max(ids, room * 2);
+		idTable.ensureCapacity(room);
+		edges.ensureCapacity(room);
+		if (metrics != null) {
+			metrics.countResize();
+		}
+
+		if (event.shouldCommit()) {
+			event.storage = edges.getClass().getSimpleName();
+			event.fromIds = fromIds;
+			event.toIds = room;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Records a change to the graph in Java Flight Recorder, if the event is
+	 * enabled and took longer than its threshold
+	 * 
+	 * @param event   - the event, begun before the change
+	 * @param kind    - the kind of change
+	 * @param vertex1 - the vertex, or the vertex the edge comes from
+	 * @param vertex2 - the vertex the edge goes to, null for vertex changes
+	 */
+	private void commitMutation(GraphMutationEvent event, Mutation.Kind kind, String vertex1, String vertex2) {
+		if (event.shouldCommit()) {
+			event.operation = kind.name();
+			event.vertex1 = vertex1;
+			event.vertex2 = vertex2;
+			event.order = degree;
+			event.size = size;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Records a change for the next snapshot() to replay on the mirror. Nothing is
+	 * recorded until there is a mirror, and once replaying the record would cost
+	 * more than copying the graph again, the mirror is dropped.
+	 * 
+	 * @param kind    - the kind of change
+	 * @param vertex1 - the vertex, or the vertex the edge comes from
+	 * @param vertex2 - the vertex the edge goes to, null for vertex changes
+	 */
+	private void record(Mutation.Kind kind, String vertex1, String vertex2) {
+		if (mirror == null) {
+			return;
+		}
+		if (unpublished.size() > degree + size) {
+			mirror = null;
+			unpublished = new ArrayList<Mutation>();
+			return;
+		}
+		switch (kind) {
+		case ADD_VERTEX:
+			unpublished.add(Mutation.addVertex(vertex1));
+			break;
+		case REMOVE_VERTEX:
+			unpublished.add(Mutation.removeVertex(vertex1));
+			break;
+		case ADD_EDGE:
+			unpublished.add(Mutation.addEdge(vertex1, vertex2));
+			break;
+		default:
+			unpublished.add(Mutation.removeEdge(vertex1, vertex2));
+			break;
+		}
+	}
+
+	/**
+	 * Copies the vertices and edges of the graph into a new ConcurrentGraph as a
+	 * single write, keeping the order of the vertices and of their dependencies
+	 * 
+	 * @return the copy
+	 */
+	private ConcurrentGraph copy() {
+		List<Mutation> all = new ArrayList<Mutation>(degree + size);
+		for (GraphNode<String> node : vertMap.values()) {
+			all.add(Mutation.addVertex(node.getVertex()));
+		}
+		for (GraphNode<String> node : vertMap.values()) {
+			for (GraphNode<String> neighbor : node.getNeighbors()) {
+				all.add(Mutation.addEdge(node.getVertex(), neighbor.getVertex()));
+			}
+		}
+		ConcurrentGraph copy = new ConcurrentGraph();
+		copy.applyBatch(all);
+		return copy;
+	}
+
+	/**
+	 * Counts edges that were read, if metrics are on
+	 * 
+	 * @param count - the number of edges
+	 */
+	private void countEdgesVisited(int count) {
+		if (metrics != null) {
+			metrics.countEdgesVisited(count);
+		}
+	}
+
+	/**
+	 * Makes room in the id table and the edge storage for a number of new
+	 * vertices, so adding them doesn't grow either more than once.
+	 * 
+	 * @param vertices - the number of vertices about to be added
+	 */
+	private void reserve(int vertices) {
+		// the new vertices use the free ids first
+		ensureRoom(idTable.size() + Math.max(0, vertices - freeIndices.size()));
+	}
+
+	/**
+	 * Adds a vertex to a set if it is not null and not in the graph
+	 * 
+	 * @param added  - the set of new vertices
+	 * @param vertex - the vertex
+	 */
+	private void addIfNew(Set<String> added, String vertex) {
+		if (vertex != null && !vertExist(vertex)) {
+			added.add(vertex);
+		}
+	}
+
+	/**
+	 * Adds the edge from one node to another, both already in the graph.
+	 * 
+	 * @param fromNode - the node the edge comes from
+	 * @param toNode   - the node the edge goes to
+	 */
+	private void linkNodes(GraphNode<String> fromNode, GraphNode<String> toNode) {
+		int fromInd = fromNode.getIndex();// edge comes from this index
+		int toInd = toNode.getIndex();// edge goes to this index
+
+		// the edge storage is a set, so an edge that is already stored is not added
+		// to the lists again and isn't counted twice
+		if (edges.hasEdge(fromInd, toInd)) {
+			return;
+		}
+		GraphMutationEvent event = new GraphMutationEvent();
+		event.begin();
+
+		// tells the listeners that the dependencies of fromNode are changing
+		fireDependenciesChanged(fromInd);
+
+		// stores the edge from the fromInd to the toInd
+		edges.addEdge(fromInd, toInd);
+		size++;// increments the amount of edges in the list
+		modCount++;
+
+		// adds toNode to the adjacency list of fromNode
+		fromNode.addNeighbor(toNode);
+		record(Mutation.Kind.ADD_EDGE, fromNode.getVertex(), toNode.getVertex());
+		commitMutation(event, Mutation.Kind.ADD_EDGE, fromNode.getVertex(), toNode.getVertex());
+
+		if (checksEnabled && !batching) {
+			checkConsistency();
+		}
+	}
+
+	/**
+	 * Gives out the id for a new vertex. Ids freed by removed vertices are used
+	 * first, otherwise the id table grows by one.
+	 * 
+	 * @return the id for the new vertex, with a slot for it in the id table
+	 */
+	private int allocateIndex() {
+		// reuses the id of a removed vertex if there is one
+		if (!freeIndices.isEmpty()) {
+			return freeIndices.remove();
+		}
+		idTable.add(null);// grows the id table by one slot for the new id
+		return idTable.size() - 1;
+	}
+
+	/**
+	 * Returns the node with the given id
+	 * 
+	 * @param index - the id of the node
+	 * @return the node, or null if the id is out of range or free
+	 */
+	private GraphNode<String> nodeAt(int index) {
+		return index < 0 || index >= idTable.size() ? null : idTable.get(index);
+	}
+
 	/**
 	 * Determines whether the input vertex exists in the graph or not.
 	 * 
@@ -351,15 +1326,8 @@ public class Graph implements GraphADT {
 	 * @return true if it exists in the graph, false otherwise.
 	 */
 	private boolean vertExist(String vert) {
-		// iterates through the list of vertices and compares the input vertex to the
-		// vertex in iteration
-		for (int i = 0; i < degree; i++) {
-			if (vertList.get(i).getVertex().equals(vert)) {
-				return true;// returns true if they match
-			}
-		}
-
-		return false;// returns false otherwise
+		// looks the vertex up in the name index
+		return vert != null && vertMap.containsKey(vert);
 	}
 
 	/**
@@ -369,57 +1337,46 @@ public class Graph implements GraphADT {
 	 * @return The GraphNode containing the matching vertex, null otherwise.
 	 */
 	private GraphNode<String> findVertex(String vert) {
-		// iterates through the list of vertices and compares the input vertex to the
-		// vertex in iteration
-		for (int i = 0; i < degree; i++) {
-			if (vertList.get(i).getVertex().equals(vert)) {
-				return vertList.get(i);// returns the GraphNode containing the vertex if they match
-			}
+		// looks the node up in the name index, null if the vertex isn't in the graph
+		if (vert == null) {
+			return null;
 		}
-
-		return null;// returns null otherwise
+		if (metrics != null) {
+			metrics.countLookup();
+		}
+		return vertMap.get(vert);
 	}
 
 	/**
 	 * Removes the GraphNode of the input vertex from the graph. It also removes it
-	 * from the nighborlist of each node it had in its neighbor list
+	 * from the dependent list of each node in its neighbor list, and from the
+	 * neighbor list of each node in its dependent list
 	 * 
 	 * @param vert - the vertex to be found in the graph.
 	 * @return The GraphNode being removed, null otherwise.
 	 */
 	private GraphNode<String> removeVertexHelper(String vert) {
-		// iterates through the list of vertices and compares the input vertex to the
-		// vertex in iteration.
-		for (int i = 0; i < degree; i++) {
-			if (vertList.get(i).getVertex().equals(vert)) {
-				GraphNode<String> node = vertList.remove(i);// creates a temporary variable for the node removed
-				// removes the node from the adjacency lists of other nodes it is adjacent to
-				List<GraphNode<String>> list = node.getNeighbors();
-
-				// uses a double for loop to remove the node from each other nodes list
-				for (int j = 0; j < list.size(); j++) {
-					// accesses each neighboring node and its neighbor list
-					GraphNode<String> neighb = list.get(j);
-					// accesses the neighbor list from that said neighbor
-					List<GraphNode<String>> list2 = neighb.getNeighbors();
-
-					// uses another for loop to cycle through each neighbor of the neighbor's
-					// neighbor list
-					for (int k = 0; k < list2.size(); k++) {
-						// checks if the node currently being checked is equal to the node being removed
-						// and removes it from the neighbor list if so
-						if (list2.get(k).equals(node)) {
-							list2.remove(k);
-						}
-
-					}
-				}
+		// removes the node from the name index and the id table
+		GraphNode<String> node = vertMap.remove(vert);
+		if (node == null) {
+			return null;// returns null otherwise(not in the graph)
+		}
+		idTable.set(node.getIndex(), null);
 
-				return node;// returns the node removed from the list
+		// removes the node from the dependent lists of the nodes it has an edge to
+		for (GraphNode<String> neighbor : node.getNeighbors()) {
+			if (neighbor != node) {
+				neighbor.getDependents().removeIf(other -> other == node);
+			}
+		}
+		// removes the node from the neighbor lists of the nodes that have an edge to it
+		for (GraphNode<String> dependent : node.getDependents()) {
+			if (dependent != node) {
+				dependent.getNeighbors().removeIf(other -> other == node);
 			}
 		}
 
-		return null;// returns null otherwise(not in the list)
+		return node;// returns the node removed from the graph
 	}
 	
 	public static void main(String[] args) {
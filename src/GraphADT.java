@@ -1,5 +1,8 @@
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Filename:   GraphADT.java
@@ -82,6 +85,51 @@ public interface GraphADT {
      */
     public void removeEdge(String vertex1, String vertex2);
     
+    
+    /**
+     * Add an edge from vertex1 to each vertex in a collection,
+     * in the order of the collection, the same as calling 
+     * addEdge(vertex1, vertex2) for each of them.
+     * 
+     * Implementations can override this to look vertex1 up once 
+     * and make room for all the new vertices at the same time.
+     * 
+     * @param vertex1 the vertex the edges come from (src)
+     * @param vertices the vertices the edges go to (dst)
+     */
+    public default void addEdges(String vertex1, Collection<String> vertices) {
+        for (String vertex2 : vertices) {
+            addEdge(vertex1, vertex2);
+        }
+    }
+    
+    
+    /**
+     * Apply a list of changes to this graph in order, with the 
+     * same effect as calling the method of each Mutation in turn.
+     * 
+     * The batch is all or nothing. Every Mutation is checked before 
+     * the graph is changed, so a list with a null entry changes 
+     * nothing, and a checked Mutation cannot fail by itself since 
+     * null vertices are ignored. Anything else that can fail, like 
+     * telling listeners, has to happen before the first change or 
+     * after the last one, so only a bug in the graph can leave part 
+     * of a batch in it. Implementations can override this to make 
+     * room for all the new vertices at once, or to make the whole 
+     * batch visible to other threads at once.
+     * 
+     * @param batch the changes to make
+     * @throws IllegalArgumentException if the list has a null entry
+     */
+    public default void applyBatch(List<Mutation> batch) {
+        if (batch.contains(null)) {
+            throw new IllegalArgumentException("a batch cannot contain null");
+        }
+        for (Mutation mutation : batch) {
+            mutation.applyTo(this);
+        }
+    }
+    
         
     /**
      * Returns a Set that contains all the vertices
@@ -91,6 +139,21 @@ public interface GraphADT {
     public Set<String> getAllVertices();
     
     
+    /**
+     * Returns an unmodifiable view of the vertices of this graph.
+     * 
+     * Unlike getAllVertices, implementations can return the same 
+     * view on every call and have it follow later changes to the 
+     * graph instead of copying the vertices. The default returns 
+     * an unmodifiable copy.
+     * 
+     * @return an unmodifiable Set<String> of the vertices in the graph
+     */
+    public default Set<String> vertices() {
+        return Collections.unmodifiableSet(getAllVertices());
+    }
+    
+    
     /**
      * Get all the neighbor (adjacent-dependencies) of a vertex
      * 
@@ -106,6 +169,72 @@ public interface GraphADT {
      */
     public List<String> getAdjacentVerticesOf(String vertex);
     
+    
+    /**
+     * Pass every neighbor (adjacent-dependency) of a vertex to 
+     * an action, in the same order getAdjacentVerticesOf lists them.
+     * 
+     * Unlike getAdjacentVerticesOf, implementations can do this 
+     * without building a list, so traversals that visit many 
+     * vertices should use this instead. Does nothing if the 
+     * vertex is null or not in the graph.
+     * 
+     * @param vertex the specified vertex
+     * @param action called with each neighbor of the vertex
+     */
+    public default void forEachNeighbor(String vertex, Consumer<String> action) {
+        List<String> neighbors = getAdjacentVerticesOf(vertex);
+        if (neighbors != null) {
+            neighbors.forEach(action);
+        }
+    }
+    
+
+    /**
+     * Get all the vertices that have an edge to a vertex
+     * 
+     * For the example graph, A->[B, C], D->[A, B] 
+     *     getDependentsOf(B) should return [A, D]. 
+     * 
+     * In terms of packages, this list contains the packages that 
+     * directly depend on B, which are the ones that break if B 
+     * is removed.
+     * 
+     * @param vertex the specified vertex
+     * @return an List<String> of all the vertices with an edge to the 
+     * specified vertex, null if it is not in the graph
+     */
+    public List<String> getDependentsOf(String vertex);
+    
+    
+    /**
+     * Pass every vertex that has an edge to a vertex to an 
+     * action, in the same order getDependentsOf lists them, 
+     * without building a list. Does nothing if the vertex is 
+     * null or not in the graph.
+     * 
+     * @param vertex the specified vertex
+     * @param action called with each dependent of the vertex
+     */
+    public default void forEachDependent(String vertex, Consumer<String> action) {
+        List<String> dependents = getDependentsOf(vertex);
+        if (dependents != null) {
+            dependents.forEach(action);
+        }
+    }
+    
+    
+    /**
+     * Returns the number of edges that go to a vertex.
+     * 
+     * For the example graph, A->[B, C], D->[A, B] 
+     *     inDegree(B) should return 2 and inDegree(D) should return 0. 
+     * 
+     * @param vertex the specified vertex
+     * @return number of edges to the vertex, -1 if it is not in the graph
+     */
+    public int inDegree(String vertex);
+    
 
     /**
      * Returns the number of edges in this graph.
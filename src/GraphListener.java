@@ -0,0 +1,29 @@
+/**
+ * Filename: GraphListener.java Project: p4 Authors: Max Johnson
+ * 
+ * Listener that a Graph tells about changes to its edges, so that anything
+ * cached about the dependencies of its vertices can be thrown away for only
+ * the vertices that are affected. Vertices are given by their integer ids
+ * from Graph.indexOf.
+ */
+public interface GraphListener {
+
+	/**
+	 * Called just before the dependencies of a vertex change: an edge from it is
+	 * added or removed, or the vertex itself is removed. Everything that depends
+	 * on the vertex, directly or through other vertices, is affected as well, and
+	 * can still be found with Graph.getDependentsOf when this is called.
+	 * Graph.applyBatch calls it once for every vertex the batch may change, before
+	 * it makes the first change, and not again while the changes are made.
+	 * 
+	 * @param id - the id of the vertex whose dependencies change
+	 */
+	public void dependenciesChanged(int id);
+
+	/**
+	 * Called after Graph.compact() has given the vertices new ids. Anything kept
+	 * by id is no longer valid.
+	 */
+	public void verticesRenumbered();
+
+}
@@ -0,0 +1,71 @@
+import java.util.Random;
+
+/**
+ * Filename: GraphLoadBenchmark.java Project: p4 Authors: Max Johnson
+ *
+ * Times how long it takes to load graphs of doubling size into a Graph, the
+ * same way PackageManager.constructGraph does: one addVertex per package and
+ * one addEdge per dependency, followed by a getAdjacentVerticesOf pass over
+ * every package. If the vertex lookups are constant time, the time per edge
+ * stays flat as the graph grows.
+ *
+ * Usage: java GraphLoadBenchmark [maxVertices] [dependenciesPerPackage]
+ * [sparse|dense]
+ */
+public class GraphLoadBenchmark {
+
+	// the seed of the random dependencies so every run loads the same graphs
+	private static final long SEED = 400L;
+
+	public static void main(String[] args) {
+		// the largest graph to load and how many dependencies each package has
+		int maxVertices = args.length > 0 ? Integer.parseInt(args[0]) : 8000;
+		int fanOut = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		// which edge storage backend the graphs use
+		boolean dense = args.length > 2 && args[2].equals("dense");
+
+		// loads a small graph first so the JIT has warmed up before timing
+		load(1000, fanOut, dense);
+
+		System.out.println("vertices\tedges\tload ms\tns/edge\tquery ms");
+		for (int n = 1000; n <= maxVertices; n *= 2) {
+			long[] result = load(n, fanOut, dense);
+			System.out.printf("%d\t%d\t%.1f\t%.1f\t%.1f%n", n, result[0], result[1] / 1e6,
+					(double) result[1] / result[0], result[2] / 1e6);
+		}
+	}
+
+	/**
+	 * Loads a random acyclic graph with n vertices into a new Graph. Each vertex
+	 * i depends on fanOut vertices with a smaller index.
+	 *
+	 * @param n      - the number of vertices to load
+	 * @param fanOut - the number of dependencies of each vertex
+	 * @param dense  - true to store the edges in a DenseAdjacency
+	 * @return {edges added, load time in ns, adjacency query time in ns}
+	 */
+	private static long[] load(int n, int fanOut, boolean dense) {
+		Random random = new Random(SEED);
+		Graph graph = dense ? new Graph(new DenseAdjacency()) : new Graph();
+
+		// adds the packages and their dependencies the way constructGraph does
+		long start = System.nanoTime();
+		for (int i = 0; i < n; i++) {
+			String pkg = "pkg" + i;
+			graph.addVertex(pkg);
+			for (int j = 0; j < fanOut && i > 0; j++) {
+				graph.addEdge(pkg, "pkg" + random.nextInt(i));
+			}
+		}
+		long loaded = System.nanoTime();
+
+		// reads the dependencies of every package back
+		long visited = 0;
+		for (int i = 0; i < n; i++) {
+			visited += graph.getAdjacentVerticesOf("pkg" + i).size();
+		}
+		long queried = System.nanoTime();
+
+		return new long[] { visited, loaded - start, queried - loaded };
+	}
+}
@@ -0,0 +1,44 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Filename: GraphMutationEvent.java Project: p4 Authors: Max Johnson
+ *
+ * Java Flight Recorder event for a change to a Graph: a vertex or edge that was
+ * added or removed. Loading a manifest adds a vertex and edges for every
+ * package, so by default only changes that take longer than the threshold are
+ * recorded. Lower it in the recording settings to see every change.
+ */
+@Name("p4.GraphMutation")
+@Label("Graph Mutation")
+@Category({ "p4", "Graph" })
+@Description("A vertex or edge added to or removed from a Graph")
+@Threshold("10 us")
+@StackTrace(false)
+public class GraphMutationEvent extends Event {
+
+	@Label("Operation")
+	@Description("The Mutation.Kind of the change")
+	String operation;
+
+	@Label("Vertex")
+	@Description("The vertex, or the vertex the edge comes from")
+	String vertex1;
+
+	@Label("To Vertex")
+	@Description("The vertex the edge goes to, null for vertex changes")
+	String vertex2;
+
+	@Label("Vertices")
+	@Description("The number of vertices in the graph after the change")
+	int order;
+
+	@Label("Edges")
+	@Description("The number of edges in the graph after the change")
+	int size;
+}
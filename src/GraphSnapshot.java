@@ -0,0 +1,254 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Filename: GraphSnapshot.java Project: p4 Authors: Max Johnson
+ *
+ * Reads and writes a FrozenGraph as a compact binary file, so a built graph can
+ * be loaded again without parsing any json. The file is big-endian and laid
+ * out as:
+ *
+ * <pre>
+ * int    MAGIC ("PKGS") and int VERSION
+ * int    capacity, the number of ids
+ * int    edges, the number of edges
+ * int[]  offsets, capacity + 1 entries, where the targets of every id start
+ * int[]  targets, one entry per edge, the id every edge goes to
+ * string table, for every id: int byte length (-1 if the id has no vertex)
+ *        followed by the UTF-8 bytes of its name
+ * int    CRC32 of every byte before it
+ * </pre>
+ *
+ * The int arrays come first so they can be copied out of the buffer in bulk.
+ * A snapshot keeps the ids of the vertices, so Graph.thaw(read(path)) is the
+ * same graph as the one that was frozen.
+ */
+public class GraphSnapshot {
+
+	// the first four bytes of every snapshot, "PKGS" in ASCII
+	private static final int MAGIC = 0x504B4753;
+	// the version of the layout above, increased whenever it changes
+	private static final int VERSION = 1;
+	// the number of bytes in the magic, version, capacity and edge count
+	private static final int HEADER_BYTES = 16;
+	// the number of bytes in the checksum at the end
+	private static final int CHECKSUM_BYTES = 4;
+
+	/**
+	 * Writes a snapshot of the graph to the given file, replacing it if it exists
+	 *
+	 * @param graph        - the snapshot to write
+	 * @param snapshotPath - the file to write it to
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(FrozenGraph graph, String snapshotPath) throws IOException {
+		try (OutputStream file = Files.newOutputStream(Paths.get(snapshotPath))) {
+			write(graph, file);
+		}
+	}
+
+	/**
+	 * Writes a snapshot of the graph to the given stream. The stream is flushed
+	 * but not closed.
+	 *
+	 * @param graph - the snapshot to write
+	 * @param out   - the stream to write it to
+	 * @throws IOException if the stream fails
+	 */
+	public static void write(FrozenGraph graph, OutputStream out) throws IOException {
+		CRC32 crc = new CRC32();
+		DataOutputStream data = new DataOutputStream(
+				new CheckedOutputStream(new BufferedOutputStream(out, 1 << 16), crc));
+		int capacity = graph.capacity();
+
+		// the header
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(capacity);
+		data.writeInt(graph.size());
+
+		// the offsets, then the targets of every id in order
+		for (int id = 0; id < capacity; id++) {
+			data.writeInt(graph.firstNeighbor(id));
+		}
+		data.writeInt(graph.size());
+		for (int id = 0; id < capacity; id++) {
+			for (int edge = graph.firstNeighbor(id); edge < graph.endNeighbor(id); edge++) {
+				data.writeInt(graph.neighborAt(edge));
+			}
+		}
+
+		// the string table
+		for (int id = 0; id < capacity; id++) {
+			String name = graph.vertexAt(id);
+			if (name == null) {
+				data.writeInt(-1);
+			} else {
+				byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+				data.writeInt(bytes.length);
+				data.write(bytes);
+			}
+		}
+
+		// the checksum covers everything written so far, so it isn't included itself
+		data.writeInt((int) crc.getValue());
+		data.flush();
+	}
+
+	/**
+	 * Reads a snapshot by reading the whole file onto the heap
+	 *
+	 * @param snapshotPath - the snapshot file
+	 * @return the graph in the snapshot
+	 * @throws IOException if the file cannot be read, or it is not a valid
+	 *                     snapshot of this version
+	 */
+	public static FrozenGraph read(String snapshotPath) throws IOException {
+		return read(ByteBuffer.wrap(Files.readAllBytes(Paths.get(snapshotPath))));
+	}
+
+	/**
+	 * Reads a snapshot by memory-mapping the file, so its bytes are paged in by
+	 * the operating system instead of copied through a stream
+	 *
+	 * @param snapshotPath - the snapshot file
+	 * @return the graph in the snapshot
+	 * @throws FileNotFoundException if the file does not exist
+	 * @throws IOException           if the file cannot be mapped, or it is not a
+	 *                               valid snapshot of this version
+	 */
+	public static FrozenGraph map(String snapshotPath) throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(snapshotPath, "r");
+				FileChannel channel = file.getChannel()) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException(snapshotPath + " is too large to map: " + size + " bytes");
+			}
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+		}
+	}
+
+	/**
+	 * Reads a snapshot from the bytes between the position and the limit of the
+	 * buffer
+	 *
+	 * @param bytes - the snapshot
+	 * @return the graph in the snapshot
+	 * @throws IOException if the bytes are not a valid snapshot of this version
+	 */
+	public static FrozenGraph read(ByteBuffer bytes) throws IOException {
+		ByteBuffer buffer = bytes.slice();
+		if (buffer.remaining() < HEADER_BYTES + CHECKSUM_BYTES) {
+			throw new IOException("snapshot is truncated");
+		}
+
+		// checks the header before trusting any of the sizes in it
+		if (buffer.getInt() != MAGIC) {
+			throw new IOException("not a graph snapshot");
+		}
+		int version = buffer.getInt();
+		if (version != VERSION) {
+			throw new IOException("snapshot version " + version + " is not supported, expected " + VERSION);
+		}
+
+		// checks the checksum of everything before the last four bytes
+		int end = buffer.limit() - CHECKSUM_BYTES;
+		CRC32 crc = new CRC32();
+		ByteBuffer checked = buffer.duplicate();
+		checked.position(0).limit(end);
+		crc.update(checked);
+		if ((int) crc.getValue() != buffer.getInt(end)) {
+			throw new IOException("snapshot checksum does not match");
+		}
+		buffer.limit(end);
+
+		try {
+			int capacity = buffer.getInt();
+			int edgeCount = buffer.getInt();
+			if (capacity < 0 || edgeCount < 0) {
+				throw new IOException("snapshot has a negative size");
+			}
+			if ((capacity + 1L + edgeCount) * Integer.BYTES > buffer.remaining()) {
+				throw new IOException("snapshot is truncated");
+			}
+
+			// copies the int arrays out in bulk
+			int[] offsets = new int[capacity + 1];
+			int[] targets = new int[edgeCount];
+			buffer.asIntBuffer().get(offsets).get(targets);
+			buffer.position(buffer.position() + (offsets.length + targets.length) * Integer.BYTES);
+
+			// decodes the name of every id
+			String[] names = new String[capacity];
+			for (int id = 0; id < capacity; id++) {
+				int length = buffer.getInt();
+				if (length > buffer.remaining()) {
+					throw new IOException("snapshot is truncated");
+				} else if (length >= 0) {
+					byte[] name = new byte[length];
+					buffer.get(name);
+					names[id] = new String(name, StandardCharsets.UTF_8);
+				}
+			}
+			if (buffer.hasRemaining()) {
+				throw new IOException("snapshot has extra bytes after the string table");
+			}
+
+			checkEdges(names, offsets, targets);
+			FrozenGraph graph = new FrozenGraph(names, offsets, targets);
+
+			// two ids with the same name would collapse into one vertex
+			int named = 0;
+			for (String name : names) {
+				if (name != null) {
+					named++;
+				}
+			}
+			if (graph.order() != named) {
+				throw new IOException("snapshot has the same name for two ids");
+			}
+			return graph;
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			throw new IOException("snapshot is truncated", e);
+		}
+	}
+
+	/**
+	 * Checks that the offsets and targets of a snapshot describe edges between
+	 * ids that have a vertex
+	 *
+	 * @param names   - the vertex of every id
+	 * @param offsets - where the targets of every id start
+	 * @param targets - the ids every edge goes to
+	 * @throws IOException if any offset or target is out of place
+	 */
+	private static void checkEdges(String[] names, int[] offsets, int[] targets) throws IOException {
+		if (offsets[0] != 0 || offsets[names.length] != targets.length) {
+			throw new IOException("snapshot offsets do not cover the edges");
+		}
+		for (int id = 0; id < names.length; id++) {
+			// offsets can't go backwards, and an id without a vertex has no edges
+			if (offsets[id + 1] < offsets[id] || (names[id] == null && offsets[id + 1] != offsets[id])) {
+				throw new IOException("snapshot offsets of id " + id + " are not valid");
+			}
+		}
+		for (int target : targets) {
+			if (target < 0 || target >= names.length || names[target] == null) {
+				throw new IOException("snapshot has an edge to id " + target + ", which has no vertex");
+			}
+		}
+	}
+
+}
@@ -0,0 +1,87 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests writing and reading binary graph snapshots.
+ * 
+ * Written By Max Johnson
+ */
+public class GraphSnapshotTest {
+
+	/**
+	 * Writes a snapshot of the graph into a byte array
+	 * 
+	 * @param graph - the graph to write
+	 * @return the bytes of the snapshot
+	 */
+	private static byte[] write(Graph graph) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		GraphSnapshot.write(graph.freeze(), out);
+		return out.toByteArray();
+	}
+
+	/** Tests that a graph read back from a snapshot is the same graph */
+	@Test
+	public void test00_testRoundTrip() {
+		// a removed vertex leaves a free id in the middle of the snapshot
+		Graph graph = new Graph();
+		graph.addEdge("A", "B");
+		graph.addEdge("A", "C");
+		graph.addEdge("C", "D");
+		graph.addEdge("B", "D");
+		graph.removeVertex("B");
+		try {
+			Graph copy = Graph.thaw(GraphSnapshot.read(ByteBuffer.wrap(write(graph))));
+			if (copy.order() != 3 || copy.size() != 2 || copy.indexOf("D") != graph.indexOf("D")
+					|| !copy.getAdjacentVerticesOf("A").equals(graph.getAdjacentVerticesOf("A"))
+					|| !copy.getDependentsOf("D").equals(graph.getDependentsOf("D"))) {
+				fail("ERROR: The graph read back from the snapshot is different");
+			}
+
+			// the free id should be reused by the next vertex
+			copy.addVertex("E");
+			if (copy.indexOf("E") != 1) {
+				fail("ERROR: The free id of the snapshot was not reused");
+			}
+		} catch (IOException e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+	}
+
+	/** Tests that a corrupted or truncated snapshot is rejected */
+	@Test
+	public void test01_testCorruptSnapshot() {
+		Graph graph = new Graph();
+		graph.addEdge("A", "B");
+		byte[] bytes = null;
+		try {
+			bytes = write(graph);
+		} catch (IOException e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+
+		// flips a bit of the string table
+		byte[] flipped = bytes.clone();
+		flipped[flipped.length - 6] ^= 1;
+		try {
+			GraphSnapshot.read(ByteBuffer.wrap(flipped));
+			fail("ERROR: A snapshot with a wrong checksum was read");
+		} catch (IOException e) {
+			// expected
+		}
+
+		// cuts off the last byte
+		try {
+			GraphSnapshot.read(ByteBuffer.wrap(bytes, 0, bytes.length - 1));
+			fail("ERROR: A truncated snapshot was read");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+}
@@ -1,7 +1,9 @@
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.Set;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
@@ -135,4 +137,328 @@ public class GraphTest {
 			fail("ERROR: The listfor all the vertices was empty");
 		}
 	}
+
+	/** Tests if the vertex index finds vertices by name and by id **/
+	@Test
+	public void test05_testVertexIndex() {
+		// adds all of these strings to the graph
+		graph.addVertex("A");
+		graph.addVertex("B");
+		graph.addEdge("A", "C");
+
+		// every vertex should map to an id and back to the same vertex
+		for (String vertex : new String[] { "A", "B", "C" }) {
+			int id = graph.indexOf(vertex);
+			if (id < 0 || !vertex.equals(graph.vertexAt(id))) {
+				fail("ERROR: The vertex " + vertex + " was not indexed correctly");
+			}
+		}
+
+		// a removed vertex should no longer be found by name or by id
+		int id = graph.indexOf("B");
+		graph.removeVertex("B");
+		if (graph.indexOf("B") != -1 || graph.vertexAt(id) != null) {
+			fail("ERROR: The removed vertex was still in the index");
+		}
+	}
+
+	/** Tests if the sparse and dense edge storage give the same graph **/
+	@Test
+	public void test06_testStorageBackends() {
+		Graph dense = new Graph(new DenseAdjacency());
+
+		// adds the same edges to both graphs, enough to grow the dense matrix
+		for (int i = 1; i < 250; i++) {
+			graph.addEdge("v" + i, "v" + (i / 2));
+			dense.addEdge("v" + i, "v" + (i / 2));
+		}
+		graph.removeEdge("v3", "v1");
+		dense.removeEdge("v3", "v1");
+		graph.removeVertex("v2");
+		dense.removeVertex("v2");
+
+		// checks that both graphs have the same vertices and edges
+		if (graph.order() != dense.order() || graph.size() != dense.size()) {
+			fail("ERROR: The storage backends have a different order or size");
+		}
+		for (String vertex : graph.getAllVertices()) {
+			if (!graph.getAdjacentVerticesOf(vertex).equals(dense.getAdjacentVerticesOf(vertex))) {
+				fail("ERROR: The storage backends have different edges for " + vertex);
+			}
+		}
+	}
+
+	/** Tests if two graphs keep their own ids and removed ids are reused **/
+	@Test
+	public void test07_testIndexAllocation() {
+		Graph other = new Graph();
+
+		// adds vertices to both graphs one after the other
+		graph.addEdge("A", "B");
+		other.addEdge("X", "Y");
+		graph.addEdge("B", "C");
+
+		// the second graph should not have moved the ids of the first
+		if (graph.indexOf("C") != 2 || other.indexOf("Y") != 1) {
+			fail("ERROR: The graphs share their vertex ids");
+		}
+
+		// the id of a removed vertex should go to the next vertex added
+		int removed = graph.indexOf("B");
+		graph.removeVertex("B");
+		graph.addVertex("D");
+		if (graph.indexOf("D") != removed) {
+			fail("ERROR: The id of the removed vertex was not reused");
+		}
+
+		// compacting should keep the edges but give the vertices ids 0 to order - 1
+		graph.removeVertex("A");
+		graph.addEdge("D", "C");
+		graph.compact();
+		if (graph.indexOf("C") != 0 || graph.indexOf("D") != 1 || graph.size() != 1
+				|| !graph.getAdjacentVerticesOf("D").contains("C")) {
+			fail("ERROR: The graph was not compacted correctly");
+		}
+	}
+
+	/** Tests if freeze() makes a snapshot that doesn't change with the graph **/
+	@Test
+	public void test08_testFreeze() {
+		// adds the edges from valid.json to the graph
+		graph.addEdge("A", "B");
+		graph.addEdge("B", "C");
+		graph.addEdge("B", "D");
+		graph.addEdge("E", "B");
+
+		FrozenGraph frozen = graph.freeze();
+
+		// the snapshot should have the same vertices and dependencies in the same order
+		if (frozen.order() != 5 || frozen.size() != 4
+				|| !frozen.getAdjacentVerticesOf("B").equals(graph.getAdjacentVerticesOf("B"))) {
+			fail("ERROR: The snapshot does not match the graph");
+		}
+
+		// changing the graph should not change the snapshot
+		graph.removeEdge("B", "C");
+		if (frozen.outDegree(frozen.indexOf("B")) != 2) {
+			fail("ERROR: The snapshot changed with the graph");
+		}
+	}
+
+	/** Tests if the graph keeps track of the dependents of each vertex **/
+	@Test
+	public void test09_testDependents() {
+		// adds the example graph A->[B, C], D->[A, B]
+		graph.addEdge("A", "B");
+		graph.addEdge("A", "C");
+		graph.addEdge("D", "A");
+		graph.addEdge("D", "B");
+
+		// checks the dependents and in-degree of B and D
+		if (!graph.getDependentsOf("B").equals(Arrays.asList("A", "D")) || graph.inDegree("B") != 2
+				|| graph.inDegree("D") != 0) {
+			fail("ERROR: The dependents of the vertices are wrong");
+		}
+
+		// removing A should remove it from the neighbors of D and the dependents of B
+		graph.removeVertex("A");
+		if (graph.getAdjacentVerticesOf("D").contains("A") || graph.getDependentsOf("B").contains("A")
+				|| graph.inDegree("C") != 0 || graph.size() != 1) {
+			fail("ERROR: The edges of the removed vertex were not removed");
+		}
+	}
+
+	/** Tests if merge() adds the vertices and edges of another graph **/
+	@Test
+	public void test10_testMerge() {
+		// the two graphs share the package B
+		graph.addEdge("A", "B");
+		Graph other = new Graph();
+		other.addEdge("C", "B");
+		other.addEdge("B", "D");
+
+		graph.merge(other);
+
+		// B should be a single vertex with the dependents and neighbors of both
+		if (graph.order() != 4 || graph.size() != 3
+				|| !graph.getDependentsOf("B").equals(Arrays.asList("A", "C"))
+				|| !graph.getAdjacentVerticesOf("B").equals(Arrays.asList("D"))) {
+			fail("ERROR: The merged graph is wrong");
+		}
+
+		// the other graph should not change
+		if (other.order() != 3 || other.size() != 2) {
+			fail("ERROR: merge() changed the graph it was merging from");
+		}
+	}
+
+	/** Tests if addEdges() and applyBatch() make the same changes as single calls **/
+	@Test
+	public void test11_testBatch() {
+		graph.addEdges("A", Arrays.asList("B", "C", null));
+		graph.applyBatch(Arrays.asList(Mutation.addEdge("B", "C"), Mutation.addVertex("E"),
+				Mutation.removeEdge("A", "C"), Mutation.addEdge("E", "A"), Mutation.removeVertex("C")));
+		if (graph.order() != 3 || graph.size() != 2
+				|| !graph.getAdjacentVerticesOf("A").equals(Arrays.asList("B"))
+				|| !graph.getDependentsOf("A").equals(Arrays.asList("E"))) {
+			fail("ERROR: The batch made the wrong changes");
+		}
+
+		// a batch with a null change should not change anything
+		try {
+			graph.applyBatch(Arrays.asList(Mutation.addVertex("F"), null));
+			fail("ERROR: A batch with a null change was applied");
+		} catch (IllegalArgumentException e) {
+			if (graph.order() != 3) {
+				fail("ERROR: Part of a batch with a null change was applied");
+			}
+		}
+	}
+
+	/** Tests if a repeated edge is only stored and counted once **/
+	@Test
+	public void test12_testDuplicateEdges() {
+		graph.setConsistencyChecks(true);
+		// a manifest that lists B twice as a dependency of A, and A twice as a package
+		graph.addEdges("A", Arrays.asList("B", "C", "B"));
+		graph.addEdge("A", "B");
+		graph.addEdge("C", "C");
+		if (graph.size() != 3 || !graph.getAdjacentVerticesOf("A").equals(Arrays.asList("B", "C"))
+				|| graph.inDegree("B") != 1) {
+			fail("ERROR: A repeated edge was stored more than once");
+		}
+
+		// removing the edge once should remove it completely
+		graph.removeEdge("A", "B");
+		graph.removeVertex("C");
+		if (graph.size() != 0 || graph.getAdjacentVerticesOf("A").contains("B") || graph.inDegree("B") != 0) {
+			fail("ERROR: The repeated edge was not removed");
+		}
+		graph.compact();
+		graph.checkConsistency();
+	}
+
+	/** Tests if the iteration methods and views see the same edges as the lists **/
+	@Test
+	public void test13_testNeighborViews() {
+		graph.addEdges("A", Arrays.asList("B", "C"));
+		graph.addEdge("D", "C");
+		Set<String> vertices = graph.vertices();
+
+		// forEachNeighbor and forEachDependent should visit the lists in order
+		ArrayList<String> visited = new ArrayList<String>();
+		graph.forEachNeighbor("A", visited::add);
+		graph.forEachDependent("C", visited::add);
+		graph.forEachNeighbor("Z", visited::add);
+		if (!visited.equals(Arrays.asList("B", "C", "A", "D"))) {
+			fail("ERROR: The iteration methods visited " + visited);
+		}
+
+		// the id views should hold the ids of the same vertices
+		IntView neighbors = graph.neighbors(graph.indexOf("A"));
+		if (neighbors.size() != 2 || !graph.vertexAt(neighbors.get(1)).equals("C")
+				|| graph.dependents(graph.indexOf("C")).size() != 2 || graph.neighbors(-1).size() != 0) {
+			fail("ERROR: The id views do not match the edges");
+		}
+
+		// the views should follow later changes and not allow any of their own
+		graph.addEdge("A", "E");
+		graph.removeVertex("D");
+		if (neighbors.size() != 3 || !vertices.contains("E") || vertices.contains("D") || vertices.size() != 4) {
+			fail("ERROR: The views did not follow the graph");
+		}
+		try {
+			vertices.remove("A");
+			fail("ERROR: The vertex view could be changed");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	/** Tests that snapshot publishes a new version only when the graph changed **/
+	@Test
+	public void test14_testPublishedSnapshot() {
+		graph.addEdge("A", "B");
+		if (graph.publishedSnapshot().order() != 0) {
+			fail("ERROR: A version was published before snapshot was called");
+		}
+		ConcurrentGraph.Version first = graph.snapshot();
+		if (graph.snapshot() != first || graph.publishedSnapshot() != first || first.size() != 1) {
+			fail("ERROR: The unchanged graph published a new version");
+		}
+
+		// the published version stays the same until the next snapshot, which
+		// replays the changes since the last one as a single write
+		graph.addEdge("B", "C");
+		graph.addEdge("C", "D");
+		graph.removeEdge("A", "B");
+		if (graph.publishedSnapshot() != first || first.size() != 1) {
+			fail("ERROR: The published version changed with the graph");
+		}
+		ConcurrentGraph.Version second = graph.snapshot();
+		if (second == first || graph.publishedSnapshot() != second || second.size() != 2
+				|| second.getVersion() != first.getVersion() + 1
+				|| !second.getAdjacentVerticesOf("B").equals(Arrays.asList("C"))) {
+			fail("ERROR: The changed graph was not published");
+		}
+
+		// compacting only changes the ids, and more changes than the graph holds
+		// are published by copying the graph again
+		graph.removeVertex("A");
+		graph.compact();
+		for (int i = 0; i < 20; i++) {
+			graph.addEdge("B", "E" + i);
+			graph.removeVertex("E" + i);
+		}
+		graph.addEdge("D", "B");
+		ConcurrentGraph.Version third = graph.snapshot();
+		if (third.order() != graph.order() || third.size() != graph.size()
+				|| !third.getAdjacentVerticesOf("D").equals(Arrays.asList("B"))
+				|| !third.getAdjacentVerticesOf("B").equals(Arrays.asList("C")) || second.order() != 4) {
+			fail("ERROR: The published version does not match the graph");
+		}
+	}
+
+	/** Tests that a batch tells its listeners before any change, so it is all or nothing **/
+	@Test
+	public void test15_testBatchIsAllOrNothing() {
+		graph.addEdges("A", Arrays.asList("B", "C"));
+		graph.addEdge("B", "C");
+		graph.setConsistencyChecks(true);
+		ArrayList<String> told = new ArrayList<String>();
+		GraphListener listener = new GraphListener() {
+			@Override
+			public void dependenciesChanged(int id) {
+				// the graph must still be unchanged, and the second call fails
+				told.add(graph.vertexAt(id) + graph.size());
+				if (told.size() == 2) {
+					throw new IllegalStateException("listener failed");
+				}
+			}
+
+			@Override
+			public void verticesRenumbered() {
+			}
+		};
+		graph.addListener(listener);
+		try {
+			graph.applyBatch(Arrays.asList(Mutation.removeEdge("A", "C"), Mutation.addEdge("D", "A"),
+					Mutation.removeVertex("B"), Mutation.addEdge("D", "E")));
+			fail("ERROR: The failing listener was not called");
+		} catch (IllegalStateException e) {
+			if (!told.equals(Arrays.asList("A3", "B3")) || graph.order() != 3 || graph.size() != 3
+					|| !graph.getAdjacentVerticesOf("A").equals(Arrays.asList("B", "C"))) {
+				fail("ERROR: The failed batch changed the graph, told " + told);
+			}
+		}
+
+		// once the listener is gone the same batch is applied in full
+		graph.removeListener(listener);
+		graph.applyBatch(Arrays.asList(Mutation.removeEdge("A", "C"), Mutation.addEdge("D", "A"),
+				Mutation.removeVertex("B"), Mutation.addEdge("D", "E")));
+		if (graph.order() != 4 || graph.size() != 2 || !graph.getAdjacentVerticesOf("D").equals(Arrays.asList("A", "E"))
+				|| graph.getAdjacentVerticesOf("A").size() != 0) {
+			fail("ERROR: The batch made the wrong changes");
+		}
+	}
 }
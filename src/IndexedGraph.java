@@ -0,0 +1,76 @@
+/**
+ * Filename: IndexedGraph.java Project: p4 Authors: Max Johnson
+ *
+ * Read-only access to a graph by the integer ids of its vertices, which is all
+ * DependencyTraversal and DependencyClosure need. A FrozenGraph answers it from
+ * its arrays, and a Graph answers it from its live nodes, so a traversal can
+ * run on the graph itself without freezing it first. Every id is between 0 and
+ * capacity() - 1, and ids without a vertex have no edges.
+ */
+public interface IndexedGraph {
+
+	/**
+	 * Returns the number of ids in the graph
+	 *
+	 * @return one more than the largest id a vertex can have
+	 */
+	public int capacity();
+
+	/**
+	 * Returns the number of vertices in the graph
+	 *
+	 * @return the number of vertices
+	 */
+	public int order();
+
+	/**
+	 * Returns the integer id of the input vertex
+	 *
+	 * @param vertex - the vertex
+	 * @return the id of the vertex, -1 if it is null or not in the graph
+	 */
+	public int indexOf(String vertex);
+
+	/**
+	 * Returns the vertex that has the input integer id
+	 *
+	 * @param id - the id of the vertex
+	 * @return the vertex with that id, null if no vertex has that id
+	 */
+	public String vertexAt(int id);
+
+	/**
+	 * Returns the number of dependencies of the id
+	 *
+	 * @param id - the id of the vertex
+	 * @return the number of edges coming from the id
+	 */
+	public int outDegree(int id);
+
+	/**
+	 * Returns one dependency of the id, in the order the edges were added
+	 *
+	 * @param id    - the id of the vertex
+	 * @param index - the position of the dependency, from 0 to outDegree(id) - 1
+	 * @return the id the edge goes to
+	 */
+	public int neighborAt(int id, int index);
+
+	/**
+	 * Returns the number of dependents of the id
+	 *
+	 * @param id - the id of the vertex
+	 * @return the number of edges going to the id
+	 */
+	public int inDegree(int id);
+
+	/**
+	 * Returns one dependent of the id
+	 *
+	 * @param id    - the id of the vertex
+	 * @param index - the position of the dependent, from 0 to inDegree(id) - 1
+	 * @return the id the edge comes from
+	 */
+	public int dependentAt(int id, int index);
+
+}
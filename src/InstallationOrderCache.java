@@ -0,0 +1,279 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filename: InstallationOrderCache.java Project: p4 Authors: Max Johnson
+ *
+ * Bounded least-recently-used cache of the installation order of packages, for
+ * PackageManager.getInstallationOrder. Every entry remembers the modification
+ * count of the Graph it was computed from, and an entry is only returned while
+ * the graph still has that count, so any change to the graph makes every entry
+ * stale. Stale entries are dropped when they are next looked up or when they
+ * reach the end of the LRU order.
+ *
+ * The cache is bounded by weight, the total number of packages in the cached
+ * orders, so a few orders of huge packages cannot push the memory past the
+ * bound. An order heavier than the whole capacity is not cached. Like
+ * PackageManager, the cache is not thread-safe.
+ */
+public class InstallationOrderCache {
+
+	/**
+	 * One cached order and the modification count it was computed at
+	 */
+	private static final class Entry {
+		private final List<String> order; // the installation order, never changed once cached
+		private final long modCount; // the modification count of the graph it is of
+
+		/**
+		 * Constructs an entry
+		 *
+		 * @param order    - the installation order
+		 * @param modCount - the modification count of the graph it is of
+		 */
+		private Entry(List<String> order, long modCount) {
+			this.order = order;
+			this.modCount = modCount;
+		}
+	}
+
+	private final LinkedHashMap<String, Entry> entries; // every cached order, least recently used first
+	private long capacity; // the most packages the cached orders can hold together
+	private long weight; // the number of packages in the cached orders
+	private long hits; // lookups that found a current order
+	private long misses; // lookups that found nothing or a stale order
+	private long evictions; // orders dropped to stay within the capacity
+	private long invalidations; // stale orders dropped because the graph changed
+
+	/**
+	 * Constructs an empty cache
+	 *
+	 * @param capacity - the most packages the cached orders can hold together, 0
+	 *                 to cache nothing
+	 * @throws IllegalArgumentException if the capacity is negative
+	 */
+	public InstallationOrderCache(long capacity) {
+		entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);// access order, so the eldest is the LRU
+		setCapacity(capacity);
+	}
+
+	/**
+	 * Returns the cached order of a package if it was computed at the given
+	 * modification count, and marks it as recently used
+	 *
+	 * @param pkg      - the package
+	 * @param modCount - the current modification count of the graph
+	 * @return the cached order, which must not be changed, or null if there is
+	 *         none for this modification count
+	 */
+	public List<String> get(String pkg, long modCount) {
+		Entry entry = entries.get(pkg);
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		if (entry.modCount != modCount) {
+			// the graph changed since the order was computed
+			remove(pkg);
+			invalidations++;
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.order;
+	}
+
+	/**
+	 * Caches the order of a package, evicting the least recently used orders
+	 * until it fits
+	 *
+	 * @param pkg      - the package
+	 * @param modCount - the modification count of the graph it was computed from
+	 * @param order    - the order, which must not be changed afterwards
+	 */
+	public void put(String pkg, long modCount, List<String> order) {
+		remove(pkg);
+		if (order.size() > capacity) {
+			return;// would evict everything and still not fit
+		}
+		entries.put(pkg, new Entry(order, modCount));
+		weight += order.size();
+		evictToCapacity();
+	}
+
+	/**
+	 * Drops every cached order, for when the graph is replaced by another one
+	 * whose modification counts could repeat
+	 */
+	public void clear() {
+		entries.clear();
+		weight = 0;
+	}
+
+	/**
+	 * Changes the capacity, evicting the least recently used orders if it shrank
+	 *
+	 * @param capacity - the most packages the cached orders can hold together, 0
+	 *                 to cache nothing
+	 * @throws IllegalArgumentException if the capacity is negative
+	 */
+	public void setCapacity(long capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("capacity cannot be negative: " + capacity);
+		}
+		this.capacity = capacity;
+		evictToCapacity();
+	}
+
+	/**
+	 * Returns the hit, miss and eviction counts and the size of the cache
+	 *
+	 * @return a snapshot of the statistics
+	 */
+	public Stats stats() {
+		return new Stats(hits, misses, evictions, invalidations, entries.size(), weight, capacity);
+	}
+
+	/**
+	 * Removes the order of a package, if it is cached
+	 *
+	 * @param pkg - the package
+	 */
+	private void remove(String pkg) {
+		Entry removed = entries.remove(pkg);
+		if (removed != null) {
+			weight -= removed.order.size();
+		}
+	}
+
+	/**
+	 * Evicts the least recently used orders until the weight is within the
+	 * capacity
+	 */
+	private void evictToCapacity() {
+		Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+		while (weight > capacity && eldest.hasNext()) {
+			weight -= eldest.next().getValue().order.size();
+			eldest.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * The statistics of an InstallationOrderCache at one point in time
+	 */
+	public static final class Stats {
+
+		private final long hits; // lookups that found a current order
+		private final long misses; // lookups that found nothing or a stale order
+		private final long evictions; // orders dropped to stay within the capacity
+		private final long invalidations; // stale orders dropped because the graph changed
+		private final int entries; // the number of cached orders
+		private final long weight; // the number of packages in the cached orders
+		private final long capacity; // the most packages the cached orders can hold together
+
+		/**
+		 * Constructs the statistics
+		 *
+		 * @param hits          - lookups that found a current order
+		 * @param misses        - lookups that found nothing or a stale order
+		 * @param evictions     - orders dropped to stay within the capacity
+		 * @param invalidations - stale orders dropped because the graph changed
+		 * @param entries       - the number of cached orders
+		 * @param weight        - the number of packages in the cached orders
+		 * @param capacity      - the most packages the orders can hold together
+		 */
+		private Stats(long hits, long misses, long evictions, long invalidations, int entries, long weight,
+				long capacity) {
+			this.hits = hits;
+			this.misses = misses;
+			this.evictions = evictions;
+			this.invalidations = invalidations;
+			this.entries = entries;
+			this.weight = weight;
+			this.capacity = capacity;
+		}
+
+		/**
+		 * Returns the number of lookups that found a current order
+		 *
+		 * @return the hits
+		 */
+		public long getHits() {
+			return hits;
+		}
+
+		/**
+		 * Returns the number of lookups that found nothing or a stale order
+		 *
+		 * @return the misses
+		 */
+		public long getMisses() {
+			return misses;
+		}
+
+		/**
+		 * Returns the fraction of lookups that were hits
+		 *
+		 * @return the hit rate from 0 to 1, 0 if there were no lookups
+		 */
+		public double getHitRate() {
+			long lookups = hits + misses;
+			return lookups == 0 ? 0 : (double) hits / lookups;
+		}
+
+		/**
+		 * Returns the number of orders dropped to stay within the capacity
+		 *
+		 * @return the evictions
+		 */
+		public long getEvictions() {
+			return evictions;
+		}
+
+		/**
+		 * Returns the number of stale orders dropped because the graph changed
+		 *
+		 * @return the invalidations
+		 */
+		public long getInvalidations() {
+			return invalidations;
+		}
+
+		/**
+		 * Returns the number of cached orders
+		 *
+		 * @return the number of entries
+		 */
+		public int getEntries() {
+			return entries;
+		}
+
+		/**
+		 * Returns the number of packages in the cached orders
+		 *
+		 * @return the weight
+		 */
+		public long getWeight() {
+			return weight;
+		}
+
+		/**
+		 * Returns the most packages the cached orders can hold together
+		 *
+		 * @return the capacity
+		 */
+		public long getCapacity() {
+			return capacity;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("hits %d, misses %d (%.1f%% hit rate), evictions %d, invalidations %d, "
+					+ "%d orders holding %d of %d packages", hits, misses, getHitRate() * 100, evictions,
+					invalidations, entries, weight, capacity);
+		}
+	}
+}
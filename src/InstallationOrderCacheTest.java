@@ -0,0 +1,80 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the installation order cache and its use by PackageManager.
+ *
+ * Written By Max Johnson
+ */
+public class InstallationOrderCacheTest {
+
+	/** Tests eviction by weight in LRU order and invalidation by modification count */
+	@Test
+	public void test00_testEvictionAndInvalidation() {
+		InstallationOrderCache cache = new InstallationOrderCache(5);
+		cache.put("A", 1, Arrays.asList("B", "A"));
+		cache.put("C", 1, Arrays.asList("D", "E", "C"));
+		cache.get("A", 1);// A is now more recently used than C
+
+		// F doesn't fit with both, so the least recently used C is evicted
+		cache.put("F", 1, Arrays.asList("F"));
+		if (cache.get("C", 1) != null || cache.get("A", 1) == null || cache.get("F", 1) == null
+				|| cache.stats().getEvictions() != 1 || cache.stats().getWeight() != 3) {
+			fail("ERROR: The wrong order was evicted: " + cache.stats());
+		}
+
+		// an order heavier than the capacity is not cached at all
+		cache.put("G", 1, Arrays.asList("1", "2", "3", "4", "5", "G"));
+		if (cache.get("G", 1) != null || cache.stats().getEntries() != 2) {
+			fail("ERROR: An order heavier than the cache was cached");
+		}
+
+		// a newer modification count makes the order stale
+		if (cache.get("A", 2) != null || cache.get("A", 1) != null || cache.stats().getInvalidations() != 1) {
+			fail("ERROR: A stale order was returned: " + cache.stats());
+		}
+		if (cache.stats().getHits() != 3 || cache.stats().getMisses() != 4) {
+			fail("ERROR: The lookups were counted wrong: " + cache.stats());
+		}
+	}
+
+	/** Tests that PackageManager reuses orders until its graph changes */
+	@Test
+	public void test01_testPackageManagerCache() {
+		try {
+			PackageManager manager = new PackageManager();
+			manager.constructGraph("valid.json");
+			List<String> first = manager.getInstallationOrder("A");
+			first.clear();// changing a returned order must not change the cached one
+			List<String> second = manager.getInstallationOrder("A");
+			boolean valid = second.equals(Arrays.asList("D", "C", "B", "A"))
+					|| second.equals(Arrays.asList("C", "D", "B", "A"));
+			if (!valid || manager.getInstallationOrderCacheStats().getHits() != 1) {
+				fail("ERROR: The cached order was wrong: " + second);
+			}
+
+			// new edges make the cached order stale
+			manager.constructGraph("shared_dependencies.json");
+			PackageManager fresh = new PackageManager();
+			fresh.constructGraph("valid.json");
+			fresh.constructGraph("shared_dependencies.json");
+			if (!manager.getInstallationOrder("A").equals(fresh.getInstallationOrder("A"))
+					|| manager.getInstallationOrderCacheStats().getInvalidations() != 1) {
+				fail("ERROR: A stale order was returned after the graph changed");
+			}
+
+			// a capacity of 0 turns the cache off
+			manager.setInstallationOrderCacheCapacity(0);
+			manager.getInstallationOrder("A");
+			if (manager.getInstallationOrderCacheStats().getEntries() != 0) {
+				fail("ERROR: An order was cached with a capacity of 0");
+			}
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+	}
+}
@@ -0,0 +1,95 @@
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filename: InstallationPlan.java Project: p4 Authors: Max Johnson
+ * 
+ * Schedule for installing every package of a FrozenGraph in parallel. The
+ * packages are grouped into levels by Kahn's algorithm: level 0 holds the
+ * packages with no dependencies, and every other package is in the level after
+ * its latest dependency. If every install takes one step, a package can start
+ * at the step of its level (its earliest start), and the whole graph takes as
+ * many steps as there are levels (the critical path length).
+ * 
+ * A ParallelInstaller runs the plan without waiting for whole levels to
+ * finish, starting each package as soon as its own dependencies are done.
+ */
+public class InstallationPlan {
+
+	private final FrozenGraph graph; // the snapshot the plan was made from
+	private final List<List<String>> levels; // the packages of every level
+	private final Map<String, Integer> earliestStart; // the level of every package
+
+	/**
+	 * Constructs the InstallationPlan for the levels of a snapshot
+	 * 
+	 * @param graph  - the snapshot the levels were found in
+	 * @param levels - the levels from DependencyTraversal.installationLevels()
+	 */
+	InstallationPlan(FrozenGraph graph, List<List<String>> levels) {
+		this.graph = graph;
+		this.levels = Collections.unmodifiableList(levels);
+
+		// every package starts at the step of the level it is in
+		earliestStart = new HashMap<String, Integer>(graph.order() * 2);
+		for (int step = 0; step < levels.size(); step++) {
+			for (String pkg : levels.get(step)) {
+				earliestStart.put(pkg, step);
+			}
+		}
+	}
+
+	/**
+	 * Returns the levels of the plan. Every package in a level can be installed at
+	 * the same time once the levels before it are done.
+	 * 
+	 * @return List<List<String>> of the levels in the order they are installed
+	 */
+	public List<List<String>> getLevels() {
+		return levels;
+	}
+
+	/**
+	 * Returns the number of packages on the longest chain of dependencies in the
+	 * graph, which is the least number of steps the install can take no matter
+	 * how many packages run in parallel.
+	 * 
+	 * @return the critical path length
+	 */
+	public int getCriticalPathLength() {
+		return levels.size();
+	}
+
+	/**
+	 * Returns the first step at which the package can start installing, counting
+	 * from 0, if every install takes one step.
+	 * 
+	 * @param pkg - the package to look up
+	 * @return the earliest start of the package, -1 if it isn't in the plan
+	 */
+	public int getEarliestStart(String pkg) {
+		Integer step = earliestStart.get(pkg);
+		return step == null ? -1 : step;
+	}
+
+	/**
+	 * Returns the number of packages in the plan
+	 * 
+	 * @return the number of packages
+	 */
+	public int size() {
+		return earliestStart.size();
+	}
+
+	/**
+	 * Returns the snapshot the plan was made from
+	 * 
+	 * @return FrozenGraph of the planned packages
+	 */
+	FrozenGraph getGraph() {
+		return graph;
+	}
+
+}
@@ -0,0 +1,49 @@
+/**
+ * Filename: IntView.java Project: p4 Authors: Max Johnson
+ *
+ * Read-only view of a list of ints, such as the ids of the dependencies of a
+ * vertex from Graph.neighbors(id). A view reads the data it is a view of, so
+ * it reflects later changes to it, and reading it never allocates or boxes.
+ * Walk it with an index loop:
+ *
+ * <pre>
+ * IntView deps = graph.neighbors(id);
+ * for (int i = 0; i < deps.size(); i++) {
+ * 	visit(deps.get(i));
+ * }
+ * </pre>
+ */
+public interface IntView {
+
+	/**
+	 * A view with no ints in it
+	 */
+	public static final IntView EMPTY = new IntView() {
+		@Override
+		public int size() {
+			return 0;
+		}
+
+		@Override
+		public int get(int index) {
+			throw new IndexOutOfBoundsException("index " + index + " of an empty view");
+		}
+	};
+
+	/**
+	 * Returns the number of ints in the view
+	 *
+	 * @return the size of the view
+	 */
+	public int size();
+
+	/**
+	 * Returns the int at a position in the view
+	 *
+	 * @param index - the position, from 0 to size() - 1
+	 * @return the int at that position
+	 * @throws IndexOutOfBoundsException if the index is not in the view
+	 */
+	public int get(int index);
+
+}
@@ -0,0 +1,196 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Filename: ManifestGenerator.java Project: p4 Authors: Max Johnson
+ *
+ * Writes large synthetic manifests in the same format as valid.json, for
+ * testing how PackageManager scales. Package i is named "pkg" + i. The packages
+ * are split into depth levels of about the same size, and every package above
+ * the first level depends on one package of the level below it and on up to
+ * fanOut - 1 other packages of any lower level, so the longest chain of
+ * dependencies is depth packages long.
+ *
+ * A package is made part of a cycle with probability cycleDensity: it also
+ * depends on a package of the level above it, which is given a dependency on
+ * it in return. With a cycleDensity of 0 the manifest is acyclic. The same
+ * arguments and seed always write the same manifest.
+ *
+ * Usage: java ManifestGenerator output.json [packages] [depth] [fanOut]
+ * [cycleDensity] [seed]
+ */
+public class ManifestGenerator {
+
+	private final int packages; // the number of packages
+	private final int depth; // the number of levels
+	private final int fanOut; // the most dependencies of a package, not counting cycles
+	private final double cycleDensity; // the chance that a package is on a cycle
+	private final long seed; // the seed of the random choices
+
+	/**
+	 * Constructs a generator of manifests with the given shape
+	 *
+	 * @param packages     - the number of packages, at least 1
+	 * @param depth        - the number of levels, from 1 to packages
+	 * @param fanOut       - the most dependencies of a package, at least 1
+	 * @param cycleDensity - the chance that a package is on a cycle, from 0 to 1
+	 * @param seed         - the seed of the random choices
+	 * @throws IllegalArgumentException if any argument is out of range
+	 */
+	public ManifestGenerator(int packages, int depth, int fanOut, double cycleDensity, long seed) {
+		if (packages < 1 || depth < 1 || depth > packages || fanOut < 1 || cycleDensity < 0
+				|| cycleDensity > 1) {
+			throw new IllegalArgumentException("invalid manifest shape: " + packages + " packages, depth " + depth
+					+ ", fan out " + fanOut + ", cycle density " + cycleDensity);
+		}
+		this.packages = packages;
+		this.depth = depth;
+		this.fanOut = fanOut;
+		this.cycleDensity = cycleDensity;
+		this.seed = seed;
+	}
+
+	/**
+	 * Writes the manifest to a file, replacing it if it exists
+	 *
+	 * @param jsonFilePath - the file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public void write(String jsonFilePath) throws IOException {
+		try (BufferedWriter out = Files.newBufferedWriter(Paths.get(jsonFilePath), StandardCharsets.UTF_8)) {
+			write(out);
+		}
+	}
+
+	/**
+	 * Writes the manifest to a writer, one package at a time. The writer is not
+	 * closed.
+	 *
+	 * @param out - the writer
+	 * @throws IOException if the writer fails
+	 */
+	public void write(Writer out) throws IOException {
+		Random random = new Random(seed);
+		// the dependencies that close a cycle, added to a later package when it is written
+		Map<Integer, List<Integer>> backEdges = new HashMap<Integer, List<Integer>>();
+		int[] picked = new int[fanOut + 1];
+
+		out.write("{\"packages\":[");
+		for (int pkg = 0; pkg < packages; pkg++) {
+			int level = levelOf(pkg);
+			int count = 0;
+			if (level > 0) {
+				// one dependency on the level below, so every level is reached
+				int below = levelStart(level - 1);
+				picked[count++] = below + random.nextInt(levelStart(level) - below);
+				// the rest anywhere below, skipping repeats
+				for (int i = 1; i < fanOut; i++) {
+					int dependency = random.nextInt(levelStart(level));
+					if (!contains(picked, count, dependency)) {
+						picked[count++] = dependency;
+					}
+				}
+			}
+			// a dependency on the level above, which will depend on this package in return
+			if (level + 1 < depth && random.nextDouble() < cycleDensity) {
+				int above = levelStart(level + 1);
+				int partner = above + random.nextInt(levelStart(level + 2) - above);
+				picked[count++] = partner;
+				backEdges.computeIfAbsent(partner, k -> new ArrayList<Integer>()).add(pkg);
+			}
+
+			out.write(pkg == 0 ? "{\"name\":\"pkg" : ",{\"name\":\"pkg");
+			out.write(Integer.toString(pkg));
+			out.write("\",\"dependencies\":[");
+			for (int i = 0; i < count; i++) {
+				writeName(out, i == 0, picked[i]);
+			}
+			List<Integer> cycles = backEdges.remove(pkg);
+			if (cycles != null) {
+				for (int i = 0; i < cycles.size(); i++) {
+					// a cycle partner can also have been picked as a normal dependency
+					if (!contains(picked, count, cycles.get(i))) {
+						writeName(out, count == 0 && i == 0, cycles.get(i));
+					}
+				}
+			}
+			out.write("]}");
+		}
+		out.write("]}");
+	}
+
+	/**
+	 * Returns the level of a package
+	 *
+	 * @param pkg - the index of the package
+	 * @return its level, from 0 to depth - 1
+	 */
+	private int levelOf(int pkg) {
+		return (int) ((long) pkg * depth / packages);
+	}
+
+	/**
+	 * Returns the index of the first package of a level
+	 *
+	 * @param level - the level, from 0 to depth
+	 * @return the index of its first package, packages for level depth
+	 */
+	private int levelStart(int level) {
+		// the smallest pkg with pkg * depth / packages >= level
+		return (int) (((long) level * packages + depth - 1) / depth);
+	}
+
+	/**
+	 * Checks if an index is among the first count entries of an array
+	 *
+	 * @param indices - the array
+	 * @param count   - the number of entries to check
+	 * @param index   - the index to find
+	 * @return true if it is there
+	 */
+	private static boolean contains(int[] indices, int count, int index) {
+		for (int i = 0; i < count; i++) {
+			if (indices[i] == index) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Writes the name of a package as a json string in a list
+	 *
+	 * @param out   - the writer
+	 * @param first - true if it is the first entry of the list
+	 * @param pkg   - the index of the package
+	 * @throws IOException if the writer fails
+	 */
+	private static void writeName(Writer out, boolean first, int pkg) throws IOException {
+		out.write(first ? "\"pkg" : ",\"pkg");
+		out.write(Integer.toString(pkg));
+		out.write("\"");
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.out.println("Usage: java ManifestGenerator output.json [packages] [depth] [fanOut] "
+					+ "[cycleDensity] [seed]");
+			return;
+		}
+		int packages = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+		int depth = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+		int fanOut = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+		double cycleDensity = args.length > 4 ? Double.parseDouble(args[4]) : 0;
+		long seed = args.length > 5 ? Long.parseLong(args[5]) : 400L;
+		new ManifestGenerator(packages, depth, fanOut, cycleDensity, seed).write(args[0]);
+	}
+}
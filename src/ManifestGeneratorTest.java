@@ -0,0 +1,77 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the manifests written by ManifestGenerator.
+ *
+ * Written By Max Johnson
+ */
+public class ManifestGeneratorTest {
+
+	/**
+	 * Writes a manifest to a string
+	 *
+	 * @param generator - the generator to write with
+	 * @return the manifest
+	 */
+	private static String write(ManifestGenerator generator) throws IOException {
+		StringWriter out = new StringWriter();
+		generator.write(out);
+		return out.toString();
+	}
+
+	/** Tests that the same seed writes the same acyclic manifest of the right size */
+	@Test
+	public void test00_testAcyclicManifest() {
+		try {
+			String manifest = write(new ManifestGenerator(500, 10, 3, 0, 7L));
+			if (!manifest.equals(write(new ManifestGenerator(500, 10, 3, 0, 7L)))
+					|| manifest.equals(write(new ManifestGenerator(500, 10, 3, 0, 8L)))) {
+				fail("ERROR: The manifest does not depend only on the seed");
+			}
+
+			File json = File.createTempFile("manifest", ".json");
+			try {
+				Files.write(json.toPath(), manifest.getBytes("UTF-8"));
+				PackageManager manager = new PackageManager();
+				manager.constructGraph(json.getPath());
+				// the top package reaches one package of every level below it
+				if (manager.getAllPackages().size() != 500 || manager.getInstallationOrder("pkg499").size() < 10
+						|| manager.getInstallationOrderForAllPackages().size() != 500) {
+					fail("ERROR: The manifest has the wrong packages");
+				}
+			} finally {
+				json.delete();
+			}
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+	}
+
+	/** Tests that a cycle density above 0 writes a manifest with cycles */
+	@Test
+	public void test01_testCyclicManifest() {
+		try {
+			File json = File.createTempFile("manifest", ".json");
+			try {
+				new ManifestGenerator(200, 5, 2, 0.1, 7L).write(json.getPath());
+				PackageManager manager = new PackageManager();
+				manager.constructGraph(json.getPath());
+				manager.getInstallationOrderForAllPackages();
+				fail("ERROR: The manifest has no cycle");
+			} finally {
+				json.delete();
+			}
+		} catch (CycleException e) {
+			// expected
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+	}
+}
@@ -0,0 +1,195 @@
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.simple.parser.ContentHandler;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Filename: ManifestReader.java Project: p4 Authors: Max Johnson
+ * 
+ * Streaming reader for json package manifests of the form
+ * {"packages":[{"name":..., "dependencies":[...]}, ...]}. Instead of building
+ * the whole JSONObject tree, it drives the event API of json-simple
+ * (JSONParser.parse with a ContentHandler) and hands every package to a
+ * PackageSink as soon as its closing brace is read. Only the name and
+ * dependencies of the current package are held in memory, so reading a
+ * manifest takes memory proportional to the graph being built from it, not to
+ * the size of the file.
+ * 
+ * Any other keys in the file are skipped. A null dependency is skipped and a
+ * null name is passed on as null, the same as an entry with no name, since
+ * Graph ignores null vertices.
+ */
+public class ManifestReader {
+
+	// the depth of the packages array, inside the top level object
+	private static final int PACKAGES_DEPTH = 2;
+	// the depth of a package object, inside the packages array
+	private static final int PACKAGE_DEPTH = 3;
+	// the depth of a dependencies array, inside a package object
+	private static final int DEPENDENCIES_DEPTH = 4;
+
+	/**
+	 * Reads the manifest at the given path through a buffered UTF-8 reader.
+	 * 
+	 * @param jsonFilePath - the path of the json manifest
+	 * @param sink         - receives every package
+	 * @throws FileNotFoundException if the file does not exist
+	 * @throws IOException           if the file cannot be read
+	 * @throws ParseException        if the file is not valid json or a name or
+	 *                               dependency is not a string or null
+	 */
+	public static void read(String jsonFilePath, PackageSink sink) throws IOException, ParseException {
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(jsonFilePath), StandardCharsets.UTF_8))) {
+			read(reader, sink);
+		}
+	}
+
+	/**
+	 * Reads a manifest from the given reader. The reader is not closed.
+	 * 
+	 * @param reader - the json manifest
+	 * @param sink   - receives every package
+	 * @throws IOException    if the reader fails
+	 * @throws ParseException if the input is not valid json or a name or
+	 *                        dependency is not a string or null
+	 */
+	public static void read(Reader reader, PackageSink sink) throws IOException, ParseException {
+		new JSONParser().parse(reader, new Handler(sink));
+	}
+
+	/**
+	 * ContentHandler that tracks how deep the parser is, and collects the name and
+	 * dependencies of each package object inside the top level packages array.
+	 */
+	private static class Handler implements ContentHandler {
+
+		private final PackageSink sink; // receives every package
+		private final List<String> dependencies; // the dependencies of the current package
+		private String name; // the name of the current package
+		private String topKey; // the key of the current entry of the top level object
+		private String packageKey; // the key of the current entry of the package object
+		private int depth; // how many objects and arrays the parser is inside
+		private boolean inPackages; // true while inside the top level packages array
+		private boolean inDependencies; // true while inside the dependencies of a package
+
+		/**
+		 * Constructs a Handler that hands the packages to the sink
+		 * 
+		 * @param sink - receives every package
+		 */
+		private Handler(PackageSink sink) {
+			this.sink = sink;
+			dependencies = new ArrayList<String>();
+		}
+
+		@Override
+		public void startJSON() {
+			depth = 0;
+		}
+
+		@Override
+		public void endJSON() {
+		}
+
+		@Override
+		public boolean startObject() {
+			depth++;
+			// a new package starts
+			if (inPackages && depth == PACKAGE_DEPTH) {
+				name = null;
+				dependencies.clear();
+			}
+			return true;
+		}
+
+		@Override
+		public boolean endObject() {
+			// the package is complete, so it is handed to the sink
+			if (inPackages && depth == PACKAGE_DEPTH) {
+				sink.accept(name, dependencies);
+			}
+			depth--;
+			return true;
+		}
+
+		@Override
+		public boolean startObjectEntry(String key) {
+			if (depth == 1) {
+				topKey = key;
+			} else if (inPackages && depth == PACKAGE_DEPTH) {
+				packageKey = key;
+			}
+			return true;
+		}
+
+		@Override
+		public boolean endObjectEntry() {
+			if (depth == 1) {
+				topKey = null;
+			} else if (inPackages && depth == PACKAGE_DEPTH) {
+				packageKey = null;
+			}
+			return true;
+		}
+
+		@Override
+		public boolean startArray() {
+			depth++;
+			if (depth == PACKAGES_DEPTH && "packages".equals(topKey)) {
+				inPackages = true;
+			} else if (inPackages && depth == DEPENDENCIES_DEPTH && "dependencies".equals(packageKey)) {
+				inDependencies = true;
+			}
+			return true;
+		}
+
+		@Override
+		public boolean endArray() {
+			if (depth == PACKAGES_DEPTH) {
+				inPackages = false;
+			} else if (depth == DEPENDENCIES_DEPTH) {
+				inDependencies = false;
+			}
+			depth--;
+			return true;
+		}
+
+		@Override
+		public boolean primitive(Object value) throws ParseException {
+			if (inDependencies && depth == DEPENDENCIES_DEPTH) {
+				String dependency = asString(value);
+				if (dependency != null) {
+					dependencies.add(dependency);
+				}
+			} else if (inPackages && depth == PACKAGE_DEPTH && "name".equals(packageKey)) {
+				name = asString(value);
+			}
+			return true;
+		}
+
+		/**
+		 * Checks that a package name read from the manifest is a string or null
+		 * 
+		 * @param value - the value read
+		 * @return the value as a String, null if it is null
+		 * @throws ParseException if the value is not a string or null
+		 */
+		private String asString(Object value) throws ParseException {
+			if (value != null && !(value instanceof String)) {
+				throw new ParseException(ParseException.ERROR_UNEXPECTED_TOKEN, value);
+			}
+			return (String) value;
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.simple.parser.ParseException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the streaming json manifest reader.
+ * 
+ * Written By Max Johnson
+ */
+public class ManifestReaderTest {
+
+	/** Tests that every package is passed to the sink with its dependencies */
+	@Test
+	public void test00_testReadsPackagesInOrder() {
+		String json = "{\"version\":1, \"packages\":[" + "{\"name\":\"A\", \"dependencies\":[\"B\", \"C\"]},"
+				+ "{\"dependencies\":[], \"name\":\"B\", \"extra\":{\"dependencies\":[\"X\"]}},"
+				+ "{\"name\":\"C\", \"dependencies\":[\"B\"]}]}";
+		List<String> read = new ArrayList<String>();
+		try {
+			// copies the list, since the reader reuses it for the next package
+			ManifestReader.read(new StringReader(json), (name, deps) -> read.add(name + deps));
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+		if (!read.toString().equals("[A[B, C], B[], C[B]]")) {
+			fail("ERROR: read " + read + " instead of [A[B, C], B[], C[B]]");
+		}
+	}
+
+	/** Tests that a dependency that isn't a string is rejected */
+	@Test
+	public void test01_testNonStringDependency() {
+		String json = "{\"packages\":[{\"name\":\"A\", \"dependencies\":[1]}]}";
+		try {
+			ManifestReader.read(new StringReader(json), (name, deps) -> {
+			});
+			fail("ERROR: a number was accepted as a dependency");
+		} catch (ParseException e) {
+			// expected
+		} catch (Exception e) {
+			fail("ERROR: wrong exception " + e);
+		}
+	}
+
+	/** Tests that a null dependency is skipped and a null name is passed on */
+	@Test
+	public void test02_testNullNameAndDependency() {
+		String json = "{\"packages\":[{\"name\":\"A\", \"dependencies\":[\"B\", null]},"
+				+ "{\"name\":null, \"dependencies\":[\"C\"]}]}";
+		List<String> read = new ArrayList<String>();
+		try {
+			ManifestReader.read(new StringReader(json), (name, deps) -> read.add(name + deps));
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+		if (!read.toString().equals("[A[B], null[C]]")) {
+			fail("ERROR: read " + read + " instead of [A[B], null[C]]");
+		}
+	}
+
+}
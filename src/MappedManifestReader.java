@@ -0,0 +1,561 @@
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.simple.parser.ParseException;
+
+/**
+ * Filename: MappedManifestReader.java Project: p4 Authors: Max Johnson
+ *
+ * Manifest reader that memory-maps the json file with FileChannel.map and scans
+ * the {"packages":[{"name":..., "dependencies":[...]}, ...]} structure straight
+ * out of the mapped bytes, without decoding the file into chars first. Every
+ * string the reader needs (keys, names and dependencies) goes through an
+ * interning dictionary keyed on its raw UTF-8 bytes, so a package name becomes a
+ * String only the first time it is seen. Every later mention of the same
+ * package is the same String object, which also keeps its cached hash code for
+ * the vertex lookups in Graph.
+ *
+ * The packages reach the PackageSink in the same order and with the same
+ * contents as with ManifestReader: any other keys in the file are skipped, a
+ * null dependency is skipped and a null name is passed on as null. Files must
+ * be smaller than 2 GiB, the most a single mapping can hold.
+ */
+public class MappedManifestReader {
+
+	// the UTF-8 byte order mark some editors write at the start of a file
+	private static final int BOM_LENGTH = 3;
+
+	private final ByteBuffer bytes; // the mapped file
+	private final int limit; // the number of bytes in the file
+	private final PackageSink sink; // receives every package
+	private final Interner names; // the String of every distinct string in the file
+	private final List<String> dependencies; // the dependencies of the current package
+	private int pos; // the position of the next unread byte
+
+	/**
+	 * Constructs a reader over the bytes of a manifest
+	 *
+	 * @param bytes - the manifest, from position 0 to its limit
+	 * @param sink  - receives every package
+	 */
+	private MappedManifestReader(ByteBuffer bytes, PackageSink sink) {
+		this.bytes = bytes;
+		this.limit = bytes.limit();
+		this.sink = sink;
+		names = new Interner();
+		dependencies = new ArrayList<String>();
+	}
+
+	/**
+	 * Maps the manifest at the given path into memory and reads it.
+	 *
+	 * @param jsonFilePath - the path of the json manifest
+	 * @param sink         - receives every package
+	 * @throws FileNotFoundException if the file does not exist
+	 * @throws IOException           if the file cannot be mapped or is 2 GiB or
+	 *                               larger
+	 * @throws ParseException        if the file is not valid json or a name or
+	 *                               dependency is not a string or null
+	 */
+	public static void read(String jsonFilePath, PackageSink sink) throws IOException, ParseException {
+		try (RandomAccessFile file = new RandomAccessFile(jsonFilePath, "r");
+				FileChannel channel = file.getChannel()) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException(jsonFilePath + " is too large to map: " + size + " bytes");
+			}
+			read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), sink);
+		}
+	}
+
+	/**
+	 * Reads a manifest from the bytes between position 0 and the limit of the
+	 * buffer. The position of the buffer is not changed.
+	 *
+	 * @param bytes - the UTF-8 json manifest
+	 * @param sink  - receives every package
+	 * @throws ParseException if the input is not valid json or a name or
+	 *                        dependency is not a string or null
+	 */
+	public static void read(ByteBuffer bytes, PackageSink sink) throws ParseException {
+		new MappedManifestReader(bytes, sink).readManifest();
+	}
+
+	/**
+	 * Reads the top level object, handing the entries of its packages array to the
+	 * sink and skipping every other entry
+	 *
+	 * @throws ParseException if the input is not valid json
+	 */
+	private void readManifest() throws ParseException {
+		// skips the byte order mark, if there is one
+		if (limit >= BOM_LENGTH && (bytes.get(0) & 0xFF) == 0xEF && (bytes.get(1) & 0xFF) == 0xBB
+				&& (bytes.get(2) & 0xFF) == 0xBF) {
+			pos = BOM_LENGTH;
+		}
+
+		// a manifest that isn't an object has no packages, so it is only checked
+		if (peek() != '{') {
+			skipValue();
+		} else {
+			pos++;
+			if (peek() == '}') {
+				pos++;
+			} else {
+				do {
+					String key = readKey();
+					if (key.equals("packages") && peek() == '[') {
+						readPackages();
+					} else {
+						skipValue();
+					}
+				} while (next(','));
+				expect('}');
+			}
+		}
+
+		// nothing but whitespace may follow the top level value
+		if (peek() != -1) {
+			throw unexpected();
+		}
+	}
+
+	/**
+	 * Reads the packages array, handing each package object in it to the sink
+	 *
+	 * @throws ParseException if the input is not valid json
+	 */
+	private void readPackages() throws ParseException {
+		expect('[');
+		if (next(']')) {
+			return;
+		}
+		do {
+			if (peek() == '{') {
+				readPackage();
+			} else {
+				skipValue();
+			}
+		} while (next(','));
+		expect(']');
+	}
+
+	/**
+	 * Reads one package object and hands its name and dependencies to the sink
+	 *
+	 * @throws ParseException if the input is not valid json or a name or
+	 *                        dependency is not a string or null
+	 */
+	private void readPackage() throws ParseException {
+		expect('{');
+		String name = null;
+		dependencies.clear();
+		if (!next('}')) {
+			do {
+				String key = readKey();
+				if (key.equals("name")) {
+					name = readName();
+				} else if (key.equals("dependencies") && peek() == '[') {
+					readDependencies();
+				} else {
+					skipValue();
+				}
+			} while (next(','));
+			expect('}');
+		}
+		sink.accept(name, dependencies);
+	}
+
+	/**
+	 * Reads a dependencies array into the dependencies list, skipping nulls
+	 *
+	 * @throws ParseException if the input is not valid json or a dependency is not
+	 *                        a string or null
+	 */
+	private void readDependencies() throws ParseException {
+		expect('[');
+		if (next(']')) {
+			return;
+		}
+		do {
+			String dependency = readName();
+			if (dependency != null) {
+				dependencies.add(dependency);
+			}
+		} while (next(','));
+		expect(']');
+	}
+
+	/**
+	 * Reads an object key and the colon after it
+	 *
+	 * @return the interned key
+	 * @throws ParseException if there is no string key followed by a colon
+	 */
+	private String readKey() throws ParseException {
+		if (peek() != '"') {
+			throw unexpected();
+		}
+		String key = readString();
+		expect(':');
+		return key;
+	}
+
+	/**
+	 * Reads a value that has to be a string or null, like a package name or
+	 * dependency
+	 *
+	 * @return the interned string, null if the value is null
+	 * @throws ParseException if the value is not a string or null
+	 */
+	private String readName() throws ParseException {
+		if (peek() == 'n') {
+			readLiteral("null");
+			return null;
+		}
+		if (peek() != '"') {
+			throw new ParseException(pos, ParseException.ERROR_UNEXPECTED_TOKEN, (char) peek());
+		}
+		return readString();
+	}
+
+	/**
+	 * Reads the string starting at the current position, which must be a quote,
+	 * and looks it up in the interning dictionary by its raw bytes
+	 *
+	 * @return the String of the raw bytes between the quotes
+	 * @throws ParseException if the string is never closed
+	 */
+	private String readString() throws ParseException {
+		int start = ++pos; // the first byte after the opening quote
+		boolean escaped = false; // true if the string has a backslash escape in it
+		while (true) {
+			if (pos >= limit) {
+				throw new ParseException(pos, ParseException.ERROR_UNEXPECTED_EXCEPTION, "unterminated string");
+			}
+			byte b = bytes.get(pos);
+			if (b == '"') {
+				break;
+			}
+			if (b == '\\') {
+				escaped = true;
+				pos++;
+			}
+			pos++;
+		}
+		String string = names.intern(bytes, start, pos, escaped);
+		pos++;
+		return string;
+	}
+
+	/**
+	 * Skips the json value starting at the current position, including every value
+	 * nested inside it
+	 *
+	 * @throws ParseException if the value is not valid json
+	 */
+	private void skipValue() throws ParseException {
+		int c = peek();
+		if (c == '{') {
+			pos++;
+			if (next('}')) {
+				return;
+			}
+			do {
+				readKey();
+				skipValue();
+			} while (next(','));
+			expect('}');
+		} else if (c == '[') {
+			pos++;
+			if (next(']')) {
+				return;
+			}
+			do {
+				skipValue();
+			} while (next(','));
+			expect(']');
+		} else if (c == '"') {
+			readString();
+		} else if (c == 't') {
+			readLiteral("true");
+		} else if (c == 'f') {
+			readLiteral("false");
+		} else if (c == 'n') {
+			readLiteral("null");
+		} else if (c == '-' || (c >= '0' && c <= '9')) {
+			// numbers run until the next delimiter
+			while (pos < limit && !isDelimiter(bytes.get(pos))) {
+				pos++;
+			}
+		} else {
+			throw unexpected();
+		}
+	}
+
+	/**
+	 * Reads the true, false or null literal starting at the current position
+	 *
+	 * @param word - the literal, which the bytes have to spell exactly
+	 * @throws ParseException if the bytes are anything else
+	 */
+	private void readLiteral(String word) throws ParseException {
+		for (int i = 0; i < word.length(); i++) {
+			if (pos >= limit || bytes.get(pos) != word.charAt(i)) {
+				throw unexpected();
+			}
+			pos++;
+		}
+		if (pos < limit && !isDelimiter(bytes.get(pos))) {
+			throw unexpected();
+		}
+	}
+
+	/**
+	 * Skips whitespace and returns the next byte without consuming it
+	 *
+	 * @return the next byte, -1 at the end of the input
+	 */
+	private int peek() {
+		while (pos < limit) {
+			byte b = bytes.get(pos);
+			if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+				return b;
+			}
+			pos++;
+		}
+		return -1;
+	}
+
+	/**
+	 * Consumes the next byte if it is the given character
+	 *
+	 * @param c - the character wanted
+	 * @return true if it was the next byte and has been consumed
+	 */
+	private boolean next(char c) {
+		if (peek() == c) {
+			pos++;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Consumes the next byte, which has to be the given character
+	 *
+	 * @param c - the character expected
+	 * @throws ParseException if the next byte is anything else
+	 */
+	private void expect(char c) throws ParseException {
+		if (!next(c)) {
+			throw unexpected();
+		}
+	}
+
+	/**
+	 * Builds the exception for an unexpected byte at the current position
+	 *
+	 * @return the exception to throw
+	 */
+	private ParseException unexpected() {
+		int c = peek();
+		if (c == -1) {
+			return new ParseException(pos, ParseException.ERROR_UNEXPECTED_TOKEN, null);
+		}
+		return new ParseException(pos, ParseException.ERROR_UNEXPECTED_CHAR, (char) c);
+	}
+
+	/**
+	 * Checks if a byte ends a number or literal
+	 *
+	 * @param b - the byte
+	 * @return true if it is whitespace, a comma or a closing bracket
+	 */
+	private static boolean isDelimiter(byte b) {
+		return b == ',' || b == '}' || b == ']' || b == ' ' || b == '\n' || b == '\r' || b == '\t';
+	}
+
+	/**
+	 * Open addressing hash table from the raw bytes of a json string to its
+	 * String. A lookup hashes and compares the bytes in the buffer directly, so a
+	 * String is only decoded and allocated for bytes the table hasn't seen yet.
+	 */
+	private static class Interner {
+
+		// the number of slots the table starts with, always a power of two
+		private static final int INITIAL_CAPACITY = 1024;
+
+		private byte[][] keys; // the raw bytes of the string in every slot, null if empty
+		private String[] values; // the decoded string in every slot
+		private int[] hashes; // the hash of the bytes in every slot
+		private int count; // the number of strings in the table
+
+		/**
+		 * Constructs an empty dictionary
+		 */
+		private Interner() {
+			keys = new byte[INITIAL_CAPACITY][];
+			values = new String[INITIAL_CAPACITY];
+			hashes = new int[INITIAL_CAPACITY];
+		}
+
+		/**
+		 * Returns the String of the bytes from start to end - 1, decoding and
+		 * adding it the first time those bytes are seen
+		 *
+		 * @param bytes   - the buffer the bytes are in
+		 * @param start   - the first byte of the string
+		 * @param end     - the position after the last byte of the string
+		 * @param escaped - true if the bytes contain backslash escapes
+		 * @return the same String object for every occurrence of the same bytes
+		 * @throws ParseException if an escape sequence is not valid
+		 */
+		private String intern(ByteBuffer bytes, int start, int end, boolean escaped) throws ParseException {
+			// FNV-1a over the raw bytes
+			int hash = 0x811C9DC5;
+			for (int i = start; i < end; i++) {
+				hash = (hash ^ bytes.get(i)) * 0x01000193;
+			}
+
+			// probes until the bytes or an empty slot are found
+			int mask = keys.length - 1;
+			int slot = hash & mask;
+			while (keys[slot] != null) {
+				if (hashes[slot] == hash && matches(keys[slot], bytes, start, end)) {
+					return values[slot];
+				}
+				slot = (slot + 1) & mask;
+			}
+
+			// first time these bytes are seen, so they are copied and decoded
+			byte[] key = new byte[end - start];
+			for (int i = 0; i < key.length; i++) {
+				key[i] = bytes.get(start + i);
+			}
+			String value = new String(key, StandardCharsets.UTF_8);
+			if (escaped) {
+				value = unescape(value, start);
+			}
+			keys[slot] = key;
+			values[slot] = value;
+			hashes[slot] = hash;
+
+			// keeps the table at most half full
+			if (++count * 2 > keys.length) {
+				grow();
+			}
+			return value;
+		}
+
+		/**
+		 * Checks if the stored key is the same as the bytes in the buffer
+		 *
+		 * @param key   - the stored key
+		 * @param bytes - the buffer
+		 * @param start - the first byte in the buffer
+		 * @param end   - the position after the last byte in the buffer
+		 * @return true if they are the same bytes
+		 */
+		private static boolean matches(byte[] key, ByteBuffer bytes, int start, int end) {
+			if (key.length != end - start) {
+				return false;
+			}
+			for (int i = 0; i < key.length; i++) {
+				if (key[i] != bytes.get(start + i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Doubles the number of slots and reinserts every string
+		 */
+		private void grow() {
+			byte[][] oldKeys = keys;
+			String[] oldValues = values;
+			int[] oldHashes = hashes;
+			keys = new byte[oldKeys.length * 2][];
+			values = new String[oldKeys.length * 2];
+			hashes = new int[oldKeys.length * 2];
+			int mask = keys.length - 1;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != null) {
+					int slot = oldHashes[i] & mask;
+					while (keys[slot] != null) {
+						slot = (slot + 1) & mask;
+					}
+					keys[slot] = oldKeys[i];
+					values[slot] = oldValues[i];
+					hashes[slot] = oldHashes[i];
+				}
+			}
+		}
+
+		/**
+		 * Replaces the json escape sequences in a decoded string with the characters
+		 * they stand for
+		 *
+		 * @param raw   - the string with its escape sequences
+		 * @param start - where the string starts in the file, for error messages
+		 * @return the unescaped string
+		 * @throws ParseException if an escape sequence is not valid
+		 */
+		private static String unescape(String raw, int start) throws ParseException {
+			StringBuilder out = new StringBuilder(raw.length());
+			for (int i = 0; i < raw.length(); i++) {
+				char c = raw.charAt(i);
+				if (c != '\\') {
+					out.append(c);
+					continue;
+				}
+				char e = ++i < raw.length() ? raw.charAt(i) : '\0';
+				switch (e) {
+				case '"':
+				case '\\':
+				case '/':
+					out.append(e);
+					break;
+				case 'b':
+					out.append('\b');
+					break;
+				case 'f':
+					out.append('\f');
+					break;
+				case 'n':
+					out.append('\n');
+					break;
+				case 'r':
+					out.append('\r');
+					break;
+				case 't':
+					out.append('\t');
+					break;
+				case 'u':
+					// four hex digits give the UTF-16 code unit
+					if (i + 4 >= raw.length()) {
+						throw new ParseException(start + i, ParseException.ERROR_UNEXPECTED_CHAR, e);
+					}
+					try {
+						out.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+					} catch (NumberFormatException ex) {
+						throw new ParseException(start + i, ParseException.ERROR_UNEXPECTED_CHAR, e);
+					}
+					i += 4;
+					break;
+				default:
+					throw new ParseException(start + i, ParseException.ERROR_UNEXPECTED_CHAR, e);
+				}
+			}
+			return out.toString();
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.simple.parser.ParseException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the memory-mapped json manifest reader.
+ * 
+ * Written By Max Johnson
+ */
+public class MappedManifestReaderTest {
+
+	/** Tests that the packages are read the same way ManifestReader reads them */
+	@Test
+	public void test00_testReadsPackagesInOrder() {
+		String json = "\uFEFF{\"version\":1.5, \"packages\":[" + "{\"name\":\"A\", \"dependencies\":[\"B\", \"C\"]},"
+				+ "{\"dependencies\":[], \"name\":\"B\", \"extra\":{\"dependencies\":[\"X\", null, true]}},"
+				+ "{\"name\":\"C\\u00e9\", \"dependencies\":[\"B\"]}], \"tail\":[-1e3, false]}";
+		List<String> read = new ArrayList<String>();
+		try {
+			MappedManifestReader.read(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)),
+					(name, deps) -> read.add(name + deps));
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+		if (!read.toString().equals("[A[B, C], B[], C\u00e9[B]]")) {
+			fail("ERROR: read " + read + " instead of [A[B, C], B[], C\u00e9[B]]");
+		}
+	}
+
+	/** Tests that every mention of a package is the same String object */
+	@Test
+	public void test01_testNamesAreInterned() {
+		String json = "{\"packages\":[{\"name\":\"A\", \"dependencies\":[\"B\"]}, {\"name\":\"B\"}]}";
+		List<String> names = new ArrayList<String>();
+		try {
+			MappedManifestReader.read(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)), (name, deps) -> {
+				names.add(name);
+				names.addAll(deps);
+			});
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+		// names is [A, B, B], where both B's should be the same object
+		if (names.size() != 3 || names.get(1) != names.get(2)) {
+			fail("ERROR: the two mentions of B were not the same String");
+		}
+	}
+
+	/** Tests that broken json and non-string dependencies are rejected */
+	@Test
+	public void test02_testInvalidJson() {
+		String[] bad = { "{\"packages\":[{\"name\":\"A\", \"dependencies\":[1]}]}",
+				"{\"packages\":[{\"name\":\"A\"}", "{\"packages\":[{\"name\":\"A}]}", "{} {}",
+				"{\"packages\":[{\"name\":nope}]}", "{\"version\":nul}" };
+		for (String json : bad) {
+			try {
+				MappedManifestReader.read(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)), (name, deps) -> {
+				});
+				fail("ERROR: " + json + " was accepted");
+			} catch (ParseException e) {
+				// expected
+			}
+		}
+	}
+
+	/** Tests that nulls are read the same way ManifestReader reads them */
+	@Test
+	public void test03_testNullNameAndDependency() {
+		String json = "{\"packages\":[{\"name\":\"A\", \"dependencies\":[\"B\", null]},"
+				+ "{\"name\":null, \"dependencies\":[\"C\"]}]}";
+		List<String> read = new ArrayList<String>();
+		try {
+			MappedManifestReader.read(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)),
+					(name, deps) -> read.add(name + deps));
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+		if (!read.toString().equals("[A[B], null[C]]")) {
+			fail("ERROR: read " + read + " instead of [A[B], null[C]]");
+		}
+	}
+
+}
@@ -0,0 +1,441 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Filename: Metrics.java Project: p4 Authors: Max Johnson
+ *
+ * Counters and latency histograms of a PackageManager and its Graph. Every
+ * timed operation counts its calls and failures and sorts its latency into a
+ * histogram with one bucket per power of two nanoseconds. The graph counts
+ * vertex lookups, resizes of its storage and edges visited.
+ *
+ * Everything can be recorded from any thread without locks. snapshot() pulls
+ * a copy of the numbers, and register() exposes them through JMX. While
+ * metrics are off, PackageManager and Graph hold null instead of a Metrics, so
+ * the only cost is a null check per call.
+ */
+public class Metrics implements MetricsMXBean {
+
+	/**
+	 * The PackageManager operations that are timed
+	 */
+	public enum Operation {
+		CONSTRUCT_GRAPH, GET_INSTALLATION_ORDER, TO_INSTALL, GET_INSTALLATION_ORDER_FOR_ALL_PACKAGES,
+		GET_PACKAGE_WITH_MAX_DEPENDENCIES
+	}
+
+	// bucket b of a histogram counts latencies of b significant bits, so bucket 0 is 0 ns and bucket 64 is the largest
+	private static final int BUCKETS = Long.SIZE + 1;
+
+	/**
+	 * The live counts of one operation
+	 */
+	private static final class Recorder {
+		private final LongAdder count = new LongAdder(); // the number of calls
+		private final LongAdder failures = new LongAdder(); // the number of calls that threw
+		private final LongAdder totalNanos = new LongAdder(); // the time of every call added up
+		private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0); // the slowest call
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS); // the latency histogram
+	}
+
+	private final Recorder[] recorders; // the counts of every operation, by ordinal
+	private final LongAdder lookups; // the number of vertex lookups by name
+	private final LongAdder resizes; // the number of times the graph storage grew
+	private final LongAdder edgesVisited; // the number of edges read or followed
+
+	/**
+	 * Constructs a Metrics with every count at 0
+	 */
+	public Metrics() {
+		recorders = new Recorder[Operation.values().length];
+		for (int i = 0; i < recorders.length; i++) {
+			recorders[i] = new Recorder();
+		}
+		lookups = new LongAdder();
+		resizes = new LongAdder();
+		edgesVisited = new LongAdder();
+	}
+
+	/**
+	 * Returns the start time of an operation, to pass to stopTimer
+	 *
+	 * @param metrics - where the operation is recorded, null if metrics are off
+	 * @return the current time in nanoseconds, 0 if metrics are off
+	 */
+	public static long startTimer(Metrics metrics) {
+		return metrics == null ? 0 : System.nanoTime();
+	}
+
+	/**
+	 * Records an operation that started at the given time
+	 *
+	 * @param metrics   - where the operation is recorded, null if metrics are off
+	 * @param operation - the operation
+	 * @param start     - the time returned by startTimer
+	 * @param succeeded - false if the operation threw an exception
+	 */
+	public static void stopTimer(Metrics metrics, Operation operation, long start, boolean succeeded) {
+		if (metrics != null) {
+			metrics.record(operation, System.nanoTime() - start, succeeded);
+		}
+	}
+
+	/**
+	 * Records one call of an operation
+	 *
+	 * @param operation - the operation
+	 * @param nanos     - how long the call took
+	 * @param succeeded - false if the call threw an exception
+	 */
+	public void record(Operation operation, long nanos, boolean succeeded) {
+		Recorder recorder = recorders[operation.ordinal()];
+		long latency = Math.max(0, nanos);
+		recorder.count.increment();
+		if (!succeeded) {
+			recorder.failures.increment();
+		}
+		recorder.totalNanos.add(latency);
+		recorder.maxNanos.accumulate(latency);
+		recorder.buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(latency));
+	}
+
+	/**
+	 * Counts a lookup of a vertex by name
+	 */
+	public void countLookup() {
+		lookups.increment();
+	}
+
+	/**
+	 * Counts a resize of the graph storage
+	 */
+	public void countResize() {
+		resizes.increment();
+	}
+
+	/**
+	 * Counts edges that were read or followed
+	 *
+	 * @param edges - the number of edges
+	 */
+	public void countEdgesVisited(long edges) {
+		edgesVisited.add(edges);
+	}
+
+	/**
+	 * Returns a copy of every count. Counts recorded while the copy is made may or
+	 * may not be in it.
+	 *
+	 * @return the snapshot
+	 */
+	public Snapshot snapshot() {
+		List<OperationStats> operations = new ArrayList<OperationStats>(recorders.length);
+		for (Operation operation : Operation.values()) {
+			Recorder recorder = recorders[operation.ordinal()];
+			long[] buckets = new long[BUCKETS];
+			for (int i = 0; i < BUCKETS; i++) {
+				buckets[i] = recorder.buckets.get(i);
+			}
+			operations.add(new OperationStats(operation, recorder.count.sum(), recorder.failures.sum(),
+					recorder.totalNanos.sum(), recorder.maxNanos.get(), buckets));
+		}
+		return new Snapshot(operations, lookups.sum(), resizes.sum(), edgesVisited.sum());
+	}
+
+	/**
+	 * Registers these metrics with the platform MBean server as
+	 * p4:type=PackageManager,name=&lt;name&gt;
+	 *
+	 * @param name - the name of the PackageManager in JMX
+	 * @return the name they were registered under, to pass to unregister
+	 * @throws JMException if the name is not valid or is already registered
+	 */
+	public ObjectName register(String name) throws JMException {
+		ObjectName objectName = ObjectName.getInstance("p4:type=PackageManager,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		return objectName;
+	}
+
+	/**
+	 * Removes metrics registered by register from the platform MBean server
+	 *
+	 * @param objectName - the name returned by register
+	 * @throws JMException if nothing is registered under the name
+	 */
+	public static void unregister(ObjectName objectName) throws JMException {
+		ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+	}
+
+	@Override
+	public List<OperationStats> getOperations() {
+		return snapshot().getOperations();
+	}
+
+	@Override
+	public long getVertexLookups() {
+		return lookups.sum();
+	}
+
+	@Override
+	public long getStorageResizes() {
+		return resizes.sum();
+	}
+
+	@Override
+	public long getEdgesVisited() {
+		return edgesVisited.sum();
+	}
+
+	@Override
+	public void reset() {
+		for (Recorder recorder : recorders) {
+			recorder.count.reset();
+			recorder.failures.reset();
+			recorder.totalNanos.reset();
+			recorder.maxNanos.reset();
+			for (int i = 0; i < BUCKETS; i++) {
+				recorder.buckets.set(i, 0);
+			}
+		}
+		lookups.reset();
+		resizes.reset();
+		edgesVisited.reset();
+	}
+
+	/**
+	 * The counts of one operation at the time of a snapshot
+	 */
+	public static final class OperationStats {
+
+		private final Operation operation; // the operation
+		private final long count; // the number of calls
+		private final long failures; // the number of calls that threw
+		private final long totalNanos; // the time of every call added up
+		private final long maxNanos; // the slowest call
+		private final long[] buckets; // the latency histogram
+
+		/**
+		 * Constructs the counts of one operation
+		 *
+		 * @param operation  - the operation
+		 * @param count      - the number of calls
+		 * @param failures   - the number of calls that threw
+		 * @param totalNanos - the time of every call added up
+		 * @param maxNanos   - the slowest call
+		 * @param buckets    - the latency histogram
+		 */
+		private OperationStats(Operation operation, long count, long failures, long totalNanos, long maxNanos,
+				long[] buckets) {
+			this.operation = operation;
+			this.count = count;
+			this.failures = failures;
+			this.totalNanos = totalNanos;
+			this.maxNanos = maxNanos;
+			this.buckets = buckets;
+		}
+
+		/**
+		 * Returns the name of the operation
+		 *
+		 * @return the name of the Operation
+		 */
+		public String getName() {
+			return operation.name();
+		}
+
+		/**
+		 * Returns the operation
+		 *
+		 * @return the Operation
+		 */
+		public Operation operation() {
+			return operation;
+		}
+
+		/**
+		 * Returns the number of calls
+		 *
+		 * @return the number of calls
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns the number of calls that threw an exception
+		 *
+		 * @return the number of failed calls
+		 */
+		public long getFailures() {
+			return failures;
+		}
+
+		/**
+		 * Returns the time of every call added up
+		 *
+		 * @return the total time in nanoseconds
+		 */
+		public long getTotalNanos() {
+			return totalNanos;
+		}
+
+		/**
+		 * Returns the time of the slowest call
+		 *
+		 * @return the longest time in nanoseconds
+		 */
+		public long getMaxNanos() {
+			return maxNanos;
+		}
+
+		/**
+		 * Returns the mean time of a call
+		 *
+		 * @return the mean time in nanoseconds, 0 if there were no calls
+		 */
+		public long getMeanNanos() {
+			return count == 0 ? 0 : totalNanos / count;
+		}
+
+		/**
+		 * Returns the median time of a call
+		 *
+		 * @return percentileNanos(0.5)
+		 */
+		public long getP50Nanos() {
+			return percentileNanos(0.5);
+		}
+
+		/**
+		 * Returns the time that 99% of the calls took at most
+		 *
+		 * @return percentileNanos(0.99)
+		 */
+		public long getP99Nanos() {
+			return percentileNanos(0.99);
+		}
+
+		/**
+		 * Returns a time that at least the given fraction of the calls took at most.
+		 * The histogram only keeps powers of two, so this is the top of the bucket
+		 * the percentile falls in, which is less than twice the real percentile.
+		 *
+		 * @param fraction - the fraction of the calls, from 0 to 1
+		 * @return the time in nanoseconds, 0 if there were no calls
+		 */
+		public long percentileNanos(double fraction) {
+			long total = 0;
+			for (long bucket : buckets) {
+				total += bucket;
+			}
+			long rank = (long) Math.ceil(fraction * total);
+			long seen = 0;
+			for (int i = 0; i < buckets.length; i++) {
+				seen += buckets[i];
+				if (seen >= rank && seen > 0) {
+					// the largest latency with i significant bits, but no more than the slowest call
+					long top = i == 0 ? 0 : i == Long.SIZE ? Long.MAX_VALUE : (1L << i) - 1;
+					return Math.min(top, maxNanos);
+				}
+			}
+			return 0;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s\t%d\t%d\t%.3f\t%.3f\t%.3f\t%.3f", operation, count, failures,
+					getMeanNanos() / 1e6, getP50Nanos() / 1e6, getP99Nanos() / 1e6, maxNanos / 1e6);
+		}
+	}
+
+	/**
+	 * A copy of every count of a Metrics, taken by snapshot()
+	 */
+	public static final class Snapshot {
+
+		private final List<OperationStats> operations; // the counts of every operation, in Operation order
+		private final long lookups; // the number of vertex lookups by name
+		private final long resizes; // the number of times the graph storage grew
+		private final long edgesVisited; // the number of edges read or followed
+
+		/**
+		 * Constructs a snapshot
+		 *
+		 * @param operations   - the counts of every operation, in Operation order
+		 * @param lookups      - the number of vertex lookups by name
+		 * @param resizes      - the number of times the graph storage grew
+		 * @param edgesVisited - the number of edges read or followed
+		 */
+		private Snapshot(List<OperationStats> operations, long lookups, long resizes, long edgesVisited) {
+			this.operations = Collections.unmodifiableList(operations);
+			this.lookups = lookups;
+			this.resizes = resizes;
+			this.edgesVisited = edgesVisited;
+		}
+
+		/**
+		 * Returns the counts of every operation, in the order of Operation
+		 *
+		 * @return the unmodifiable list of the counts
+		 */
+		public List<OperationStats> getOperations() {
+			return operations;
+		}
+
+		/**
+		 * Returns the counts of one operation
+		 *
+		 * @param operation - the operation
+		 * @return its counts
+		 */
+		public OperationStats get(Operation operation) {
+			return operations.get(operation.ordinal());
+		}
+
+		/**
+		 * Returns the number of times a vertex was looked up by name
+		 *
+		 * @return the number of lookups
+		 */
+		public long getVertexLookups() {
+			return lookups;
+		}
+
+		/**
+		 * Returns the number of times the graph storage grew
+		 *
+		 * @return the number of resizes
+		 */
+		public long getStorageResizes() {
+			return resizes;
+		}
+
+		/**
+		 * Returns the number of edges read or followed
+		 *
+		 * @return the number of edges visited
+		 */
+		public long getEdgesVisited() {
+			return edgesVisited;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder text = new StringBuilder("operation\tcalls\tfailures\tmean ms\tp50 ms\tp99 ms\tmax ms\n");
+			for (OperationStats stats : operations) {
+				text.append(stats).append('\n');
+			}
+			text.append("vertex lookups ").append(lookups).append(", storage resizes ").append(resizes)
+					.append(", edges visited ").append(edgesVisited);
+			return text.toString();
+		}
+	}
+}
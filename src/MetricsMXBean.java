@@ -0,0 +1,47 @@
+import java.util.List;
+
+/**
+ * Filename: MetricsMXBean.java Project: p4 Authors: Max Johnson
+ *
+ * The JMX view of the Metrics of a PackageManager, registered with
+ * Metrics.register. Every attribute is read from a new Metrics.Snapshot, so the
+ * values of one attribute are consistent with each other but not with the
+ * other attributes.
+ */
+public interface MetricsMXBean {
+
+	/**
+	 * Returns the calls, failures and latencies of every timed PackageManager
+	 * operation
+	 *
+	 * @return the statistics of every operation
+	 */
+	public List<Metrics.OperationStats> getOperations();
+
+	/**
+	 * Returns the number of times a vertex was looked up by name in the graph
+	 *
+	 * @return the number of lookups
+	 */
+	public long getVertexLookups();
+
+	/**
+	 * Returns the number of times the graph had to grow its id table and edge
+	 * storage
+	 *
+	 * @return the number of resizes
+	 */
+	public long getStorageResizes();
+
+	/**
+	 * Returns the number of edges the graph reads and the traversals followed
+	 *
+	 * @return the number of edges visited
+	 */
+	public long getEdgesVisited();
+
+	/**
+	 * Sets every count back to 0
+	 */
+	public void reset();
+}
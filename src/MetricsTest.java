@@ -0,0 +1,91 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the metrics recorded by a PackageManager and its Graph.
+ *
+ * Written By Max Johnson
+ */
+public class MetricsTest {
+
+	/** Tests that the timed calls and the graph counters are recorded while on */
+	@Test
+	public void test00_testRecording() {
+		PackageManager manager = new PackageManager();
+		manager.setMetricsEnabled(true);
+		try {
+			manager.constructGraph("valid.json");
+			manager.getInstallationOrder("A");
+			try {
+				manager.getInstallationOrder("Z");
+				fail("ERROR: A missing package was found");
+			} catch (PackageNotFoundException e) {
+				// expected, and counted as a failure
+			}
+			manager.toInstall("A", "B");
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+
+		Metrics.Snapshot snapshot = manager.getMetrics().snapshot();
+		Metrics.OperationStats orders = snapshot.get(Metrics.Operation.GET_INSTALLATION_ORDER);
+		if (snapshot.get(Metrics.Operation.CONSTRUCT_GRAPH).getCount() != 1 || orders.getCount() != 2
+				|| orders.getFailures() != 1 || snapshot.get(Metrics.Operation.TO_INSTALL).getCount() != 1
+				|| snapshot.get(Metrics.Operation.GET_PACKAGE_WITH_MAX_DEPENDENCIES).getCount() != 0) {
+			fail("ERROR: The calls were counted wrong:\n" + snapshot);
+		}
+		if (orders.getP50Nanos() > orders.getP99Nanos() || orders.getP99Nanos() > orders.getMaxNanos()
+				|| orders.getMaxNanos() <= 0) {
+			fail("ERROR: The latencies are out of order:\n" + snapshot);
+		}
+		if (snapshot.getVertexLookups() == 0 || snapshot.getStorageResizes() == 0
+				|| snapshot.getEdgesVisited() == 0) {
+			fail("ERROR: The graph was not counted:\n" + snapshot);
+		}
+
+		// reset should start every count again
+		manager.getMetrics().reset();
+		if (manager.getMetrics().snapshot().get(Metrics.Operation.CONSTRUCT_GRAPH).getCount() != 0
+				|| manager.getMetrics().getVertexLookups() != 0) {
+			fail("ERROR: The metrics were not reset");
+		}
+	}
+
+	/** Tests that nothing is recorded while off and the counts can be read with JMX */
+	@Test
+	public void test01_testDisabledAndJmx() {
+		PackageManager manager = new PackageManager();
+		try {
+			manager.constructGraph("valid.json");
+			manager.getInstallationOrderForAllPackages();
+			if (manager.getMetrics().snapshot().get(Metrics.Operation.CONSTRUCT_GRAPH).getCount() != 0
+					|| manager.getMetrics().getVertexLookups() != 0) {
+				fail("ERROR: Metrics were recorded while they were off");
+			}
+
+			manager.setMetricsEnabled(true);
+			manager.getInstallationOrderForAllPackages();
+			ObjectName name = manager.getMetrics().register("MetricsTest");
+			try {
+				MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+				CompositeData[] operations = (CompositeData[]) server.getAttribute(name, "Operations");
+				CompositeData all = operations[Metrics.Operation.GET_INSTALLATION_ORDER_FOR_ALL_PACKAGES.ordinal()];
+				if (!all.get("name").equals("GET_INSTALLATION_ORDER_FOR_ALL_PACKAGES")
+						|| (Long) all.get("count") != 1 || (Long) server.getAttribute(name, "EdgesVisited") == 0) {
+					fail("ERROR: JMX shows the wrong counts");
+				}
+			} finally {
+				Metrics.unregister(name);
+			}
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+	}
+}
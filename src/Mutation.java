@@ -0,0 +1,131 @@
+/**
+ * Filename: Mutation.java Project: p4 Authors: Max Johnson
+ *
+ * One change to a GraphADT, for GraphADT.applyBatch. A Mutation is immutable,
+ * and is made with one of the static methods named after the GraphADT method
+ * it stands for. Applying a Mutation has the same effect as calling that
+ * method, so null vertices are ignored the same way.
+ */
+public final class Mutation {
+
+	/**
+	 * The GraphADT method a Mutation stands for
+	 */
+	public enum Kind {
+		ADD_VERTEX, REMOVE_VERTEX, ADD_EDGE, REMOVE_EDGE
+	}
+
+	private final Kind kind; // the method the change stands for
+	private final String vertex1; // the vertex, or the vertex the edge comes from
+	private final String vertex2; // the vertex the edge goes to, null for vertex changes
+
+	/**
+	 * Constructs a Mutation
+	 *
+	 * @param kind    - the method the change stands for
+	 * @param vertex1 - the vertex, or the vertex the edge comes from
+	 * @param vertex2 - the vertex the edge goes to, null for vertex changes
+	 */
+	private Mutation(Kind kind, String vertex1, String vertex2) {
+		this.kind = kind;
+		this.vertex1 = vertex1;
+		this.vertex2 = vertex2;
+	}
+
+	/**
+	 * Returns a change that adds a vertex
+	 *
+	 * @param vertex - the vertex to add
+	 * @return the Mutation for addVertex(vertex)
+	 */
+	public static Mutation addVertex(String vertex) {
+		return new Mutation(Kind.ADD_VERTEX, vertex, null);
+	}
+
+	/**
+	 * Returns a change that removes a vertex and its edges
+	 *
+	 * @param vertex - the vertex to remove
+	 * @return the Mutation for removeVertex(vertex)
+	 */
+	public static Mutation removeVertex(String vertex) {
+		return new Mutation(Kind.REMOVE_VERTEX, vertex, null);
+	}
+
+	/**
+	 * Returns a change that adds an edge, and its vertices if they are new
+	 *
+	 * @param vertex1 - the vertex the edge comes from
+	 * @param vertex2 - the vertex the edge goes to
+	 * @return the Mutation for addEdge(vertex1, vertex2)
+	 */
+	public static Mutation addEdge(String vertex1, String vertex2) {
+		return new Mutation(Kind.ADD_EDGE, vertex1, vertex2);
+	}
+
+	/**
+	 * Returns a change that removes an edge
+	 *
+	 * @param vertex1 - the vertex the edge comes from
+	 * @param vertex2 - the vertex the edge goes to
+	 * @return the Mutation for removeEdge(vertex1, vertex2)
+	 */
+	public static Mutation removeEdge(String vertex1, String vertex2) {
+		return new Mutation(Kind.REMOVE_EDGE, vertex1, vertex2);
+	}
+
+	/**
+	 * Returns the GraphADT method the change stands for
+	 *
+	 * @return the kind of change
+	 */
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * Returns the vertex of a vertex change, or the vertex an edge comes from
+	 *
+	 * @return the first vertex
+	 */
+	public String getVertex1() {
+		return vertex1;
+	}
+
+	/**
+	 * Returns the vertex an edge goes to
+	 *
+	 * @return the second vertex, null for vertex changes
+	 */
+	public String getVertex2() {
+		return vertex2;
+	}
+
+	/**
+	 * Applies the change to a graph by calling the method it stands for
+	 *
+	 * @param graph - the graph to change
+	 */
+	public void applyTo(GraphADT graph) {
+		switch (kind) {
+		case ADD_VERTEX:
+			graph.addVertex(vertex1);
+			break;
+		case REMOVE_VERTEX:
+			graph.removeVertex(vertex1);
+			break;
+		case ADD_EDGE:
+			graph.addEdge(vertex1, vertex2);
+			break;
+		default:
+			graph.removeEdge(vertex1, vertex2);
+			break;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return vertex2 == null ? kind + "(" + vertex1 + ")" : kind + "(" + vertex1 + ", " + vertex2 + ")";
+	}
+
+}
@@ -13,7 +13,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.Set;
-import java.util.Stack;
 
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -51,12 +50,15 @@ import org.json.simple.parser.ParseException;
 public class PM {
     
     private Graph graph;
+    private DependencyTraversal traversal; //Traversal engine over a snapshot of the graph
+    private DependencyClosure closure; //Cache of the transitive dependencies of every package
     
     /**
      * Package Manager default no-argument constructor.
      */
     public PM() {
         graph = new Graph();
+        closure = new DependencyClosure(graph, this::traversal);
     }
     
     /**
@@ -92,7 +94,9 @@ public class PM {
         for(int idx2=0; idx2<dependencies.size(); idx2++) {
           graph.addEdge(currentPackage, dependencies.get(idx2));
         }
-      }     
+      }
+      //The graph changed so the traversal needs a new snapshot
+      traversal = null;
     }
     
     /**
@@ -123,62 +127,22 @@ public class PM {
      */
     public List<String> getInstallationOrder(String pkg) throws CycleException, 
       PackageNotFoundException {
-      //Keep track of which verticies have been visited so they are not added twice
-      List<String> visitedVerticies = new ArrayList<String>();
-      //Stack for DFS
-      Stack<String> stack = new Stack<String>();
-      stack.push(pkg);
-      List<String> allVerticies = new ArrayList<String>(graph.getAllVertices());
-      boolean valid = false;
-      //Check if pkg exists in all verticies. If it doesn't throw exception
-      for(String v: allVerticies) {
-        if(v.equals(pkg)) {
-          valid = true;
-        }
-      }
-      if(valid == false)
-        throw new PackageNotFoundException();
-      //While there are more dependencies in the stack to deal with
-      while (stack.isEmpty() == false) {
-          //Take the top of the stack, which is the next dependency
-          String vertex = stack.pop();
-          //If the vertex wasn't tracked, add it to visited and take all of its dependencies
-          if (visitedVerticies.contains(vertex) == false) {
-              visitedVerticies.add(vertex);
-              for (String v : graph.getAdjacentVerticesOf(vertex)) {
-                  for(int i=0; i<graph.getAdjacentVerticesOf(v).size(); i++) {
-                    //If the graph is cycling back and forth between dependencies, throw
-                    //CycleException
-                    if(vertex.equals(graph.getAdjacentVerticesOf(v).get(i))) {
-                      throw new CycleException();
-                    }
-                  }
-                  //Push the current vertex's dependencies to the stack
-                  stack.push(v);
-              }
-          }
-      }
-      //Return the reversal of the arrayList because DFS will return reverse of installationOrder
-      return reverseArrayList(visitedVerticies);
+      //Run the depth first search of the traversal engine over a snapshot of the graph,
+      //which lists every dependency before the packages that need it
+      return traversal().installationOrder(pkg);
     }
     
     /**
-     * Private helper method to get all packages in the graph.
+     * Private helper method to get the traversal engine over a snapshot of the graph,
+     * which is made the first time it is needed after the graph changes.
      * 
-     * @param listToReverse is the ArrayList that we need to reverse
-     * @return ArrayList<String> of the parameter in reverse order
+     * @return DependencyTraversal of the current graph
      */
-    private ArrayList<String> reverseArrayList(List<String> listToReverse) 
-    { 
-        //Initialize new list, loop through listToReverse backwards and add in that order
-        ArrayList<String> reversedList = new ArrayList<String>(); 
-        for (int i = listToReverse.size() - 1; i >= 0; i--) { 
-          reversedList.add(listToReverse.get(i)); 
-        } 
-        return reversedList; 
-    } 
-    
-
+    private DependencyTraversal traversal() {
+        if(traversal == null)
+          traversal = new DependencyTraversal(graph.freeze());
+        return traversal;
+    }
     
     /**
      * Given two packages - one to be installed and the other installed, 
@@ -228,52 +192,11 @@ public class PM {
      * @throws PackageNotFoundException 
      */
     public List<String> getInstallationOrderForAllPackages() throws CycleException, PackageNotFoundException {
-        ArrayList<String> allVerticies = new ArrayList<String>(graph.getAllVertices());
-        Set<String> noIncoming = new HashSet<String>(allVerticies);
-        //Loop through every vertex in the graph and remove all that have any incoming edges
-        //In order to find the roots of the graph
-        for(String v: allVerticies) {
-          List<String> adjacent = graph.getAdjacentVerticesOf(v);
-          for(String adj: adjacent) {
-            if(noIncoming.contains(adj))
-              noIncoming.remove(adj);
-          }
-        }
-        ArrayList<String> fullPath = new ArrayList<String>();
-        //Add the complete installation order of all of the roots to the full installation path
-        for(String v: noIncoming) {
-          fullPath.addAll(getInstallationOrder(v));
-        }
-        
-        //If there are too many edges in the directed graph relative to the order
-        //Throw CycleException because the graph cycles
-        if(graph.size() > graph.order() - 1)
-          throw new CycleException();
-        
-        //Remove any duplicates in the installation path so dependencies won't be installed twice
-        return removeDuplicates(fullPath);
+      //Run Kahn's algorithm over a snapshot of the whole graph, which installs every
+      //package once all of its dependencies are installed and finds any cycle
+      return traversal().installationOrderForAll();
     }
     
-
-    /**
-     * Private helper method to remove all duplicates in a single ArrayList
-     * 
-     * @param list is the ArrayList that we need to remove duplicates from
-     * @return ArrayList<String> of the parameter with no duplicates
-     */
-    private <String> ArrayList<String> removeDuplicates(ArrayList<String> list) 
-    { 
-        ArrayList<String> listNoDuplicates = new ArrayList<String>(); 
-        //Loop through the parameter list and every time a new element comes up
-        //Add it to the list with no duplicates
-        for(String v : list) { 
-            if(listNoDuplicates.contains(v) == false) { 
-              listNoDuplicates.add(v); 
-            } 
-        } 
-        return listNoDuplicates; 
-    } 
-    
     /**
      * Find and return the name of the package with the maximum number of dependencies.
      * 
@@ -289,31 +212,9 @@ public class PM {
      * @throws PackageNotFoundException 
      */
     public String getPackageWithMaxDependencies() throws CycleException, PackageNotFoundException {
-      ArrayList<String> allVerticies = new ArrayList<String>(graph.getAllVertices());
-      Set<String> noIncoming = new HashSet<String>(allVerticies);
-      //Loop through every vertex in the graph and remove all that have any incoming edges
-      //In order to find the roots of the graph (which will have the most dependencies)
-      for(String v: allVerticies) {
-        List<String> adjacent = graph.getAdjacentVerticesOf(v);
-        for(String adj: adjacent) {
-          if(noIncoming.contains(adj))
-            noIncoming.remove(adj);
-        }
-      }
-      //Variables to track the the name of the package with most dependencies and its
-      //Dependency number
-      String maxPackage = "";
-      int currentMax = -1;
-      
-      //Using the roots, see how big the installation orders are and get the package with the
-      //biggest
-      for(String v: noIncoming) {
-        if(getInstallationOrder(v).size() >= currentMax) {
-          currentMax = getInstallationOrder(v).size();
-          maxPackage = v;
-        }
-      }
-      return maxPackage;
+      //The closure cache builds the closure of every package once and keeps the answer
+      //until the graph changes
+      return closure.maxDependencies();
     }
     
 }
@@ -0,0 +1,84 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the whole-graph queries of PM.
+ * 
+ * Written By Max Johnson
+ */
+public class PMTest {
+
+	// The package manager being tested
+	private PM manager;
+	// The manifest file that is written by each test
+	private File manifest;
+
+	/** Initializes the manager and the manifest file before each method */
+	@BeforeEach
+	public void setUp() throws Exception {
+		manager = new PM();
+		manifest = File.createTempFile("manifest", ".json");
+	}
+
+	/** Deletes the manifest and resets the variables */
+	@AfterEach
+	public void tearDown() throws Exception {
+		manifest.delete();
+		manager = null;
+		manifest = null;
+	}
+
+	/**
+	 * Writes the given packages to the manifest file
+	 * 
+	 * @param packages - the json objects of the packages, separated by commas
+	 */
+	private void writeManifest(String packages) throws Exception {
+		Files.write(manifest.toPath(), ("{\"packages\":[" + packages + "]}").getBytes(StandardCharsets.UTF_8));
+	}
+
+	/** Tests that a cycle in a part of the graph with no root is found */
+	@Test
+	public void test00_testCycleWithoutRoot() {
+		try {
+			// A is a root, but nothing reaches the cycle between C and D
+			writeManifest("{\"name\":\"A\",\"dependencies\":[]},{\"name\":\"C\",\"dependencies\":[\"D\"]},"
+					+ "{\"name\":\"D\",\"dependencies\":[\"C\"]}");
+			manager.constructGraph(manifest.getPath());
+			manager.getInstallationOrderForAllPackages();
+			fail("ERROR: The cycle between C and D was not found");
+		} catch (CycleException e) {
+			if (!e.getCycle().equals(Arrays.asList("C", "D", "C"))
+					&& !e.getCycle().equals(Arrays.asList("D", "C", "D"))) {
+				fail("ERROR: The cycle was reported as " + e.getCycle());
+			}
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+	}
+
+	/** Tests that the max is found again after packages with no dependencies are loaded */
+	@Test
+	public void test01_testMaxAfterLoadingPackages() {
+		try {
+			if (!manager.getPackageWithMaxDependencies().equals("")) {
+				fail("ERROR: An empty graph should have no max");
+			}
+			writeManifest("{\"name\":\"X\",\"dependencies\":[]},{\"name\":\"Y\",\"dependencies\":[]}");
+			manager.constructGraph(manifest.getPath());
+			if (!manager.getPackageWithMaxDependencies().equals("X")) {
+				fail("ERROR: The max of the empty graph was kept: " + manager.getPackageWithMaxDependencies());
+			}
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+	}
+}
@@ -1,17 +1,24 @@
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.Stack;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 
 /**
@@ -36,17 +43,39 @@ import org.json.simple.parser.ParseException;
  * 
  * You may add a main method, but we will test all methods with our own Test
  * classes.
+ * 
+ * The graph is changed by one thread at a time, and every call that changes it
+ * publishes the new version through Graph.snapshot() before it returns, which
+ * costs about as much as the change did. getInstallationOrderForAllPackages,
+ * getInstallationLevels, getInstallationPlan and saveSnapshot pin the last
+ * published version and freeze it for their own traversal engine, so they can
+ * run on other threads without locks while the graph is being changed, and
+ * each of them sees one version from start to end. The other queries share
+ * one engine over the live graph and its caches, so they have to run on the
+ * thread that changes the graph.
  */
 
 public class PackageManager {
 
-	private Graph graph;
+	// the default number of packages the cached installation orders can hold together
+	private static final long DEFAULT_ORDER_CACHE_CAPACITY = 1 << 20;
+
+	private volatile Graph graph; // replaced by loadSnapshot, so the queries on other threads read it once
+	private DependencyTraversal traversal; // traversal engine over the live graph, null until first needed
+	private DependencyClosure closure; // cache of the transitive dependencies of every package
+	private final Metrics metrics; // the counts of the timed calls and of the graph
+	private volatile boolean metricsEnabled; // true while the calls and the graph are counted in metrics
+	private final InstallationOrderCache orders; // the installation orders of recently asked packages
 
 	/*
 	 * Package Manager default no-argument constructor.
 	 */
 	public PackageManager() {
 		graph = new Graph();
+		closure = new DependencyClosure(graph, this::traversal);
+		metrics = new Metrics();
+		setMetricsEnabled(Boolean.getBoolean("packagemanager.metrics"));// off unless asked for
+		orders = new InstallationOrderCache(DEFAULT_ORDER_CACHE_CAPACITY);
 	}
 
 	/**
@@ -60,43 +89,234 @@ public class PackageManager {
 	 * @throws ParseException        if the given json cannot be parsed
 	 */
 	public void constructGraph(String jsonFilePath) throws FileNotFoundException, IOException, ParseException {
+		constructGraph(jsonFilePath, false);
+	}
 
-		// Parses the JSON File from the JSON file
-		Object obj = new JSONParser().parse(new FileReader(jsonFilePath));
-
-		// the object obtained from the file
-		JSONObject jo = (JSONObject) obj;
+	/**
+	 * Takes in a file path for a json file and builds the package dependency graph
+	 * from it, optionally memory-mapping the file instead of reading it through a
+	 * Reader. The mapped mode scans the json straight from the file's bytes and
+	 * only makes a String the first time each package name is seen, which keeps
+	 * loading large manifests from being dominated by garbage collection.
+	 * 
+	 * @param jsonFilePath - the name of json data file with package dependency
+	 *                     information
+	 * @param memoryMapped - true to read the file with MappedManifestReader, false
+	 *                     to stream it through ManifestReader
+	 * @throws FileNotFoundException if file path is incorrect
+	 * @throws IOException           if the give file cannot be read
+	 * @throws ParseException        if the given json cannot be parsed
+	 */
+	public void constructGraph(String jsonFilePath, boolean memoryMapped)
+			throws FileNotFoundException, IOException, ParseException {
+		Metrics active = activeMetrics();
+		long start = Metrics.startTimer(active);
+		PackageQueryEvent event = new PackageQueryEvent();
+		event.begin();
+		int resultSize = -1; // the number of packages returned or loaded, -1 until the call succeeds
+		try {
+			// Adds each package to the graph and links it to each of its dependencies as
+			// soon as the reader finds it
+			readManifest(jsonFilePath, memoryMapped, graph);
+			resultSize = graph.order();
+		} finally {
+			// publishes what was loaded for the queries
+			graph.snapshot();
+			Metrics.stopTimer(active, Metrics.Operation.CONSTRUCT_GRAPH, start, resultSize >= 0);
+			// loading visits no vertices
+			commitQuery(event, Metrics.Operation.CONSTRUCT_GRAPH, jsonFilePath, 0, resultSize);
+		}
+	}
 
-		// Obtains the JSONArray from the jo object with the name "packages"
-		JSONArray ja = (JSONArray) jo.get("packages");
+	/**
+	 * Builds the package dependency graph from several json files, parsing them in
+	 * parallel on a thread pool with one thread per core. See
+	 * constructGraph(Collection, ExecutorService).
+	 * 
+	 * @param jsonFiles - the json data files with package dependency information
+	 * @throws FileNotFoundException if a file path is incorrect
+	 * @throws IOException           if a file cannot be read
+	 * @throws ParseException        if the json of a file cannot be parsed
+	 */
+	public void constructGraph(Collection<Path> jsonFiles) throws FileNotFoundException, IOException, ParseException {
+		// no more threads than files, and no more than the cores that can run them
+		int threads = Math.max(1, Math.min(jsonFiles.size(), Runtime.getRuntime().availableProcessors()));
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			constructGraph(jsonFiles, pool);
+		} finally {
+			pool.shutdown();
+		}
+	}
 
-		// Loops through each package
-		for (int i = 0; i < ja.size(); i++) {
+	/**
+	 * Builds the package dependency graph from several json files. Every file is
+	 * parsed into its own partial graph on the executor, and the partial graphs
+	 * are merged into this graph in the order of the collection while the later
+	 * files are still being parsed. Packages that appear in several files, like
+	 * shared dependencies, become a single vertex, and the result is the same as
+	 * calling constructGraph on each file in turn.
+	 * 
+	 * If a file fails, the files before it have already been merged and the
+	 * partial graphs of the files after it are discarded.
+	 * 
+	 * @param jsonFiles - the json data files with package dependency information
+	 * @param executor  - runs the parsing of the files
+	 * @throws FileNotFoundException if a file path is incorrect
+	 * @throws IOException           if a file cannot be read, or the calling
+	 *                               thread is interrupted while waiting
+	 * @throws ParseException        if the json of a file cannot be parsed
+	 */
+	public void constructGraph(Collection<Path> jsonFiles, ExecutorService executor)
+			throws FileNotFoundException, IOException, ParseException {
+		Metrics active = activeMetrics();
+		long start = Metrics.startTimer(active);
+		PackageQueryEvent event = new PackageQueryEvent();
+		event.begin();
+		int resultSize = -1; // the number of packages returned or loaded, -1 until the call succeeds
+
+		// starts parsing every file into its own graph
+		List<Future<Graph>> partials = new ArrayList<Future<Graph>>(jsonFiles.size());
+		for (Path file : jsonFiles) {
+			partials.add(executor.submit(() -> {
+				Graph partial = new Graph();
+				partial.setMetrics(active);
+				readManifest(file.toString(), false, partial);
+				return partial;
+			}));
+		}
 
-			// Gets each object from each package
-			JSONObject otherJo = (JSONObject) ja.get(i);
+		try {
+			// merges the partial graphs in order as each one is finished
+			for (Future<Graph> partial : partials) {
+				graph.merge(awaitPartial(partial));
+			}
+			resultSize = graph.order();
+		} finally {
+			// stops parsing the files that won't be merged after a failure
+			for (Future<Graph> partial : partials) {
+				partial.cancel(true);
+			}
 
-			// Goes through the dependencies of otherJo and adds them to an ArrayList of
-			// String type
-			JSONArray currentJA = (JSONArray) otherJo.get("dependencies");
-			ArrayList<String> dependencies = new ArrayList<String>();
+			// publishes what was merged for the queries
+			graph.snapshot();
+			Metrics.stopTimer(active, Metrics.Operation.CONSTRUCT_GRAPH, start, resultSize >= 0);
+			// loading visits no vertices
+			commitQuery(event, Metrics.Operation.CONSTRUCT_GRAPH, jsonFiles.toString(), 0, resultSize);
+		}
+	}
 
-			// adds each independent dependency to the list
-			for (int j = 0; j < currentJA.size(); j++) {
-				dependencies.add((String) currentJA.get(j));
-			}
+	/**
+	 * Saves the package dependency graph to a binary snapshot file, which
+	 * loadSnapshot can read back much faster than the json it was built from. It
+	 * writes the last published version, so it can run on another thread while
+	 * the graph is being changed.
+	 * 
+	 * @param snapshotPath - the file to write the snapshot to
+	 * @throws IOException if the file cannot be written
+	 */
+	public void saveSnapshot(String snapshotPath) throws IOException {
+		GraphSnapshot.write(graph.publishedSnapshot().freeze(), snapshotPath);
+	}
 
-			// accesses the current Package name as a String
-			String currentPkg = (String) otherJo.get("name");
+	/**
+	 * Loads the packages of a snapshot file written by saveSnapshot. If no
+	 * packages have been loaded yet, the snapshot becomes the graph as is, with
+	 * the same ids, and no json is parsed. Otherwise its packages are
+	 * added to the graph the same way constructGraph adds the packages of another
+	 * json file.
+	 * 
+	 * @param snapshotPath - the snapshot file
+	 * @param memoryMapped - true to memory-map the file, false to read it onto the
+	 *                     heap
+	 * @throws FileNotFoundException if file path is incorrect
+	 * @throws IOException           if the file cannot be read or is not a valid
+	 *                               snapshot
+	 */
+	public void loadSnapshot(String snapshotPath, boolean memoryMapped) throws FileNotFoundException, IOException {
+		FrozenGraph loaded = memoryMapped ? GraphSnapshot.map(snapshotPath) : GraphSnapshot.read(snapshotPath);
+		if (graph.order() == 0) {
+			// the new graph has the ids of the snapshot and is published before it
+			// replaces the old one, and the closure cache has to follow the new graph
+			Graph thawed = Graph.thaw(loaded);
+			thawed.setMetrics(activeMetrics());
+			thawed.snapshot();
+			orders.clear();// the modification counts of the new graph start again
+			closure = new DependencyClosure(thawed, this::traversal);
+			graph = thawed;
+		} else {
+			graph.merge(Graph.thaw(loaded));
+			graph.snapshot();
+		}
+	}
 
-			// adds the currentPackage to the graph
-			graph.addVertex(currentPkg);
+	/**
+	 * Makes the package dependency graph match a new version of a json manifest by
+	 * changing only what differs, instead of building a new graph. Packages that
+	 * are no longer in the manifest are removed, new packages are added, and only
+	 * the dependencies that changed are removed and added, keeping the ones in
+	 * front of the first change. The cached dependencies of every package that
+	 * doesn't depend on a changed package are kept.
+	 * 
+	 * The manifest is parsed in full before the graph is touched, so a file that
+	 * cannot be read or parsed leaves the graph as it was. After the reload the
+	 * graph has the same packages and dependencies as a new PackageManager that
+	 * called constructGraph on the same file.
+	 * 
+	 * Parsing the manifest and comparing it with the graph are linear in the size
+	 * of the file. Everything after that is proportional to the change: the
+	 * graph edits, the closures thrown away, and publishing the new version,
+	 * which replays only the edits on the copy-on-write copy of the graph. The
+	 * queries that follow run on the live graph, so nothing is frozen again.
+	 * 
+	 * @param jsonFilePath - the name of json data file with the new package
+	 *                     dependency information
+	 * @return the number of packages that were added, removed or had their
+	 *         dependencies changed, 0 if the graph already matched the manifest
+	 * @throws FileNotFoundException if file path is incorrect
+	 * @throws IOException           if the give file cannot be read
+	 * @throws ParseException        if the given json cannot be parsed
+	 */
+	public int reloadGraph(String jsonFilePath) throws FileNotFoundException, IOException, ParseException {
+		// collects the dependencies of every package in the new manifest, joining
+		// the lists of a package listed twice and dropping repeated dependencies the
+		// way constructGraph would, since the graph holds every edge once
+		Map<String, Set<String>> manifest = new LinkedHashMap<String, Set<String>>();
+		Set<String> mentioned = new HashSet<String>(); // every package and dependency in the manifest
+		ManifestReader.read(jsonFilePath, (currentPkg, dependencies) -> {
+			if (currentPkg != null) {
+				manifest.computeIfAbsent(currentPkg, k -> new LinkedHashSet<String>()).addAll(dependencies);
+				mentioned.add(currentPkg);
+				mentioned.addAll(dependencies);
+			}
+		});
+
+		int changed = 0;
+		List<Mutation> batch = new ArrayList<Mutation>(); // the changes, applied together at the end
+
+		// removes the packages that are gone, and the dependencies of the packages
+		// that are now only listed as a dependency
+		// the batch is only applied after the loop, so the live view can be iterated
+		for (String pkg : graph.vertices()) {
+			if (!mentioned.contains(pkg)) {
+				batch.add(Mutation.removeVertex(pkg));
+				changed++;
+			} else if (!manifest.containsKey(pkg) && updateDependencies(pkg, Collections.emptyList(), batch)) {
+				changed++;
+			}
+		}
 
-			// Links the package to each of its dependencies by adding an edge to the graph
-			for (int k = 0; k < dependencies.size(); k++) {
-				graph.addEdge(currentPkg, dependencies.get(k));
+		// adds the new packages and updates the ones whose dependencies changed
+		for (Map.Entry<String, Set<String>> entry : manifest.entrySet()) {
+			if (updateDependencies(entry.getKey(), new ArrayList<String>(entry.getValue()), batch)) {
+				changed++;
 			}
 		}
+		graph.applyBatch(batch);
+
+		// publishes only the edits of the batch, and nothing if nothing changed
+		graph.snapshot();
+		return changed;
 	}
 
 	/**
@@ -123,86 +343,40 @@ public class PackageManager {
 	 *                                  other part of the graph that do not affect
 	 *                                  the installation order for the specified
 	 *                                  package, should not throw this exception.
+	 *                                  getCycle() returns the packages on the
+	 *                                  cycle.
 	 * 
 	 * @throws PackageNotFoundException if the package passed does not exist in the
 	 *                                  dependency graph.
 	 */
 	public List<String> getInstallationOrder(String pkg) throws CycleException, PackageNotFoundException {
 
-		// use the topological order algorithm in order to find all the dependencies of
-		// a certain
-		// package in the graph
-		int num = graph.order();
-
-		// creates a stack to store the installation order and a boolean array that
-		// assigns each vertex to being unvisited
-		Stack<String> st = new Stack<String>();
-		// HashMap<String, Boolean> map = new HashMap<String, Boolean>();
-
-		// creates a set of Strings for every vertex in the graph in order to add them
-		// to the stack
-		Set<String> vertices = graph.getAllVertices();
-
-		// boolean to detect if the package exists or not
-		boolean valid = false;
-
-		// adds all vertices to a map to access the visited value
-		for (String x : vertices) {
-			// map.put(x, false);
-
-			// will become true when pkg is accessed
-			if (x.equals(pkg)) {
-				valid = true;
+		Metrics active = activeMetrics();
+		long start = Metrics.startTimer(active);
+		PackageQueryEvent event = new PackageQueryEvent();
+		event.begin();
+		DependencyTraversal engine = traversal();
+		long visitedBefore = engine.getVerticesVisited();
+		int resultSize = -1; // the number of packages returned or loaded, -1 until the call succeeds
+		try {
+			// popular packages are asked for again and again, so their orders are kept
+			// until the graph changes
+			long modCount = graph.getModificationCount();
+			List<String> order = orders.get(pkg, modCount);
+			if (order == null) {
+				// runs the depth first search of the traversal engine over the graph, which
+				// lists every dependency before the packages that need it
+				order = engine.installationOrder(pkg);
+				orders.put(pkg, modCount, order);
 			}
+			resultSize = order.size();
+			// a copy, so the caller can't change the cached order
+			return new ArrayList<String>(order);
+		} finally {
+			Metrics.stopTimer(active, Metrics.Operation.GET_INSTALLATION_ORDER, start, resultSize >= 0);
+			commitQuery(event, Metrics.Operation.GET_INSTALLATION_ORDER, pkg, engine.getVerticesVisited() - visitedBefore,
+					resultSize);
 		}
-
-		// if the boolean is false it throws an exception
-		if (valid == false) {
-			throw new PackageNotFoundException();
-		}
-
-		// pushes the current package to the stack and creates a list of visited
-		// vertices that is empty
-		st.push(pkg);
-		ArrayList<String> visitedVertices = new ArrayList<String>();
-
-		// loop to go through the list of vertices and determine the topological order
-		// of the graph
-		while (!st.isEmpty()) {
-			// pop the vertex at the top of the stack
-			String c = st.pop();
-
-			// accesses the list of all the neighbors of the current vertex c
-			ArrayList<String> neighbors = (ArrayList<String>) graph.getAdjacentVerticesOf(c);
-			if (!visitedVertices.contains(c)) {
-				
-				visitedVertices.add(c);
-				
-				// checks for cycle expections within the graph
-				for (String x : neighbors) {
-					
-					for (int i = 0; i < graph.getAdjacentVerticesOf(x).size(); i++) {
-						
-						// checks if the graph is cycling between vertices
-						if (c.equals(graph.getAdjacentVerticesOf(x).get(i))) {
-							throw new CycleException();
-						}
-					}
-
-					// pushes the currently iterated vertex to the stack
-					st.push(x);
-				}
-			}
-
-		} // end of the while loop
-
-		// reverses the visitedVertices List
-		ArrayList<String> reversedList = new ArrayList<String>();
-		for (int i = visitedVertices.size() - 1; i >= 0; i--) {
-			reversedList.add(visitedVertices.get(i));
-		}
-
-		return reversedList;
 	}
 
 	/**
@@ -227,20 +401,69 @@ public class PackageManager {
 	 */
 	public List<String> toInstall(String newPkg, String installedPkg) throws CycleException, PackageNotFoundException {
 
-		// Get installation order for both installed and new package
-		List<String> orderInstalled = getInstallationOrder(installedPkg);
-		List<String> orderNew = getInstallationOrder(newPkg);
+		// the installed package and all of its dependencies are already installed
+		return toInstall(newPkg, Collections.singletonList(installedPkg));
+	}
 
-		// Remove any already installed dependencies from the order needed for the new
-		// package
-		for (String x : orderInstalled) {
-			if (orderNew.contains(x)) {
-				orderNew.remove(x);
+	/**
+	 * Given a package to be installed and the packages that are already installed,
+	 * return a List of the packages that need to be newly installed, in a valid
+	 * installation order.
+	 * 
+	 * Every dependency of an installed package is treated as installed too. The
+	 * packages still needed are found by subtracting the closures of the installed
+	 * packages from the closure of the new package, as bitsets over the vertex
+	 * ids, so the cost doesn't grow with the square of the number of installed
+	 * packages.
+	 * 
+	 * @param newPkg    the package to be installed
+	 * @param installed the packages that are already installed
+	 * @return List<String>, packages that need to be newly installed.
+	 * 
+	 * @throws CycleException           if you encounter a cycle in the graph while
+	 *                                  finding the dependencies of the given
+	 *                                  packages.
+	 * 
+	 * @throws PackageNotFoundException if any of the packages passed do not exist
+	 *                                  in the dependency graph.
+	 */
+	public List<String> toInstall(String newPkg, Collection<String> installed)
+			throws CycleException, PackageNotFoundException {
+		Metrics active = activeMetrics();
+		long start = Metrics.startTimer(active);
+		PackageQueryEvent event = new PackageQueryEvent();
+		event.begin();
+		DependencyTraversal engine = traversal();
+		long visitedBefore = engine.getVerticesVisited();
+		int resultSize = -1; // the number of packages returned or loaded, -1 until the call succeeds
+		try {
+			// the new package and everything it depends on
+			IndexedGraph g = engine.getGraph();
+			int newId = g.indexOf(newPkg);
+			BitSet needed = (BitSet) closure.closureOf(newPkg).clone();
+			needed.set(newId);
+
+			// removes every installed package and everything it depends on
+			for (String pkg : installed) {
+				needed.andNot(closure.closureOf(pkg));
+				needed.clear(g.indexOf(pkg));
 			}
-		}
 
-		// returns the new order
-		return orderNew;
+			// lists the packages still needed in the order the search finishes them,
+			// which puts every package after its dependencies
+			List<String> order = new ArrayList<String>(needed.cardinality());
+			engine.postOrder(newId, null, id -> {
+				if (needed.get(id)) {
+					order.add(g.vertexAt(id));
+				}
+			});
+			resultSize = order.size();
+			return order;
+		} finally {
+			Metrics.stopTimer(active, Metrics.Operation.TO_INSTALL, start, resultSize >= 0);
+			commitQuery(event, Metrics.Operation.TO_INSTALL, newPkg, engine.getVerticesVisited() - visitedBefore,
+					resultSize);
+		}
 	}
 
 	/**
@@ -252,43 +475,62 @@ public class PackageManager {
 	 * 
 	 * returns a valid installation order that will not violate any dependencies
 	 * 
+	 * The order is found in the last published version of the graph with an
+	 * engine of its own, so it can be called from any thread while the graph is
+	 * being changed.
+	 * 
 	 * @return List<String>, order in which all the packages have to be installed
 	 * @throws CycleException if you encounter a cycle in the graph
 	 */
 	public List<String> getInstallationOrderForAllPackages() throws CycleException, PackageNotFoundException {
-		// creates a list of all the vertices in the graph
-		List<String> allVertices = new ArrayList<String>(graph.getAllVertices());
-		// creates a hashSet of all the vertices that have incoming dependencies
-		Set<String> noIncoming = new HashSet<String>(allVertices);
-
-		// loops through all of the vertices and checks if the vertex has any incoming
-		// dependencies by comparing the neighbors of the current vertex being iterated
-		// to vertices in the noIncoming hashset. It is removed from the hashSet if it
-		// is in the neighbors list.
-		for (String x : allVertices) {
-			// list of neighbors
-			List<String> neighbors = graph.getAdjacentVerticesOf(x);
-			// checks if each string in neighbors is in the noIncoming hashSet and removes
-			// it if so.
-			for (String neighbor : neighbors) {
-				if (noIncoming.contains(neighbor))
-					noIncoming.remove(neighbor);
-			}
+		Metrics active = activeMetrics();
+		long start = Metrics.startTimer(active);
+		PackageQueryEvent event = new PackageQueryEvent();
+		event.begin();
+		DependencyTraversal engine = traversalOf(graph.publishedSnapshot().freeze());
+		int resultSize = -1; // the number of packages returned or loaded, -1 until the call succeeds
+		try {
+			// runs Kahn's algorithm over the whole published version of the graph, which
+			// installs every package once all of its dependencies are installed
+			List<String> order = engine.installationOrderForAll();
+			resultSize = order.size();
+			return order;
+		} finally {
+			Metrics.Operation operation = Metrics.Operation.GET_INSTALLATION_ORDER_FOR_ALL_PACKAGES;
+			Metrics.stopTimer(active, operation, start, resultSize >= 0);
+			commitQuery(event, operation, null, engine.getVerticesVisited(), resultSize);
 		}
+	}
 
-		// creates a list to be returned for the complete installation order
-		List<String> installOrder = new ArrayList<String>();
-
-		// loops through each vertex in the noIncoming hashSet and adds each of the
-		// current vertices installation orders to the installation order array.
-		for (String x : noIncoming) {
-			// adds each of the interated strings into the install order List
-			installOrder.addAll(getInstallationOrder(x));
-		}
+	/**
+	 * Return the packages of the dependency graph grouped into installation levels.
+	 * The first level holds the packages with no dependencies, and each later
+	 * level holds the packages whose dependencies are all in earlier levels, so
+	 * the packages in a level can be installed in parallel. Like
+	 * getInstallationOrderForAllPackages, it can be called from any thread.
+	 * 
+	 * @return List<List<String>>, the levels in the order they have to be
+	 *         installed
+	 * @throws CycleException if you encounter a cycle in the graph
+	 */
+	public List<List<String>> getInstallationLevels() throws CycleException {
+		return traversalOf(graph.publishedSnapshot().freeze()).installationLevels();
+	}
 
-		// after all of the installation orders are added, a private helper is called to
-		// remove duplicates
-		return removeDup(installOrder);
+	/**
+	 * Return the schedule for installing all the packages in parallel: the
+	 * installation levels, the critical path length and the earliest start of
+	 * every package. Pass it to a ParallelInstaller to run an install action for
+	 * every package as soon as its dependencies are installed. Like
+	 * getInstallationOrderForAllPackages, it can be called from any thread.
+	 * 
+	 * @return InstallationPlan of all the packages
+	 * @throws CycleException if you encounter a cycle in the graph
+	 */
+	public InstallationPlan getInstallationPlan() throws CycleException {
+		// the plan and its levels come from the same version
+		FrozenGraph published = graph.publishedSnapshot().freeze();
+		return new InstallationPlan(published, traversalOf(published).installationLevels());
 	}
 
 	/**
@@ -307,32 +549,105 @@ public class PackageManager {
 	 * @throws PackageNotFoundException
 	 */
 	public String getPackageWithMaxDependencies() throws CycleException, PackageNotFoundException {
-		// creates an int to obtain the max installation order from each vertex.
-		int maxOrder = 0;
-		// the String to represent the package with the most dependencies
-		String maxPkg = "";
-		// creates a hashset of all the vertices
-		Set<String> vertices = new HashSet<String>(graph.getAllVertices());
-
-		// iterates through all the vertices in the graph and checks the size of each of
-		// the vertices installation orders. if it's size is larger than the int
-		// maxOrder, maxOrder is set to that size.
-		for (String x : vertices) {
-
-			// list to hold the installation order of the given String
-			List<String> installationOrder = getInstallationOrder(x);
-
-			// compares the size of installationOrder to maxPkg and sets maxPkg equal to the
-			// current iterated vertice
-			if (installationOrder.size() > maxOrder) {
-				maxOrder = installationOrder.size();
-				maxPkg = x;
-			}
+		Metrics active = activeMetrics();
+		long start = Metrics.startTimer(active);
+		PackageQueryEvent event = new PackageQueryEvent();
+		event.begin();
+		DependencyTraversal engine = traversal();
+		long visitedBefore = engine.getVerticesVisited();
+		int resultSize = -1; // the number of packages returned or loaded, -1 until the call succeeds
+		try {
+			// the closure cache builds the closure of every package once, in reverse
+			// topological order, and keeps the answer until the graph changes
+			String max = closure.maxDependencies();
+			resultSize = max == null ? 0 : 1;
+			return max;
+		} finally {
+			Metrics.stopTimer(active, Metrics.Operation.GET_PACKAGE_WITH_MAX_DEPENDENCIES, start, resultSize >= 0);
+			commitQuery(event, Metrics.Operation.GET_PACKAGE_WITH_MAX_DEPENDENCIES, null,
+					engine.getVerticesVisited() - visitedBefore, resultSize);
 		}
+	}
 
-		// returns the package with the maximum order
-		return maxPkg;
+	/**
+	 * Return the number of packages that the given package depends on, including
+	 * the dependencies of its dependencies, each counted once.
+	 * 
+	 * @param pkg the package
+	 * @return int, the number of dependencies of the package
+	 * @throws CycleException           if the package depends on a cycle
+	 * @throws PackageNotFoundException if the package does not exist in the
+	 *                                  dependency graph
+	 */
+	public int getDependencyCount(String pkg) throws CycleException, PackageNotFoundException {
+		return closure.dependencyCount(pkg);
+	}
 
+	/**
+	 * Determine whether a package depends on another package, directly or through
+	 * the dependencies of its dependencies.
+	 * 
+	 * @param pkg        the package
+	 * @param dependency the package that may be depended on
+	 * @return true if pkg depends on dependency, false otherwise
+	 * @throws CycleException           if pkg depends on a cycle
+	 * @throws PackageNotFoundException if either package does not exist in the
+	 *                                  dependency graph
+	 */
+	public boolean dependsOn(String pkg, String dependency) throws CycleException, PackageNotFoundException {
+		return closure.dependsOn(pkg, dependency);
+	}
+
+	/**
+	 * Changes how many packages the installation orders cached by
+	 * getInstallationOrder can hold together. The least recently used orders are
+	 * evicted when they don't fit, and 0 turns the cache off.
+	 * 
+	 * @param capacity - the most packages the cached orders can hold together
+	 * @throws IllegalArgumentException if the capacity is negative
+	 */
+	public void setInstallationOrderCacheCapacity(long capacity) {
+		orders.setCapacity(capacity);
+	}
+
+	/**
+	 * Returns the hits, misses, evictions and invalidations of the installation
+	 * order cache of getInstallationOrder
+	 * 
+	 * @return a snapshot of the statistics of the cache
+	 */
+	public InstallationOrderCache.Stats getInstallationOrderCacheStats() {
+		return orders.stats();
+	}
+
+	/**
+	 * Turns the metrics of this package manager on or off. While they are on,
+	 * constructGraph, getInstallationOrder, toInstall,
+	 * getInstallationOrderForAllPackages and getPackageWithMaxDependencies record
+	 * their calls and latencies, and the graph counts its lookups, resizes and
+	 * edges visited. While they are off, nothing is recorded and the counts so far
+	 * are kept. They start on if the system property packagemanager.metrics is
+	 * true.
+	 * 
+	 * @param enabled - true to record metrics, false to stop
+	 */
+	public void setMetricsEnabled(boolean enabled) {
+		metricsEnabled = enabled;
+		graph.setMetrics(activeMetrics());
+		if (traversal != null) {
+			traversal.setMetrics(activeMetrics());
+		}
+	}
+
+	/**
+	 * Returns the metrics of this package manager, to take a snapshot of or to
+	 * register with JMX. The same Metrics is returned whether metrics are on or
+	 * off.
+	 * 
+	 * @return the Metrics of this package manager
+	 */
+	public Metrics getMetrics() {
+		return metrics;
 	}
 
 	public static void main(String[] args) {
@@ -341,26 +656,157 @@ public class PackageManager {
 
 	// helper methods
 	/**
-	 * Helper method to remove any duplicates from an input list of String type
+	 * Reads a json manifest, adding each package to the graph and linking it to
+	 * each of its dependencies as soon as the reader finds it
 	 * 
-	 * @param list - the list to be inputed to remove any duplicates from.
-	 * @return List<String> - the list that contains no duplicates from the input
-	 *         list.
+	 * @param jsonFilePath - the json data file
+	 * @param memoryMapped - true to read the file with MappedManifestReader
+	 * @param target       - the graph the packages are added to
+	 * @throws FileNotFoundException if file path is incorrect
+	 * @throws IOException           if the give file cannot be read
+	 * @throws ParseException        if the given json cannot be parsed
 	 */
-	private List<String> removeDup(List<String> list) {
-		// a list that is empty with no duplicates
-		List<String> noDup = new ArrayList<String>();
-
-		// iterates through the input list and if the current iterated string isnt in
-		// the noDup list, it is added to the noDup list
-		for (String x : list) {
-			if (!noDup.contains(x)) {
-				noDup.add(x);
+	private static void readManifest(String jsonFilePath, boolean memoryMapped, Graph target)
+			throws FileNotFoundException, IOException, ParseException {
+		PackageSink sink = (currentPkg, dependencies) -> target.addEdges(currentPkg, dependencies);
+		if (memoryMapped) {
+			MappedManifestReader.read(jsonFilePath, sink);
+		} else {
+			ManifestReader.read(jsonFilePath, sink);
+		}
+	}
+
+	/**
+	 * Adds the changes that make the dependencies of a package equal the given
+	 * list to a batch, adding the package if it is new. The dependencies the two
+	 * lists start with are kept, and only the rest of the old list is removed and
+	 * the rest of the new list added.
+	 * 
+	 * @param pkg          - the package
+	 * @param dependencies - its new dependencies, in order
+	 * @param batch        - the changes to add to
+	 * @return true if the graph needs to change
+	 */
+	private boolean updateDependencies(String pkg, List<String> dependencies, List<Mutation> batch) {
+		List<String> current = graph.getAdjacentVerticesOf(pkg);
+		if (current == null) {
+			batch.add(Mutation.addVertex(pkg));
+			current = Collections.emptyList();
+		} else if (current.equals(dependencies)) {
+			return false;
+		}
+
+		// finds how many dependencies the old and new lists start with
+		int same = 0;
+		while (same < current.size() && same < dependencies.size()
+				&& current.get(same).equals(dependencies.get(same))) {
+			same++;
+		}
+
+		// replaces the rest, removing from the back so the kept ones stay in front
+		for (int k = current.size() - 1; k >= same; k--) {
+			batch.add(Mutation.removeEdge(pkg, current.get(k)));
+		}
+		for (int k = same; k < dependencies.size(); k++) {
+			batch.add(Mutation.addEdge(pkg, dependencies.get(k)));
+		}
+		return true;
+	}
+
+	/**
+	 * Waits for a file to be parsed into a partial graph, and rethrows whatever
+	 * went wrong while parsing it
+	 * 
+	 * @param partial - the parsing of the file
+	 * @return the graph of the file
+	 * @throws IOException    if the file could not be read, or the calling thread
+	 *                        was interrupted
+	 * @throws ParseException if the json could not be parsed
+	 */
+	private static Graph awaitPartial(Future<Graph> partial) throws IOException, ParseException {
+		try {
+			return partial.get();
+		} catch (InterruptedException e) {
+			// keeps the interrupt for the caller, which can't get an InterruptedException
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while loading the manifests");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof ParseException) {
+				throw (ParseException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
 			}
+			throw new IOException(cause);
 		}
+	}
 
-		// returns the list with no duplicates
-		return noDup;
+	/**
+	 * Returns the metrics to record in, null while metrics are off
+	 * 
+	 * @return metrics if they are on, otherwise null
+	 */
+	private Metrics activeMetrics() {
+		return metricsEnabled ? metrics : null;
+	}
+
+	/**
+	 * Records a call in Java Flight Recorder, if the event is enabled and took
+	 * longer than its threshold
+	 * 
+	 * @param event         - the event, begun when the call started
+	 * @param operation     - the call
+	 * @param pkg           - the package asked about or the manifest loaded, null
+	 *                      if there is none
+	 * @param visited    - the number of vertices the call visited
+	 * @param resultSize - the number of packages returned or loaded, -1 if the
+	 *                   call threw
+	 */
+	private static void commitQuery(PackageQueryEvent event, Metrics.Operation operation, String pkg, long visited,
+			int resultSize) {
+		if (event.shouldCommit()) {
+			event.operation = operation.name();
+			event.pkg = pkg;
+			event.verticesVisited = visited;
+			event.resultSize = resultSize;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Helper method to get the shared traversal engine over the live graph. The
+	 * engine walks the graph itself, so a query after a change freezes nothing
+	 * and only redoes the closures the change threw away. It is made again only
+	 * when loadSnapshot replaces the graph, and it must only be used by the thread
+	 * that changes the graph.
+	 * 
+	 * @return DependencyTraversal of the current graph
+	 */
+	private DependencyTraversal traversal() {
+		if (traversal == null || traversal.getGraph() != graph) {
+			traversal = new DependencyTraversal(graph);
+			traversal.setMetrics(activeMetrics());
+		}
+		return traversal;
+	}
+
+	/**
+	 * Helper method to get a new traversal engine over a published version of the
+	 * graph, for the queries that can run on any thread. The engine and the
+	 * version belong to the caller, so nothing it reads is changed by the thread
+	 * that changes the graph.
+	 * 
+	 * @param version - the published version to traverse
+	 * @return DependencyTraversal of the version
+	 */
+	private DependencyTraversal traversalOf(FrozenGraph version) {
+		DependencyTraversal engine = new DependencyTraversal(version);
+		engine.setMetrics(activeMetrics());
+		return engine;
 	}
 
 }
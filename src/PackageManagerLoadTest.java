@@ -0,0 +1,135 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.json.simple.parser.ParseException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests loading a PackageManager from several manifests at once and from
+ * snapshots.
+ * 
+ * Written By Max Johnson
+ */
+public class PackageManagerLoadTest {
+
+	// The manager the manifests are loaded into
+	private PackageManager manager;
+	// The file written by each test
+	private File file;
+
+	/** Initializes the manager and the file before each method */
+	@BeforeEach
+	public void setUp() throws Exception {
+		manager = new PackageManager();
+		file = File.createTempFile("manifest", ".json");
+	}
+
+	/** Deletes the file and resets the variables */
+	@AfterEach
+	public void tearDown() throws Exception {
+		file.delete();
+		manager = null;
+		file = null;
+	}
+
+	/**
+	 * Determines whether two managers have the same packages and installation
+	 * orders
+	 * 
+	 * @param expected - the manager built the known way
+	 * @param actual   - the manager being tested
+	 * @return true if every package has the same order in both
+	 */
+	private static boolean sameGraph(PackageManager expected, PackageManager actual) throws Exception {
+		if (!expected.getAllPackages().equals(actual.getAllPackages())) {
+			return false;
+		}
+		for (String pkg : expected.getAllPackages()) {
+			if (!expected.getInstallationOrder(pkg).equals(actual.getInstallationOrder(pkg))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** Tests that merging overlapping manifests gives the graph of loading them in turn */
+	@Test
+	public void test00_testParallelMatchesSequential() {
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		try {
+			PackageManager sequential = new PackageManager();
+			sequential.constructGraph("valid.json");
+			sequential.constructGraph("shared_dependencies.json");
+
+			// A, B and D are in both files
+			manager.constructGraph(Arrays.asList(Paths.get("valid.json"), Paths.get("shared_dependencies.json")), pool);
+			PackageManager pooled = new PackageManager();
+			pooled.constructGraph(Arrays.asList(Paths.get("valid.json"), Paths.get("shared_dependencies.json")));
+			if (!sameGraph(sequential, manager) || !sameGraph(sequential, pooled)) {
+				fail("ERROR: The merged graph differs from loading the files in turn");
+			}
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/** Tests that a file that cannot be parsed fails the call and drops the files after it */
+	@Test
+	public void test01_testBadFile() {
+		try {
+			Files.write(file.toPath(), "{\"packages\":[{\"name\":".getBytes(StandardCharsets.UTF_8));
+			Path bad = file.toPath();
+			manager.constructGraph(Arrays.asList(bad, Paths.get("valid.json")));
+			fail("ERROR: The bad file was not reported");
+		} catch (ParseException e) {
+			if (!manager.getAllPackages().isEmpty()) {
+				fail("ERROR: A file after the bad one was merged: " + manager.getAllPackages());
+			}
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+	}
+
+	/** Tests saving a snapshot and loading it into a new manager and into a loaded one */
+	@Test
+	public void test02_testSnapshotRoundTrip() {
+		try {
+			PackageManager saved = new PackageManager();
+			saved.constructGraph("valid.json");
+			saved.saveSnapshot(file.getPath());
+
+			// an empty manager uses the snapshot as its graph, read or mapped
+			PackageManager read = new PackageManager();
+			read.loadSnapshot(file.getPath(), false);
+			PackageManager mapped = new PackageManager();
+			mapped.loadSnapshot(file.getPath(), true);
+			if (!sameGraph(saved, read) || !sameGraph(saved, mapped)) {
+				fail("ERROR: The loaded snapshot differs from the saved graph");
+			}
+
+			// a loaded manager merges the snapshot like another json file
+			PackageManager sequential = new PackageManager();
+			sequential.constructGraph("shared_dependencies.json");
+			sequential.constructGraph("valid.json");
+			manager.constructGraph("shared_dependencies.json");
+			manager.loadSnapshot(file.getPath(), true);
+			if (!sameGraph(sequential, manager)) {
+				fail("ERROR: The merged snapshot differs from loading the json files in turn");
+			}
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+	}
+}
@@ -0,0 +1,156 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests reloading a changed manifest into a PackageManager.
+ * 
+ * Written By Max Johnson
+ */
+public class PackageManagerReloadTest {
+
+	// The manager being reloaded
+	private PackageManager manager;
+	// The manifest file that is rewritten by each test
+	private File manifest;
+
+	/** Loads valid.json into a new manager before each method */
+	@BeforeEach
+	public void setUp() throws Exception {
+		manager = new PackageManager();
+		manager.constructGraph("valid.json");
+		manifest = File.createTempFile("manifest", ".json");
+	}
+
+	/** Deletes the manifest and resets the variables */
+	@AfterEach
+	public void tearDown() throws Exception {
+		manifest.delete();
+		manager = null;
+		manifest = null;
+	}
+
+	/** Tests that reloading the same manifest changes nothing */
+	@Test
+	public void test00_testReloadSameFile() {
+		try {
+			int changed = manager.reloadGraph("valid.json");
+			if (changed != 0) {
+				fail("ERROR: reloading the same manifest changed " + changed + " packages");
+			}
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+	}
+
+	/** Tests that a reloaded manager gives the same answers as a new one */
+	@Test
+	public void test01_testReloadChangedFile() {
+		try {
+			// valid.json is A->[B], B->[C, D], E->[B]. This drops E, gives A two more
+			// dependencies and replaces D with F in the dependencies of B
+			Files.write(manifest.toPath(),
+					("{\"packages\":[{\"name\":\"A\",\"dependencies\":[\"B\",\"C\",\"D\"]},"
+							+ "{\"name\":\"B\",\"dependencies\":[\"C\",\"F\"]}]}").getBytes(StandardCharsets.UTF_8));
+			manager.getPackageWithMaxDependencies(); // fills the cache before the reload
+			int changed = manager.reloadGraph(manifest.getPath());
+
+			PackageManager fresh = new PackageManager();
+			fresh.constructGraph(manifest.getPath());
+			if (changed != 3 || !manager.getAllPackages().equals(fresh.getAllPackages())
+					|| !manager.getInstallationOrder("A").equals(fresh.getInstallationOrder("A"))
+					|| manager.getDependencyCount("A") != fresh.getDependencyCount("A")
+					|| !manager.getInstallationOrder("A").equals(Arrays.asList("C", "F", "B", "D", "A"))) {
+				fail("ERROR: The reloaded graph does not match the new manifest");
+			}
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+	}
+
+	/** Tests that a manifest that repeats a dependency is unchanged on every reload */
+	@Test
+	public void test02_testReloadRepeatedDependency() {
+		try {
+			// valid.json with B and D listed twice, which the graph holds once
+			Files.write(manifest.toPath(),
+					("{\"packages\":[{\"name\":\"A\",\"dependencies\":[\"B\",\"B\"]},"
+							+ "{\"name\":\"B\",\"dependencies\":[\"C\",\"D\",\"D\"]},"
+							+ "{\"name\":\"E\",\"dependencies\":[\"B\"]}]}").getBytes(StandardCharsets.UTF_8));
+			int first = manager.reloadGraph(manifest.getPath());
+			int second = manager.reloadGraph(manifest.getPath());
+			if (first != 0 || second != 0) {
+				fail("ERROR: reloading the same dependencies changed " + first + " and " + second + " packages");
+			}
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+	}
+
+	/** Tests that the order of all packages sees one whole version during reloads */
+	@Test
+	public void test03_testOrderForAllDuringReload() {
+		File other = null;
+		try {
+			// two long chains of the same packages in opposite directions, reloaded back
+			// and forth, so every reload changes every package
+			other = File.createTempFile("manifest", ".json");
+			StringBuilder down = new StringBuilder("{\"packages\":[");
+			StringBuilder up = new StringBuilder("{\"packages\":[");
+			for (int i = 0; i < 2000; i++) {
+				down.append(i == 0 ? "" : ",").append("{\"name\":\"P" + i + "\",\"dependencies\":[\"P" + (i + 1) + "\"]}");
+				up.append(i == 0 ? "" : ",").append("{\"name\":\"P" + (i + 1) + "\",\"dependencies\":[\"P" + i + "\"]}");
+			}
+			Files.write(manifest.toPath(), down.append("]}").toString().getBytes(StandardCharsets.UTF_8));
+			Files.write(other.toPath(), up.append("]}").toString().getBytes(StandardCharsets.UTF_8));
+			PackageManager fresh = new PackageManager();
+			fresh.constructGraph(manifest.getPath());
+			List<String> forward = fresh.getInstallationOrderForAllPackages();
+			fresh = new PackageManager();
+			fresh.constructGraph(other.getPath());
+			List<String> backward = fresh.getInstallationOrderForAllPackages();
+			List<String> original = manager.getInstallationOrderForAllPackages();
+
+			// every order read while the manager reloads has to match one of the versions
+			AtomicReference<String> problem = new AtomicReference<String>();
+			AtomicBoolean reloading = new AtomicBoolean(true);
+			Thread reader = new Thread(() -> {
+				try {
+					while (reloading.get() && problem.get() == null) {
+						List<String> order = manager.getInstallationOrderForAllPackages();
+						if (!order.equals(original) && !order.equals(forward) && !order.equals(backward)) {
+							problem.set("read an order of " + order.size() + " packages that matches no version");
+						}
+					}
+				} catch (Throwable e) {
+					problem.set("threw " + e);
+				}
+			});
+			reader.start();
+			for (int i = 0; i < 400 && problem.get() == null; i++) {
+				manager.reloadGraph((i % 2 == 0 ? manifest : other).getPath());
+			}
+			reloading.set(false);
+			reader.join();
+			if (problem.get() != null) {
+				fail("ERROR: A reader " + problem.get());
+			}
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		} finally {
+			if (other != null) {
+				other.delete();
+			}
+		}
+	}
+}
@@ -0,0 +1,81 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests toInstall with several packages already installed.
+ * 
+ * Written By Max Johnson
+ */
+public class PackageManagerToInstallTest {
+
+	// The package manager built from shared_dependencies.json: A->[B, C], B->[D], C->[D]
+	private PackageManager packageManager;
+
+	/** Builds the package manager before each method */
+	@BeforeEach
+	public void setUp() throws Exception {
+		packageManager = new PackageManager();
+		packageManager.constructGraph("shared_dependencies.json");
+	}
+
+	/** Not much to do, just make sure that variables are reset */
+	@AfterEach
+	public void tearDown() throws Exception {
+		packageManager = null;
+	}
+
+	/** Tests that the closures of every installed package are left out */
+	@Test
+	public void test00_testSeveralInstalled() {
+		try {
+			List<String> both = packageManager.toInstall("A", Arrays.asList("B", "C"));
+			if (!both.equals(Arrays.asList("A"))) {
+				fail("ERROR: With B and C installed the order was " + both);
+			}
+			List<String> shared = packageManager.toInstall("A", Arrays.asList("D"));
+			if (!shared.equals(Arrays.asList("B", "C", "A"))) {
+				fail("ERROR: With D installed the order was " + shared);
+			}
+			List<String> none = packageManager.toInstall("A", Collections.<String>emptyList());
+			if (!none.equals(packageManager.getInstallationOrder("A"))) {
+				fail("ERROR: With nothing installed the order was " + none);
+			}
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+	}
+
+	/** Tests that an installed package B doesn't need still installs what it shares */
+	@Test
+	public void test01_testInstalledOutsideClosure() {
+		try {
+			// B doesn't depend on C, but D was installed along with C
+			List<String> order = packageManager.toInstall("B", Arrays.asList("C"));
+			if (!order.equals(Arrays.asList("B"))) {
+				fail("ERROR: With C installed the order of B was " + order);
+			}
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+	}
+
+	/** Tests that an installed package that doesn't exist is reported */
+	@Test
+	public void test02_testInstalledNotFound() {
+		try {
+			packageManager.toInstall("A", Arrays.asList("B", "Z"));
+			fail("ERROR: The missing package Z was not reported");
+		} catch (PackageNotFoundException e) {
+			// expected
+		} catch (Exception e) {
+			fail("ERROR: unexpected exception " + e);
+		}
+	}
+}
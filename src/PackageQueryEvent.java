@@ -0,0 +1,35 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Filename: PackageQueryEvent.java Project: p4 Authors: Max Johnson
+ *
+ * Java Flight Recorder event for one timed PackageManager call, so allocation
+ * and GC events in a recording can be matched to the call that caused them.
+ * The event has the stack trace of the caller.
+ */
+@Name("p4.PackageQuery")
+@Label("Package Query")
+@Category({ "p4", "PackageManager" })
+@Description("A PackageManager query or manifest load")
+public class PackageQueryEvent extends Event {
+
+	@Label("Operation")
+	@Description("The Metrics.Operation of the call")
+	String operation;
+
+	@Label("Package")
+	@Description("The package asked about, or the manifest loaded")
+	String pkg;
+
+	@Label("Vertices Visited")
+	@Description("The number of vertices the traversals of the call finished")
+	long verticesVisited;
+
+	@Label("Result Size")
+	@Description("The number of packages returned or loaded, -1 if the call threw")
+	int resultSize;
+}
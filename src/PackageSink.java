@@ -0,0 +1,21 @@
+import java.util.List;
+
+/**
+ * Filename: PackageSink.java Project: p4 Authors: Max Johnson
+ * 
+ * Receives the packages of a json manifest one at a time, in the order they
+ * appear in the file, as a manifest reader finds them.
+ */
+public interface PackageSink {
+
+	/**
+	 * Called once for every package in the manifest.
+	 * 
+	 * @param name         - the name of the package, null if the entry has none
+	 * @param dependencies - the names of the packages it depends on. The reader
+	 *                     reuses the list for the next package, so it must not be
+	 *                     kept after this call returns.
+	 */
+	public void accept(String name, List<String> dependencies);
+
+}
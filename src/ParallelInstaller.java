@@ -0,0 +1,226 @@
+import java.util.ArrayDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Filename: ParallelInstaller.java Project: p4 Authors: Max Johnson
+ * 
+ * Runs an install action for every package of an InstallationPlan on an
+ * Executor. Every package keeps an atomic count of its dependencies that are
+ * not installed yet. The packages with no dependencies are submitted first,
+ * and when an install finishes it lowers the count of each of its dependents
+ * and submits the ones that reach 0. A package therefore starts as soon as its
+ * own dependencies are done instead of waiting for its whole level, and wide
+ * dependency trees keep every thread of the executor busy.
+ * 
+ * An executor may run a task on the thread that submits it, like a direct
+ * executor or a ThreadPoolExecutor with CallerRunsPolicy. The packages made
+ * ready by an install that runs that way are queued on its thread and
+ * installed one after another, so a long chain of dependencies doesn't nest
+ * one call deeper for every package.
+ * 
+ * If an install throws or the executor rejects one, no more packages are
+ * started and run() throws an ExecutionException with the first failure.
+ * Installs that had already started are not interrupted, and run() waits for
+ * them to finish before it throws. If the thread waiting in run() is
+ * interrupted, the installs that have not started yet are skipped, and run()
+ * throws the InterruptedException without waiting for the ones still running.
+ */
+public class ParallelInstaller {
+
+	/**
+	 * The action that installs a single package. It is called from the threads of
+	 * the executor, at most once per package, and only after the action has
+	 * returned for every dependency of the package.
+	 */
+	public interface Action {
+		public void install(String pkg) throws Exception;
+	}
+
+	private final InstallationPlan plan; // the packages to install
+
+	/**
+	 * Constructs a ParallelInstaller for the given plan
+	 * 
+	 * @param plan - the plan from PackageManager.getInstallationPlan()
+	 */
+	public ParallelInstaller(InstallationPlan plan) {
+		this.plan = plan;
+	}
+
+	/**
+	 * Installs every package of the plan on the common ForkJoinPool
+	 * 
+	 * @param action - the action that installs a package
+	 * @throws ExecutionException   if the action threw for any package
+	 * @throws InterruptedException if the calling thread is interrupted while
+	 *                              waiting
+	 */
+	public void run(Action action) throws ExecutionException, InterruptedException {
+		run(action, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Installs every package of the plan on the given executor, such as a
+	 * ForkJoinPool or a virtual thread per task executor, and waits for them to
+	 * finish.
+	 * 
+	 * @param action   - the action that installs a package
+	 * @param executor - the executor to run the installs on
+	 * @throws ExecutionException   if the action threw for any package
+	 * @throws InterruptedException if the calling thread is interrupted while
+	 *                              waiting, after which no more installs start
+	 */
+	public void run(Action action, Executor executor) throws ExecutionException, InterruptedException {
+		new Run(action, executor).start();
+	}
+
+	/**
+	 * The state of a single call to run()
+	 */
+	private class Run {
+
+		private final Action action; // installs a package
+		private final Executor executor; // runs the installs
+		private final FrozenGraph graph; // the snapshot of the plan
+		private final AtomicIntegerArray remaining; // the dependencies of every id still to install
+		private final AtomicInteger inFlight; // installs submitted and not finished, plus one while start() submits
+		private final CountDownLatch done; // counts down once no install is in flight
+		private final AtomicReference<Throwable> failure; // the first exception thrown by the action
+		private final ThreadLocal<ArrayDeque<Integer>> queued; // the ready ids of the thread running installs
+
+		/**
+		 * Sets up the counts of every package of the plan
+		 * 
+		 * @param action   - installs a package
+		 * @param executor - runs the installs
+		 */
+		private Run(Action action, Executor executor) {
+			this.action = action;
+			this.executor = executor;
+			graph = plan.getGraph();
+			remaining = new AtomicIntegerArray(graph.capacity());
+			for (int id = 0; id < graph.capacity(); id++) {
+				remaining.set(id, graph.outDegree(id));
+			}
+			inFlight = new AtomicInteger(1);
+			done = new CountDownLatch(1);
+			failure = new AtomicReference<Throwable>();
+			queued = new ThreadLocal<ArrayDeque<Integer>>();
+		}
+
+		/**
+		 * Submits the packages with no dependencies and waits for every package
+		 * 
+		 * @throws ExecutionException   if the action threw for any package
+		 * @throws InterruptedException if the thread is interrupted while waiting
+		 */
+		private void start() throws ExecutionException, InterruptedException {
+			// nothing to install in an empty plan
+			if (plan.size() == 0) {
+				return;
+			}
+			for (String pkg : plan.getLevels().get(0)) {
+				submit(graph.indexOf(pkg));
+			}
+			finished();// start() is done submitting
+			try {
+				done.await();
+			} catch (InterruptedException e) {
+				// the installs that haven't started see the failure and are skipped
+				failure.compareAndSet(null, e);
+				throw e;
+			}
+			if (failure.get() != null) {
+				throw new ExecutionException(failure.get());
+			}
+		}
+
+		/**
+		 * Submits the install of the given id to the executor. A rejected install,
+		 * or anything else the executor throws, is recorded as a failure.
+		 * 
+		 * @param id - the id of a package whose dependencies are all installed
+		 */
+		private void submit(int id) {
+			inFlight.incrementAndGet();
+			try {
+				executor.execute(() -> drain(id));
+			} catch (Throwable e) {
+				failure.compareAndSet(null, e);
+				finished();
+			}
+		}
+
+		/**
+		 * Installs the given id, and then every id that becomes ready on this
+		 * thread while it does. If the executor ran the task inside an install on
+		 * the same thread, the id is queued for that install's loop instead, so
+		 * the stack doesn't grow with the length of a chain of dependencies.
+		 * 
+		 * @param id - the id of a package whose dependencies are all installed
+		 */
+		private void drain(int id) {
+			ArrayDeque<Integer> queue = queued.get();
+			if (queue != null) {
+				queue.add(id);// the loop below, further up this thread's stack, installs it
+				return;
+			}
+			queue = new ArrayDeque<Integer>();
+			queued.set(queue);
+			try {
+				install(id);
+				while (!queue.isEmpty()) {
+					install(queue.remove());
+				}
+			} finally {
+				queued.remove();
+			}
+		}
+
+		/**
+		 * Installs the given id and submits every dependent that is now ready
+		 * 
+		 * @param id - the id of a package whose dependencies are all installed
+		 */
+		private void install(int id) {
+			try {
+				// skips the install once any other install has failed
+				if (failure.get() != null) {
+					return;
+				}
+				try {
+					action.install(graph.vertexAt(id));
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+					return;
+				}
+				for (int e = graph.firstDependent(id); e < graph.endDependent(id); e++) {
+					int dependent = graph.dependentAt(e);
+					if (remaining.decrementAndGet(dependent) == 0) {
+						submit(dependent);
+					}
+				}
+			} finally {
+				finished();
+			}
+		}
+
+		/**
+		 * Ends an install, or start() submitting. The dependents of an install are
+		 * submitted before it ends, so once nothing is in flight nothing can be
+		 * submitted again: every package is installed or the run has failed.
+		 */
+		private void finished() {
+			if (inFlight.decrementAndGet() == 0) {
+				done.countDown();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,251 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the InstallationPlan and ParallelInstaller of a PackageManager.
+ * 
+ * Written By Max Johnson
+ */
+public class ParallelInstallerTest {
+
+	// The package manager built from valid.json
+	private PackageManager packageManager;
+	// The threads the installs run on
+	private ExecutorService pool;
+
+	/** Builds the package manager and the thread pool before each method */
+	@BeforeEach
+	public void setUp() throws Exception {
+		packageManager = new PackageManager();
+		packageManager.constructGraph("valid.json");
+		pool = Executors.newFixedThreadPool(4);
+	}
+
+	/** Shuts down the thread pool */
+	@AfterEach
+	public void tearDown() throws Exception {
+		pool.shutdownNow();
+		packageManager = null;
+	}
+
+	/** Tests the levels, critical path and earliest starts of valid.json */
+	@Test
+	public void test00_testPlan() throws Exception {
+		InstallationPlan plan = packageManager.getInstallationPlan();
+
+		// C and D have no dependencies, B needs them, and A and E need B
+		if (plan.getCriticalPathLength() != 3 || plan.getEarliestStart("C") != 0
+				|| plan.getEarliestStart("B") != 1 || plan.getEarliestStart("E") != 2 || plan.size() != 5) {
+			fail("ERROR: The plan was " + plan.getLevels());
+		}
+	}
+
+	/** Tests that every package is installed after all of its dependencies */
+	@Test
+	public void test01_testInstallAfterDependencies() throws Exception {
+		Set<String> installed = ConcurrentHashMap.newKeySet();
+
+		// finds the dependencies of every package before the installs start
+		Map<String, List<String>> dependencies = new HashMap<String, List<String>>();
+		for (String pkg : packageManager.getAllPackages()) {
+			dependencies.put(pkg, packageManager.getInstallationOrder(pkg));
+		}
+
+		new ParallelInstaller(packageManager.getInstallationPlan()).run(pkg -> {
+			// every dependency of the package has to be installed already
+			for (String dependency : dependencies.get(pkg)) {
+				if (!dependency.equals(pkg) && !installed.contains(dependency)) {
+					throw new IllegalStateException(pkg + " started before " + dependency);
+				}
+			}
+			if (!installed.add(pkg)) {
+				throw new IllegalStateException(pkg + " was installed twice");
+			}
+		}, pool);
+
+		if (installed.size() != 5) {
+			fail("ERROR: Only " + installed + " were installed");
+		}
+	}
+
+	/** Tests that a failed install stops the packages that depend on it */
+	@Test
+	public void test02_testFailedInstall() throws Exception {
+		Set<String> installed = ConcurrentHashMap.newKeySet();
+
+		try {
+			new ParallelInstaller(packageManager.getInstallationPlan()).run(pkg -> {
+				if (pkg.equals("B")) {
+					throw new IllegalStateException("B failed");
+				}
+				installed.add(pkg);
+			}, pool);
+			fail("ERROR: The failed install was not reported");
+		} catch (ExecutionException e) {
+			if (installed.contains("A") || installed.contains("E")) {
+				fail("ERROR: A package was installed after its dependency failed");
+			}
+		}
+	}
+
+	/** Tests that run() waits for the installs still running when another fails */
+	@Test
+	public void test03_testFailureWaitsForRunningInstalls() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		AtomicBoolean finished = new AtomicBoolean();
+
+		// C fails while D is still installing
+		try {
+			new ParallelInstaller(packageManager.getInstallationPlan()).run(pkg -> {
+				if (pkg.equals("C")) {
+					started.await(10, TimeUnit.SECONDS);
+					throw new IllegalStateException("C failed");
+				}
+				if (pkg.equals("D")) {
+					started.countDown();
+					Thread.sleep(200);
+					finished.set(true);
+				}
+			}, pool);
+			fail("ERROR: The failed install was not reported");
+		} catch (ExecutionException e) {
+			if (!finished.get()) {
+				fail("ERROR: run() returned while D was still installing");
+			}
+		}
+	}
+
+	/** Tests that an install rejected by the executor fails the run instead of hanging it */
+	@Test
+	public void test04_testRejectedInstall() throws Exception {
+		// accepts C and D, then rejects B when it becomes ready on a worker thread
+		AtomicInteger accepted = new AtomicInteger();
+		Executor rejecting = task -> {
+			if (accepted.getAndIncrement() >= 2) {
+				throw new RejectedExecutionException("full");
+			}
+			pool.execute(task);
+		};
+		ExecutorService caller = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> result = caller.submit(() -> {
+				new ParallelInstaller(packageManager.getInstallationPlan()).run(pkg -> {
+				}, rejecting);
+				return null;
+			});
+			result.get(10, TimeUnit.SECONDS);
+			fail("ERROR: The rejected install was not reported");
+		} catch (ExecutionException e) {
+			if (!(e.getCause() instanceof ExecutionException)
+					|| !(e.getCause().getCause() instanceof RejectedExecutionException)) {
+				fail("ERROR: The wrong failure was reported: " + e.getCause());
+			}
+		} catch (TimeoutException e) {
+			fail("ERROR: run() hung after the executor rejected an install");
+		} finally {
+			caller.shutdownNow();
+		}
+
+		// an executor that was shut down rejects the first installs
+		pool.shutdown();
+		try {
+			new ParallelInstaller(packageManager.getInstallationPlan()).run(pkg -> {
+			}, pool);
+			fail("ERROR: The rejected install was not reported");
+		} catch (ExecutionException e) {
+			if (!(e.getCause() instanceof RejectedExecutionException)) {
+				fail("ERROR: The wrong failure was reported: " + e.getCause());
+			}
+		}
+	}
+
+	/** Tests that a long chain installed on the calling thread doesn't overflow the stack */
+	@Test
+	public void test05_testLongChainOnDirectExecutor() throws Exception {
+		// p(i) depends on p(i - 1), so every install makes exactly the next one ready
+		File manifest = File.createTempFile("chain", ".json");
+		try {
+			int length = 100000;
+			StringBuilder json = new StringBuilder("{\"packages\":[{\"name\":\"p0\",\"dependencies\":[]}");
+			for (int i = 1; i < length; i++) {
+				json.append(",{\"name\":\"p").append(i).append("\",\"dependencies\":[\"p").append(i - 1).append("\"]}");
+			}
+			Files.write(manifest.toPath(), json.append("]}").toString().getBytes(StandardCharsets.UTF_8));
+			PackageManager chain = new PackageManager();
+			chain.constructGraph(manifest.getPath());
+
+			// runs every install on the thread that submits it
+			AtomicInteger installed = new AtomicInteger();
+			new ParallelInstaller(chain.getInstallationPlan()).run(pkg -> installed.incrementAndGet(), Runnable::run);
+			if (installed.get() != length) {
+				fail("ERROR: Only " + installed.get() + " of the chain were installed");
+			}
+		} catch (StackOverflowError e) {
+			fail("ERROR: Installing the chain overflowed the stack");
+		} finally {
+			manifest.delete();
+		}
+	}
+
+	/** Tests that interrupting run() stops the installs that haven't started */
+	@Test
+	public void test06_testInterruptedRun() throws Exception {
+		Set<String> installed = ConcurrentHashMap.newKeySet();
+		CountDownLatch started = new CountDownLatch(2);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicReference<Throwable> thrown = new AtomicReference<Throwable>();
+
+		// C and D block until the waiting thread has been interrupted
+		Thread waiting = new Thread(() -> {
+			try {
+				new ParallelInstaller(packageManager.getInstallationPlan()).run(pkg -> {
+					if (pkg.equals("C") || pkg.equals("D")) {
+						started.countDown();
+						release.await(10, TimeUnit.SECONDS);
+					}
+					installed.add(pkg);
+				}, pool);
+			} catch (Throwable e) {
+				thrown.set(e);
+			}
+		});
+		waiting.start();
+		started.await(10, TimeUnit.SECONDS);
+		waiting.interrupt();
+		waiting.join(10000);
+		release.countDown();
+
+		// lets C and D finish, which would make B ready if the run hadn't failed
+		Thread.sleep(500);
+		if (!(thrown.get() instanceof InterruptedException)) {
+			fail("ERROR: run() threw " + thrown.get() + " instead of an InterruptedException");
+		}
+		if (installed.contains("B") || installed.contains("A") || installed.contains("E")) {
+			fail("ERROR: Packages were installed after run() was interrupted: " + installed);
+		}
+	}
+}
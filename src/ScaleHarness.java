@@ -0,0 +1,92 @@
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * Filename: ScaleHarness.java Project: p4 Authors: Max Johnson
+ *
+ * Loads generated manifests of doubling size through
+ * PackageManager.constructGraph and records how long each operation takes and
+ * how much heap it needs. Each operation runs once on a fresh heap. The peak
+ * heap is the sum of the peak usage of every heap memory pool while it ran, so
+ * it includes garbage that was not collected yet. Operations that find a cycle
+ * are reported as "cycle".
+ *
+ * Usage: java ScaleHarness [maxPackages] [depth] [fanOut] [cycleDensity]
+ */
+public class ScaleHarness {
+
+	// the seed of the generated manifests
+	private static final long SEED = 400L;
+
+	/**
+	 * One operation on a loaded PackageManager
+	 */
+	private interface Operation {
+		public void run(PackageManager manager) throws Exception;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int maxPackages = args.length > 0 ? Integer.parseInt(args[0]) : 256000;
+		int depth = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		int fanOut = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+		double cycleDensity = args.length > 3 ? Double.parseDouble(args[3]) : 0;
+
+		System.out.println("packages\tKB\toperation\tms\tpeak heap MB");
+		for (int packages = 1000; packages <= maxPackages; packages *= 2) {
+			File json = File.createTempFile("manifest", ".json");
+			try {
+				new ManifestGenerator(packages, Math.min(depth, packages), fanOut, cycleDensity, SEED)
+						.write(json.getPath());
+				String prefix = packages + "\t" + json.length() / 1024 + "\t";
+				String last = "pkg" + (packages - 1);
+
+				PackageManager manager = new PackageManager();
+				measure(prefix + "constructGraph", manager, pm -> pm.constructGraph(json.getPath()));
+				measure(prefix + "getInstallationOrder", manager, pm -> pm.getInstallationOrder(last));
+				measure(prefix + "getInstallationOrderForAllPackages", manager,
+						pm -> pm.getInstallationOrderForAllPackages());
+				measure(prefix + "getPackageWithMaxDependencies", manager,
+						pm -> pm.getPackageWithMaxDependencies());
+			} finally {
+				json.delete();
+			}
+		}
+	}
+
+	/**
+	 * Runs an operation once and prints its time and peak heap
+	 *
+	 * @param name      - printed in front of the results
+	 * @param manager   - the manager to run it on
+	 * @param operation - the operation
+	 * @throws Exception if the operation fails other than by finding a cycle
+	 */
+	private static void measure(String name, PackageManager manager, Operation operation) throws Exception {
+		// starts from a collected heap so the peak is mostly the operation's own
+		System.gc();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+			}
+		}
+
+		long start = System.nanoTime();
+		String result;
+		try {
+			operation.run(manager);
+			result = String.format("%.1f", (System.nanoTime() - start) / 1e6);
+		} catch (CycleException e) {
+			result = "cycle";
+		}
+
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		System.out.printf("%s\t%s\t%.1f%n", name, result, peak / (1024.0 * 1024.0));
+	}
+}
@@ -0,0 +1,74 @@
+import java.io.File;
+
+/**
+ * Filename: SnapshotBenchmark.java Project: p4 Authors: Max Johnson
+ *
+ * Compares how long a PackageManager takes to load the same graph from a json
+ * manifest and from a binary snapshot of it. An acyclic manifest from
+ * ManifestGenerator is written to a temporary file, loaded with both json
+ * readers, saved with saveSnapshot, and then loaded from the snapshot with
+ * plain and memory-mapped I/O. Each way is timed over several rounds and the
+ * fastest round is kept.
+ *
+ * Usage: java SnapshotBenchmark [packages] [fanOut] [rounds] [depth]
+ */
+public class SnapshotBenchmark {
+
+	// the seed of the random dependencies so every run loads the same graph
+	private static final long SEED = 400L;
+
+	/**
+	 * One way of loading a file into a new PackageManager
+	 */
+	private interface Loader {
+		public void load(PackageManager manager, String path) throws Exception;
+	}
+
+	public static void main(String[] args) throws Exception {
+		// the size of the manifest and how many times each load is repeated
+		int packages = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int fanOut = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		int depth = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+
+		File json = File.createTempFile("manifest", ".json");
+		File snapshot = File.createTempFile("manifest", ".snapshot");
+		json.deleteOnExit();
+		snapshot.deleteOnExit();
+		new ManifestGenerator(packages, Math.min(depth, packages), fanOut, 0, SEED).write(json.getPath());
+
+		// builds the snapshot from the json once
+		PackageManager manager = new PackageManager();
+		manager.constructGraph(json.getPath());
+		manager.saveSnapshot(snapshot.getPath());
+
+		System.out.printf("%d packages, json %d KB, snapshot %d KB%n", packages, json.length() / 1024,
+				snapshot.length() / 1024);
+		System.out.println("load\tbest ms");
+		time("json stream", json, rounds, (pm, path) -> pm.constructGraph(path, false));
+		time("json mapped", json, rounds, (pm, path) -> pm.constructGraph(path, true));
+		time("snapshot read", snapshot, rounds, (pm, path) -> pm.loadSnapshot(path, false));
+		time("snapshot mapped", snapshot, rounds, (pm, path) -> pm.loadSnapshot(path, true));
+	}
+
+	/**
+	 * Loads the file into a new PackageManager the given number of times and
+	 * prints the fastest load
+	 *
+	 * @param name   - the name of the way of loading, printed with the time
+	 * @param file   - the file to load
+	 * @param rounds - the number of times to load it
+	 * @param loader - loads the file
+	 * @throws Exception if the file cannot be loaded
+	 */
+	private static void time(String name, File file, int rounds, Loader loader) throws Exception {
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < rounds; i++) {
+			PackageManager manager = new PackageManager();
+			long start = System.nanoTime();
+			loader.load(manager, file.getPath());
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		System.out.printf("%s\t%.1f%n", name, best / 1e6);
+	}
+}
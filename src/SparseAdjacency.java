@@ -0,0 +1,75 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Filename: SparseAdjacency.java Project: p4 Authors: Max Johnson
+ * 
+ * Sparse AdjacencyStorage that keeps a set of target ids for every vertex id.
+ * The set of a vertex is only created once it gets its first edge, so memory
+ * grows with the number of edges instead of the number of vertices squared.
+ * This is the default storage of a Graph.
+ */
+public class SparseAdjacency implements AdjacencyStorage {
+
+	private List<Set<Integer>> targets; // the target ids of every vertex id, null if it has no edges
+
+	/**
+	 * Constructs an empty SparseAdjacency
+	 */
+	public SparseAdjacency() {
+		targets = new ArrayList<Set<Integer>>();
+	}
+
+	@Override
+	public void ensureCapacity(int vertices) {
+		// adds an empty slot for every new vertex id
+		while (targets.size() < vertices) {
+			targets.add(null);
+		}
+	}
+
+	@Override
+	public boolean addEdge(int from, int to) {
+		ensureCapacity(from + 1);
+		// creates the set of the vertex the first time it gets an edge
+		Set<Integer> set = targets.get(from);
+		if (set == null) {
+			set = new HashSet<Integer>();
+			targets.set(from, set);
+		}
+		return set.add(to);
+	}
+
+	@Override
+	public boolean removeEdge(int from, int to) {
+		// nothing to remove if the vertex never had an edge
+		if (from >= targets.size() || targets.get(from) == null) {
+			return false;
+		}
+		Set<Integer> set = targets.get(from);
+		boolean removed = set.remove(to);
+		// frees the set once the vertex has no edges left
+		if (set.isEmpty()) {
+			targets.set(from, null);
+		}
+		return removed;
+	}
+
+	@Override
+	public boolean hasEdge(int from, int to) {
+		if (from >= targets.size() || targets.get(from) == null) {
+			return false;
+		}
+		return targets.get(from).contains(to);
+	}
+
+	@Override
+	public void clear(int vertices) {
+		// replaces every set with an empty slot
+		targets = new ArrayList<Set<Integer>>(vertices);
+		ensureCapacity(vertices);
+	}
+
+}
@@ -0,0 +1,30 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Filename: StorageResizeEvent.java Project: p4 Authors: Max Johnson
+ *
+ * Java Flight Recorder event for a Graph growing its id table and edge storage,
+ * which for a DenseAdjacency copies the whole matrix.
+ */
+@Name("p4.StorageResize")
+@Label("Graph Storage Resize")
+@Category({ "p4", "Graph" })
+@Description("A Graph grew the room of its id table and edge storage")
+public class StorageResizeEvent extends Event {
+
+	@Label("Storage")
+	@Description("The AdjacencyStorage class of the graph")
+	String storage;
+
+	@Label("From Ids")
+	@Description("The number of ids there was room for before")
+	int fromIds;
+
+	@Label("To Ids")
+	@Description("The number of ids there is room for after")
+	int toIds;
+}